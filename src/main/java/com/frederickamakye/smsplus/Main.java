@@ -1,5 +1,6 @@
 package com.frederickamakye.smsplus;
 
+import com.frederickamakye.smsplus.services.AsyncStudentService;
 import com.frederickamakye.smsplus.utils.Database;
 import com.frederickamakye.smsplus.ui.MainView;
 
@@ -23,6 +24,14 @@ public class Main extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+
+        // Stop pending service calls, then release pooled database connections on exit
+        AsyncStudentService.shutdownShared();
+        Database.shutdown();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
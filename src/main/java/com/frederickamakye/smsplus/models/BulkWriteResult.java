@@ -0,0 +1,65 @@
+package com.frederickamakye.smsplus.models;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+public class BulkWriteResult {
+
+    private int insertedCount;
+    private int updatedCount;
+    private int unchangedCount;
+
+    // position in the submitted list -> reason the row was not written
+    private final Map<Integer, String> failures;
+
+    public BulkWriteResult() {
+        failures = new TreeMap<>();
+    }
+
+    public void incrementInserted() {
+        insertedCount++;
+    }
+
+    public void incrementUpdated() {
+        updatedCount++;
+    }
+
+    public void incrementUnchanged() {
+        unchangedCount++;
+    }
+
+    // merge counts from a result whose positions were already remapped by the caller
+    public void addCounts(BulkWriteResult other) {
+        insertedCount += other.insertedCount;
+        updatedCount += other.updatedCount;
+        unchangedCount += other.unchangedCount;
+    }
+
+    public void addFailure(int index, String reason) {
+        failures.put(index, reason);
+    }
+
+    public int getInsertedCount() {
+        return insertedCount;
+    }
+
+    public int getUpdatedCount() {
+        return updatedCount;
+    }
+
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
+    public int getFailureCount() {
+        return failures.size();
+    }
+
+    public Map<Integer, String> getFailures() {
+        return failures;
+    }
+
+    public boolean isFailed(int index) {
+        return failures.containsKey(index);
+    }
+}
@@ -0,0 +1,46 @@
+package com.frederickamakye.smsplus.models;
+
+public class DashboardStats {
+
+    private final int totalStudents;
+    private final int activeStudents;
+    private final int inactiveStudents;
+    private final double averageGpa;
+    private final double minGpa;
+    private final double maxGpa;
+
+    public DashboardStats(int totalStudents, int activeStudents, int inactiveStudents,
+                          double averageGpa, double minGpa, double maxGpa) {
+        this.totalStudents = totalStudents;
+        this.activeStudents = activeStudents;
+        this.inactiveStudents = inactiveStudents;
+        this.averageGpa = averageGpa;
+        this.minGpa = minGpa;
+        this.maxGpa = maxGpa;
+    }
+
+    public int getTotalStudents() {
+        return totalStudents;
+    }
+
+    public int getActiveStudents() {
+        return activeStudents;
+    }
+
+    public int getInactiveStudents() {
+        return inactiveStudents;
+    }
+
+    // GPA statistics are 0 when there are no students
+    public double getAverageGpa() {
+        return averageGpa;
+    }
+
+    public double getMinGpa() {
+        return minGpa;
+    }
+
+    public double getMaxGpa() {
+        return maxGpa;
+    }
+}
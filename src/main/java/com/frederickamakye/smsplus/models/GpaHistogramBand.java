@@ -0,0 +1,48 @@
+package com.frederickamakye.smsplus.models;
+
+// One band of a GPA histogram, for every student or for one programme.
+// A band without students has 0 for its average, minimum and maximum.
+public class GpaHistogramBand {
+
+    private final String programme;
+    private final String band;
+    private final int totalStudents;
+    private final double averageGpa;
+    private final double minGpa;
+    private final double maxGpa;
+
+    public GpaHistogramBand(String programme, String band, int totalStudents,
+                            double averageGpa, double minGpa, double maxGpa) {
+        this.programme = programme;
+        this.band = band;
+        this.totalStudents = totalStudents;
+        this.averageGpa = averageGpa;
+        this.minGpa = minGpa;
+        this.maxGpa = maxGpa;
+    }
+
+    // null when the histogram covers every programme
+    public String getProgramme() {
+        return programme;
+    }
+
+    public String getBand() {
+        return band;
+    }
+
+    public int getTotalStudents() {
+        return totalStudents;
+    }
+
+    public double getAverageGpa() {
+        return averageGpa;
+    }
+
+    public double getMinGpa() {
+        return minGpa;
+    }
+
+    public double getMaxGpa() {
+        return maxGpa;
+    }
+}
@@ -0,0 +1,58 @@
+package com.frederickamakye.smsplus.models;
+
+// GPA percentiles of one group of students: every student, a programme or a level
+public class GpaPercentileSummary {
+
+    private final String grouping;
+    private final String group;
+    private final int totalStudents;
+    private final double p10;
+    private final double p25;
+    private final double median;
+    private final double p75;
+    private final double p90;
+
+    public GpaPercentileSummary(String grouping, String group, int totalStudents,
+                                double p10, double p25, double median, double p75, double p90) {
+        this.grouping = grouping;
+        this.group = group;
+        this.totalStudents = totalStudents;
+        this.p10 = p10;
+        this.p25 = p25;
+        this.median = median;
+        this.p75 = p75;
+        this.p90 = p90;
+    }
+
+    public String getGrouping() {
+        return grouping;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public int getTotalStudents() {
+        return totalStudents;
+    }
+
+    public double getP10() {
+        return p10;
+    }
+
+    public double getP25() {
+        return p25;
+    }
+
+    public double getMedian() {
+        return median;
+    }
+
+    public double getP75() {
+        return p75;
+    }
+
+    public double getP90() {
+        return p90;
+    }
+}
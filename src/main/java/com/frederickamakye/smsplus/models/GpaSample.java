@@ -0,0 +1,27 @@
+package com.frederickamakye.smsplus.models;
+
+// The columns the GPA percentile report groups and ranks by, streamed instead of whole students
+public class GpaSample {
+
+    private final String programme;
+    private final int level;
+    private final double gpa;
+
+    public GpaSample(String programme, int level, double gpa) {
+        this.programme = programme;
+        this.level = level;
+        this.gpa = gpa;
+    }
+
+    public String getProgramme() {
+        return programme;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public double getGpa() {
+        return gpa;
+    }
+}
@@ -0,0 +1,10 @@
+package com.frederickamakye.smsplus.models;
+
+public enum ImportMode {
+
+    // Only add new students. Rows whose ID already exists are reported as errors.
+    INSERT,
+
+    // Add new students and update existing ones. Rows identical to the stored record are not rewritten.
+    UPSERT
+}
@@ -8,8 +8,17 @@ public class ImportResult {
     private int successCount;
     private int errorCount;
 
+    // breakdown of successful rows
+    private int insertedCount;
+    private int updatedCount;
+    private int unchangedCount;
+
     private final List<String> errorRows;
 
+    // throughput of the parse, validate and write stages, and of the import as a whole
+    private List<ImportStageStats> stageStats = List.of();
+    private long elapsedNanos;
+
     public ImportResult() {
         errorRows = new ArrayList<>();
     }
@@ -23,6 +32,12 @@ public class ImportResult {
         errorRows.add(row);
     }
 
+    public void addWriteCounts(int inserted, int updated, int unchanged) {
+        insertedCount += inserted;
+        updatedCount += updated;
+        unchangedCount += unchanged;
+    }
+
     public int getSuccessCount() {
         return successCount;
     }
@@ -31,7 +46,37 @@ public class ImportResult {
         return errorCount;
     }
 
+    public int getInsertedCount() {
+        return insertedCount;
+    }
+
+    public int getUpdatedCount() {
+        return updatedCount;
+    }
+
+    public int getUnchangedCount() {
+        return unchangedCount;
+    }
+
     public List<String> getErrorRows() {
         return errorRows;
     }
+
+    public void setStageStats(List<ImportStageStats> stageStats, long elapsedNanos) {
+        this.stageStats = List.copyOf(stageStats);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public List<ImportStageStats> getStageStats() {
+        return stageStats;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    // Rows read from the file per second of wall clock time
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : (successCount + errorCount) * 1e9 / elapsedNanos;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.frederickamakye.smsplus.models;
+
+// Rows handled by one stage of a CSV import and the time its threads spent working on them
+public class ImportStageStats {
+
+    private final String stage;
+    private final int threads;
+    private final long rows;
+    private final long busyNanos;
+
+    public ImportStageStats(String stage, int threads, long rows, long busyNanos) {
+        this.stage = stage;
+        this.threads = threads;
+        this.rows = rows;
+        this.busyNanos = busyNanos;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    // summed over the threads of the stage, time spent waiting on the queues is not counted
+    public long getBusyNanos() {
+        return busyNanos;
+    }
+
+    // Rows per second the stage keeps up with on its threads. The lowest rate is the bottleneck.
+    public double getRowsPerSecond() {
+        return busyNanos == 0 ? 0 : rows * 1e9 * threads / busyNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %.0f rows/s on %d thread(s)", stage, getRowsPerSecond(), threads);
+    }
+}
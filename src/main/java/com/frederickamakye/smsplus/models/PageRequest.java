@@ -0,0 +1,81 @@
+/*
+ * PageRequest describes one page of a keyset (seek) paged student listing.
+ * The first page has no cursor. Every following page is requested with next(page),
+ * which seeks past the last row of the previous page instead of using OFFSET.
+*/
+
+package com.frederickamakye.smsplus.models;
+
+public class PageRequest {
+
+    private final String sortField;       // gpa, fullname, level or studentid
+    private final String direction;       // asc or desc
+    private final String filterField;     // programme, level, status or null
+    private final Object filterValue;
+    private final Object afterSortValue;  // sort value of the last row already seen
+    private final String afterStudentId;  // tie breaker for rows with the same sort value
+    private final int pageSize;
+
+    public PageRequest(String sortField, String direction, int pageSize) {
+        this(sortField, direction, null, null, null, null, pageSize);
+    }
+
+    private PageRequest(String sortField, String direction, String filterField, Object filterValue,
+                        Object afterSortValue, String afterStudentId, int pageSize) {
+
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than 0");
+        }
+
+        this.sortField = sortField;
+        this.direction = direction;
+        this.filterField = filterField;
+        this.filterValue = filterValue;
+        this.afterSortValue = afterSortValue;
+        this.afterStudentId = afterStudentId;
+        this.pageSize = pageSize;
+    }
+
+    // Same request restricted to rows where field = value
+    public PageRequest withFilter(String field, Object value) {
+        return new PageRequest(sortField, direction, field, value, afterSortValue, afterStudentId, pageSize);
+    }
+
+    // Request for the page that follows the given page
+    public PageRequest next(StudentPage page) {
+        return new PageRequest(sortField, direction, filterField, filterValue,
+                page.getLastSortValue(), page.getLastStudentId(), pageSize);
+    }
+
+    public boolean isFirstPage() {
+        return afterStudentId == null;
+    }
+
+    public String getSortField() {
+        return sortField;
+    }
+
+    public String getDirection() {
+        return direction;
+    }
+
+    public String getFilterField() {
+        return filterField;
+    }
+
+    public Object getFilterValue() {
+        return filterValue;
+    }
+
+    public Object getAfterSortValue() {
+        return afterSortValue;
+    }
+
+    public String getAfterStudentId() {
+        return afterStudentId;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+}
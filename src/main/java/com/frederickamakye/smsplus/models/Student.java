@@ -23,6 +23,15 @@ public class Student {
         this.gpa = gpa;
     }
 
+    // Copy of another student, so a cached or stored record is not changed through the copy
+    public Student(Student other) {
+        this(other.studentId, other.fullName, other.programme, other.level, other.gpa);
+        this.email = other.email;
+        this.phone = other.phone;
+        this.dateAdded = other.dateAdded;
+        this.status = other.status;
+    }
+
     public String getStudentId() {
         return studentId;
     }
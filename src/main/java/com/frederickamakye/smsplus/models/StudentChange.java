@@ -0,0 +1,57 @@
+package com.frederickamakye.smsplus.models;
+
+import java.util.List;
+
+// A committed write, as announced to StudentService change listeners.
+// previous is the record before the write (null for a create), current the record after it (null for a delete).
+// Bulk writes only carry the IDs they touched.
+public final class StudentChange {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, BULK
+    }
+
+    private final Type type;
+    private final Student previous;
+    private final Student current;
+    private final List<String> studentIds;
+
+    private StudentChange(Type type, Student previous, Student current, List<String> studentIds) {
+        this.type = type;
+        this.previous = previous;
+        this.current = current;
+        this.studentIds = List.copyOf(studentIds);
+    }
+
+    public static StudentChange created(Student current) {
+        return new StudentChange(Type.CREATED, null, current, List.of(current.getStudentId()));
+    }
+
+    public static StudentChange updated(Student previous, Student current) {
+        return new StudentChange(Type.UPDATED, previous, current, List.of(current.getStudentId()));
+    }
+
+    public static StudentChange deleted(Student previous) {
+        return new StudentChange(Type.DELETED, previous, null, List.of(previous.getStudentId()));
+    }
+
+    public static StudentChange bulk(List<String> studentIds) {
+        return new StudentChange(Type.BULK, null, null, studentIds);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Student getPrevious() {
+        return previous;
+    }
+
+    public Student getCurrent() {
+        return current;
+    }
+
+    public List<String> getStudentIds() {
+        return studentIds;
+    }
+}
@@ -0,0 +1,36 @@
+package com.frederickamakye.smsplus.models;
+
+import java.util.List;
+
+public class StudentPage {
+
+    private final List<Student> students;
+    private final boolean hasMore;
+
+    // keyset cursor: sort value and ID of the last row on this page
+    private final Object lastSortValue;
+    private final String lastStudentId;
+
+    public StudentPage(List<Student> students, boolean hasMore, Object lastSortValue, String lastStudentId) {
+        this.students = students;
+        this.hasMore = hasMore;
+        this.lastSortValue = lastSortValue;
+        this.lastStudentId = lastStudentId;
+    }
+
+    public List<Student> getStudents() {
+        return students;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    public Object getLastSortValue() {
+        return lastSortValue;
+    }
+
+    public String getLastStudentId() {
+        return lastStudentId;
+    }
+}
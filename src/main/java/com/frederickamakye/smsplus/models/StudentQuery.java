@@ -0,0 +1,262 @@
+/*
+ * StudentQuery collects the criteria of a student listing: filters, text search, sort order and limit.
+ * StudentRepository compiles it into a single parameterized SELECT, so any combination of
+ * criteria costs one query instead of one read per criterion.
+ * Criteria left unset are not applied. Listings without a sort key come back in student ID order
+ * (SQLite) or insertion order (in memory), text searches best match first, so offset pages of the
+ * same query never overlap. A keyset cursor (after/before) seeks to a page without reading the rows
+ * ahead of it.
+*/
+
+package com.frederickamakye.smsplus.models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+import com.frederickamakye.smsplus.utils.SearchText;
+
+public class StudentQuery {
+
+    public enum SortField {
+        GPA, FULL_NAME, LEVEL, STUDENT_ID;
+
+        // Accepts the field names used by the UI and the older sortBy API (gpa, fullname, level, studentid)
+        public static SortField from(String name) {
+            return switch (name.toLowerCase()) {
+                case "gpa" -> GPA;
+                case "fullname", "full_name" -> FULL_NAME;
+                case "level" -> LEVEL;
+                case "studentid", "student_id" -> STUDENT_ID;
+                default -> throw new IllegalArgumentException("Invalid sorting field");
+            };
+        }
+    }
+
+    public record Sort(SortField field, boolean descending) {
+    }
+
+    private String programme;
+    private Integer level;
+    private String status;
+    private Double minGpa;
+    private Double maxGpa;
+    private String text;
+    private final List<Sort> sorts = new ArrayList<>();
+    private int limit;
+    private int offset;
+
+    // keyset cursor: sort value and ID of a row of the same listing, null for none
+    private Object cursorSortValue;
+    private String cursorStudentId;
+    private boolean cursorBefore;
+
+    public StudentQuery() {
+    }
+
+    // Copy of the criteria, e.g. to request another page of the same listing
+    public StudentQuery(StudentQuery other) {
+        this.programme = other.programme;
+        this.level = other.level;
+        this.status = other.status;
+        this.minGpa = other.minGpa;
+        this.maxGpa = other.maxGpa;
+        this.text = other.text;
+        this.sorts.addAll(other.sorts);
+        this.limit = other.limit;
+        this.offset = other.offset;
+        this.cursorSortValue = other.cursorSortValue;
+        this.cursorStudentId = other.cursorStudentId;
+        this.cursorBefore = other.cursorBefore;
+    }
+
+    public StudentQuery programme(String programme) {
+        this.programme = programme;
+        return this;
+    }
+
+    public StudentQuery level(Integer level) {
+        this.level = level;
+        return this;
+    }
+
+    public StudentQuery status(String status) {
+        this.status = status;
+        return this;
+    }
+
+    // Inclusive GPA range, either bound may be null
+    public StudentQuery gpaBetween(Double min, Double max) {
+
+        if (min != null && max != null && min > max) {
+            throw new IllegalArgumentException("Minimum GPA cannot be greater than maximum GPA");
+        }
+
+        this.minGpa = min;
+        this.maxGpa = max;
+        return this;
+    }
+
+    // Words matched as prefixes against id, name, email and programme (see StudentRepository.search)
+    public StudentQuery text(String text) {
+        this.text = text == null || text.isBlank() ? null : text.trim();
+        return this;
+    }
+
+    // Add a sort key. Keys apply in the order added, student_id always breaks remaining ties.
+    public StudentQuery orderBy(SortField field, boolean descending) {
+        sorts.add(new Sort(Objects.requireNonNull(field), descending));
+        return this;
+    }
+
+    // Maximum rows returned, 0 for no limit
+    public StudentQuery limit(int limit) {
+
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+
+        this.limit = limit;
+        return this;
+    }
+
+    // Rows skipped before the first one returned. Costs a scan of the skipped rows,
+    // use after() or PageRequest for sequential paging of large listings.
+    public StudentQuery offset(int offset) {
+
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset cannot be negative");
+        }
+
+        this.offset = offset;
+        return this;
+    }
+
+    // Only rows that come after the given row in the listing order: its value of the sort key
+    // (ignored without one) and its ID. Reads from the sort index instead of skipping rows like offset.
+    // Needs a listing ordered by its keys alone: no text search and at most one sort key.
+    // A null studentId removes the cursor.
+    public StudentQuery after(Object sortValue, String studentId) {
+        return cursor(sortValue, studentId, false);
+    }
+
+    // Only the rows just before the given row, the last limit of them, still in listing order
+    public StudentQuery before(Object sortValue, String studentId) {
+        return cursor(sortValue, studentId, true);
+    }
+
+    private StudentQuery cursor(Object sortValue, String studentId, boolean before) {
+
+        if (studentId != null && (text != null || sorts.size() > 1)) {
+            throw new IllegalStateException("A keyset cursor needs a listing without text search and at most one sort key");
+        }
+
+        this.cursorSortValue = studentId == null ? null : sortValue;
+        this.cursorStudentId = studentId;
+        this.cursorBefore = studentId != null && before;
+        return this;
+    }
+
+    // Whether the student meets every criterion, by the same rules as StudentRepository.find.
+    // Lets a listing decide whether a changed record belongs to it without querying again.
+    public boolean matches(Student student) {
+
+        if (programme != null && !programme.equals(student.getProgramme()))
+            return false;
+
+        if (level != null && level != student.getLevel())
+            return false;
+
+        if (status != null && !status.equals(student.getStatus()))
+            return false;
+
+        if (minGpa != null && student.getGpa() < minGpa)
+            return false;
+
+        if (maxGpa != null && student.getGpa() > maxGpa)
+            return false;
+
+        return text == null || matchesText(student);
+    }
+
+    private boolean matchesText(Student student) {
+
+        String[] prefixes = SearchText.words(text);
+
+        // nothing indexable typed: substring of id or name, like the LIKE fallback
+        if (prefixes.length == 0) {
+            String needle = text.toLowerCase(Locale.ROOT);
+            return student.getStudentId().toLowerCase(Locale.ROOT).contains(needle)
+                    || student.getFullName().toLowerCase(Locale.ROOT).contains(needle);
+        }
+
+        List<String> words = new ArrayList<>();
+
+        for (String column : new String[] { student.getStudentId(), student.getFullName(), student.getEmail(), student.getProgramme() }) {
+            if (column != null) {
+                words.addAll(List.of(SearchText.words(column)));
+            }
+        }
+
+        for (String prefix : prefixes) {
+            if (words.stream().noneMatch(word -> word.startsWith(prefix)))
+                return false;
+        }
+
+        return true;
+    }
+
+    public String getProgramme() {
+        return programme;
+    }
+
+    public Integer getLevel() {
+        return level;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Double getMinGpa() {
+        return minGpa;
+    }
+
+    public Double getMaxGpa() {
+        return maxGpa;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public List<Sort> getSorts() {
+        return Collections.unmodifiableList(sorts);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public boolean hasCursor() {
+        return cursorStudentId != null;
+    }
+
+    public Object getCursorSortValue() {
+        return cursorSortValue;
+    }
+
+    public String getCursorStudentId() {
+        return cursorStudentId;
+    }
+
+    public boolean isCursorBefore() {
+        return cursorBefore;
+    }
+}
@@ -0,0 +1,51 @@
+package com.frederickamakye.smsplus.models;
+
+// Read-only listing row: only the columns shown in the students table.
+// Load the full Student by ID when its email, phone or date added are needed.
+public final class StudentRow {
+
+    private final String studentId;
+    private final String fullName;
+    private final String programme;
+    private final int level;
+    private final double gpa;
+    private final String status;
+
+    public StudentRow(String studentId, String fullName, String programme, int level, double gpa, String status) {
+        this.studentId = studentId;
+        this.fullName = fullName;
+        this.programme = programme;
+        this.level = level;
+        this.gpa = gpa;
+        this.status = status;
+    }
+
+    public static StudentRow from(Student student) {
+        return new StudentRow(student.getStudentId(), student.getFullName(), student.getProgramme(),
+                student.getLevel(), student.getGpa(), student.getStatus());
+    }
+
+    public String getStudentId() {
+        return studentId;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public String getProgramme() {
+        return programme;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public double getGpa() {
+        return gpa;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+}
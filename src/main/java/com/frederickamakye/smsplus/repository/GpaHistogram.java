@@ -0,0 +1,132 @@
+/*
+ * GpaHistogram collects per-band GPA totals for StudentStore.getGpaHistogram.
+ * - n cut points make n + 1 bands: below the first, between each pair, and from the last one up
+ * - A GPA equal to a cut point belongs to the band above it
+ * - Every band is listed, empty ones included, for every programme that has students
+ * Both stores feed it: StudentRepository with the rows of one GROUP BY, InMemoryStudentStore one student at a time.
+*/
+
+package com.frederickamakye.smsplus.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.frederickamakye.smsplus.models.GpaHistogramBand;
+
+class GpaHistogram {
+
+    private final double[] cutPoints;
+    private final boolean perProgramme;
+
+    // programme (null for all students) -> totals per band
+    private final Map<String, Totals[]> groups = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    GpaHistogram(List<Double> cutPoints, boolean perProgramme) {
+
+        this.cutPoints = new double[cutPoints.size()];
+
+        for (int i = 0; i < this.cutPoints.length; i++) {
+            Double cutPoint = cutPoints.get(i);
+
+            if (cutPoint == null || !Double.isFinite(cutPoint) || (i > 0 && cutPoint <= this.cutPoints[i - 1])) {
+                throw new IllegalArgumentException("GPA band cut points must be finite and strictly increasing: " + cutPoints);
+            }
+
+            this.cutPoints[i] = cutPoint;
+        }
+
+        this.perProgramme = perProgramme;
+    }
+
+    double[] cutPoints() {
+        return cutPoints.clone();
+    }
+
+    // Index of the band of a GPA: the number of cut points at or below it
+    int bandOf(double gpa) {
+
+        int position = Arrays.binarySearch(cutPoints, gpa);
+
+        return position >= 0 ? position + 1 : -position - 1;
+    }
+
+    // One student
+    void add(String programme, double gpa) {
+        add(programme, bandOf(gpa), 1, gpa, gpa, gpa);
+    }
+
+    // Totals of several students of the same band
+    void add(String programme, int band, long count, double gpaSum, double minGpa, double maxGpa) {
+
+        Totals[] bands = groups.computeIfAbsent(perProgramme ? programme : null, key -> newBands());
+        Totals totals = bands[band];
+
+        totals.count += count;
+        totals.gpaSum += gpaSum;
+        totals.minGpa = Math.min(totals.minGpa, minGpa);
+        totals.maxGpa = Math.max(totals.maxGpa, maxGpa);
+    }
+
+    List<GpaHistogramBand> toBands() {
+
+        // an empty table still lists the bands, with no students
+        if (groups.isEmpty() && !perProgramme) {
+            groups.put(null, newBands());
+        }
+
+        List<GpaHistogramBand> results = new ArrayList<>();
+
+        groups.forEach((programme, bands) -> {
+            for (int i = 0; i < bands.length; i++) {
+                Totals totals = bands[i];
+                boolean empty = totals.count == 0;
+
+                results.add(new GpaHistogramBand(programme, label(i), (int) totals.count,
+                        empty ? 0 : totals.gpaSum / totals.count,
+                        empty ? 0 : totals.minGpa,
+                        empty ? 0 : totals.maxGpa));
+            }
+        });
+
+        return results;
+    }
+
+    private String label(int band) {
+
+        if (cutPoints.length == 0) {
+            return "All GPAs";
+        }
+
+        if (band == 0) {
+            return "Below " + cutPoints[0];
+        }
+
+        if (band == cutPoints.length) {
+            return cutPoints[band - 1] + " and above";
+        }
+
+        return cutPoints[band - 1] + " to below " + cutPoints[band];
+    }
+
+    private Totals[] newBands() {
+
+        Totals[] bands = new Totals[cutPoints.length + 1];
+
+        for (int i = 0; i < bands.length; i++) {
+            bands[i] = new Totals();
+        }
+
+        return bands;
+    }
+
+    private static class Totals {
+        long count;
+        double gpaSum;
+        double minGpa = Double.POSITIVE_INFINITY;
+        double maxGpa = Double.NEGATIVE_INFINITY;
+    }
+}
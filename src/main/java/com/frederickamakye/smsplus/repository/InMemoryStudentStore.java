@@ -0,0 +1,774 @@
+/*
+ * InMemoryStudentStore keeps every student in the heap and answers reads without touching SQLite.
+ * - The table is loaded once when the store is created
+ * - Hash indexes on ID, programme and status, sorted indexes on GPA and name, a word index for search
+ * - Writes go to the StudentRepository first and are applied in memory only when they succeeded
+ * Meant for kiosk and analytics nodes where this process is the only writer of the database.
+*/
+
+package com.frederickamakye.smsplus.repository;
+
+import com.frederickamakye.smsplus.models.BulkWriteResult;
+import com.frederickamakye.smsplus.models.DashboardStats;
+import com.frederickamakye.smsplus.models.GpaBandSummary;
+import com.frederickamakye.smsplus.models.GpaHistogramBand;
+import com.frederickamakye.smsplus.models.GpaSample;
+import com.frederickamakye.smsplus.models.PageRequest;
+import com.frederickamakye.smsplus.models.ProgrammeSummary;
+import com.frederickamakye.smsplus.models.Student;
+import com.frederickamakye.smsplus.models.StudentPage;
+import com.frederickamakye.smsplus.models.StudentQuery;
+import com.frederickamakye.smsplus.models.StudentRow;
+import com.frederickamakye.smsplus.utils.SearchText;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class InMemoryStudentStore implements StudentStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryStudentStore.class);
+
+    // Same orders as idx_students_gpa (gpa, student_id) and idx_students_full_name_nocase
+    private static final Comparator<Entry> GPA_ORDER =
+            Comparator.comparingDouble((Entry e) -> e.student.getGpa()).thenComparing(e -> e.student.getStudentId());
+
+    private static final Comparator<Entry> NAME_ORDER =
+            Comparator.comparing((Entry e) -> e.student.getFullName(), String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(e -> e.student.getStudentId());
+
+    private final StudentRepository delegate;
+
+    // serializes writers so SQLite and memory apply writes in the same order
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    // guards the indexes, held only while memory is read or changed
+    private final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock();
+
+    // insertion ordered like SQLite's rowid order
+    private final Map<String, Entry> byId = new LinkedHashMap<>();
+    private final Map<String, Set<String>> byProgramme = new HashMap<>();
+    private final Map<String, Set<String>> byStatus = new HashMap<>();
+    private final NavigableSet<Entry> byGpa = new TreeSet<>(GPA_ORDER);
+    private final NavigableSet<Entry> byName = new TreeSet<>(NAME_ORDER);
+
+    // normalized search word -> students with that word in id, name, email or programme
+    private final TreeMap<String, Set<String>> byWord = new TreeMap<>();
+
+    public InMemoryStudentStore(StudentRepository delegate) throws SQLException {
+        this.delegate = delegate;
+
+        long start = System.nanoTime();
+
+        try (Stream<Student> students = delegate.streamAll(StudentRepository.DEFAULT_FETCH_SIZE)) {
+            students.forEach(this::put);
+        }
+
+        logger.info("Loaded {} students into memory in {} ms", byId.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+
+    // A heap copy misses writes made around it, so it never shares state with the plain repository
+    public String storeKey() {
+        return "memory:" + delegate.storeKey();
+    }
+
+
+    // ================= WRITES =================
+
+    public void create(Student student) throws SQLException {
+
+        writeLock.lock();
+
+        try {
+            delegate.create(student);
+            putLocked(List.of(new Student(student)));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public BulkWriteResult createAll(List<Student> students, int batchSize) throws SQLException {
+
+        writeLock.lock();
+
+        try {
+            BulkWriteResult result = delegate.createAll(students, batchSize);
+            putLocked(written(students, result));
+            return result;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public BulkWriteResult upsertAll(List<Student> students, int batchSize) throws SQLException {
+
+        writeLock.lock();
+
+        try {
+            BulkWriteResult result = delegate.upsertAll(students, batchSize);
+            List<Student> written = written(students, result);
+
+            // the upsert keeps date_added of rows that already existed
+            indexLock.readLock().lock();
+            try {
+                for (Student student : written) {
+                    Entry existing = byId.get(student.getStudentId());
+
+                    if (existing != null) {
+                        student.setDateAdded(existing.student.getDateAdded());
+                    }
+                }
+            } finally {
+                indexLock.readLock().unlock();
+            }
+
+            putLocked(written);
+            return result;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void update(Student student) throws SQLException {
+
+        writeLock.lock();
+
+        try {
+            delegate.update(student);
+
+            // UPDATE of an unknown ID changes nothing in SQLite either
+            if (contains(student.getStudentId())) {
+                putLocked(List.of(new Student(student)));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void delete(String id) throws SQLException {
+
+        writeLock.lock();
+
+        try {
+            delegate.delete(id);
+
+            indexLock.writeLock().lock();
+            try {
+                Entry removed = byId.remove(id);
+
+                if (removed != null) {
+                    unindex(removed);
+                }
+            } finally {
+                indexLock.writeLock().unlock();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Copies of the rows the repository reported as written
+    private List<Student> written(List<Student> students, BulkWriteResult result) {
+
+        List<Student> written = new ArrayList<>(students.size());
+
+        for (int i = 0; i < students.size(); i++) {
+            if (!result.isFailed(i)) {
+                written.add(new Student(students.get(i)));
+            }
+        }
+
+        return written;
+    }
+
+    private void putLocked(List<Student> students) {
+
+        indexLock.writeLock().lock();
+
+        try {
+            students.forEach(this::put);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+
+    private boolean contains(String id) {
+
+        indexLock.readLock().lock();
+
+        try {
+            return byId.containsKey(id);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    // Add or replace a student in every index. Caller holds the index write lock (or owns the store).
+    private void put(Student student) {
+
+        Entry entry = new Entry(student, words(student));
+        Entry previous = byId.put(student.getStudentId(), entry);
+
+        if (previous != null) {
+            unindex(previous);
+        }
+
+        byProgramme.computeIfAbsent(student.getProgramme(), key -> new LinkedHashSet<>()).add(student.getStudentId());
+        byStatus.computeIfAbsent(student.getStatus(), key -> new LinkedHashSet<>()).add(student.getStudentId());
+        byGpa.add(entry);
+        byName.add(entry);
+
+        for (String word : entry.words) {
+            byWord.computeIfAbsent(word, key -> new LinkedHashSet<>()).add(student.getStudentId());
+        }
+    }
+
+    // Remove an entry from every index except byId
+    private void unindex(Entry entry) {
+
+        String id = entry.student.getStudentId();
+
+        removeFrom(byProgramme, entry.student.getProgramme(), id);
+        removeFrom(byStatus, entry.student.getStatus(), id);
+        byGpa.remove(entry);
+        byName.remove(entry);
+
+        for (String word : entry.words) {
+            removeFrom(byWord, word, id);
+        }
+    }
+
+    private static void removeFrom(Map<String, Set<String>> index, String key, String id) {
+
+        Set<String> ids = index.get(key);
+
+        if (ids != null) {
+            ids.remove(id);
+
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+
+    // ================= READS =================
+
+    public Student getById(String id) {
+        return read(() -> {
+            Entry entry = byId.get(id);
+            return entry == null ? null : new Student(entry.student);
+        });
+    }
+
+    public List<Student> getAll() {
+        return read(() -> byId.values().stream().map(e -> new Student(e.student)).toList());
+    }
+
+    public List<StudentRow> getAllRows() {
+        return read(() -> byId.values().stream().map(InMemoryStudentStore::toRow).toList());
+    }
+
+    // Streams a snapshot taken when the stream is opened, fetchSize does not apply in memory
+    public Stream<Student> streamAll(int fetchSize) {
+        List<Entry> snapshot = read(() -> new ArrayList<>(byId.values()));
+        return snapshot.stream().map(e -> new Student(e.student));
+    }
+
+    public Stream<GpaSample> streamGpaSamples(int fetchSize) {
+        List<GpaSample> snapshot = read(() -> byId.values().stream()
+                .map(e -> new GpaSample(e.student.getProgramme(), e.student.getLevel(), e.student.getGpa()))
+                .toList());
+        return snapshot.stream();
+    }
+
+    // Same matching as the students_fts index: every word is a prefix of a word in the record.
+    // There is no bm25 rank in memory, matches come back in insertion order.
+    public List<Student> search(String query, int limit) {
+        return read(() -> matches(new StudentQuery().text(query).limit(limit)).stream()
+                .map(e -> new Student(e.student))
+                .toList());
+    }
+
+    public List<Student> find(StudentQuery query) {
+        return read(() -> matches(query).stream().map(e -> new Student(e.student)).toList());
+    }
+
+    public List<StudentRow> findRows(StudentQuery query) {
+        return read(() -> matches(query).stream().map(InMemoryStudentStore::toRow).toList());
+    }
+
+    public int count(StudentQuery query) {
+        StudentQuery all = new StudentQuery(query).limit(0).offset(0).after(null, null);
+        return read(() -> matches(all).size());
+    }
+
+    public StudentPage getPage(PageRequest request) {
+        return read(() -> page(request));
+    }
+
+
+    // ================= REPORTS =================
+
+    public List<Student> getTopPerformers(String programme, Integer level) {
+        return read(() -> byGpa.descendingSet().stream()
+                .filter(e -> programme == null || e.student.getProgramme().equalsIgnoreCase(programme))
+                .filter(e -> level == null || e.student.getLevel() == level)
+                .limit(10)
+                .map(e -> new Student(e.student))
+                .toList());
+    }
+
+    public List<Student> getAtRiskStudents(double threshold) {
+        return read(() -> byGpa.headSet(probe(threshold, null, ""), false).stream()
+                .map(e -> new Student(e.student))
+                .toList());
+    }
+
+    // Same bands as StudentRepository.getGpaDistribution, in the same (band label) order
+    public List<GpaBandSummary> getGpaDistribution() {
+        return read(() -> {
+            Map<String, Integer> bands = new TreeMap<>();
+
+            for (Entry entry : byGpa) {
+                double gpa = entry.student.getGpa();
+
+                String band = gpa < 2.0 ? "Below 2.0"
+                        : gpa < 3.0 ? "2.0 - 2.99"
+                        : gpa < 3.7 ? "3.0 - 3.69"
+                        : "3.7 - 4.0";
+
+                bands.merge(band, 1, Integer::sum);
+            }
+
+            List<GpaBandSummary> results = new ArrayList<>();
+            bands.forEach((band, total) -> results.add(new GpaBandSummary(band, total)));
+            return results;
+        });
+    }
+
+    // Same bands and order as StudentRepository.getGpaHistogram, in one pass over the students
+    public List<GpaHistogramBand> getGpaHistogram(List<Double> cutPoints, boolean perProgramme) {
+
+        GpaHistogram histogram = new GpaHistogram(cutPoints, perProgramme);
+
+        return read(() -> {
+            for (Entry entry : byId.values()) {
+                histogram.add(entry.student.getProgramme(), entry.student.getGpa());
+            }
+
+            return histogram.toBands();
+        });
+    }
+
+    public List<ProgrammeSummary> getProgrammeSummary() {
+        return read(() -> {
+            List<ProgrammeSummary> results = new ArrayList<>();
+
+            for (Map.Entry<String, Set<String>> programme : new TreeMap<>(byProgramme).entrySet()) {
+                double total = 0;
+
+                for (String id : programme.getValue()) {
+                    total += byId.get(id).student.getGpa();
+                }
+
+                int count = programme.getValue().size();
+                results.add(new ProgrammeSummary(programme.getKey(), count, total / count));
+            }
+
+            return results;
+        });
+    }
+
+    public DashboardStats getDashboardStats() {
+        return read(() -> {
+            int total = byId.size();
+
+            if (total == 0) {
+                return new DashboardStats(0, 0, 0, 0, 0, 0);
+            }
+
+            double sum = 0;
+
+            for (Entry entry : byId.values()) {
+                sum += entry.student.getGpa();
+            }
+
+            return new DashboardStats(
+                total,
+                byStatus.getOrDefault("Active", Set.of()).size(),
+                byStatus.getOrDefault("Inactive", Set.of()).size(),
+                sum / total,
+                byGpa.first().student.getGpa(),
+                byGpa.last().student.getGpa()
+            );
+        });
+    }
+
+    public List<String> getDistinctProgrammes() {
+        return read(() -> new ArrayList<>(new TreeSet<>(byProgramme.keySet())));
+    }
+
+    // The summary tables live in SQLite only, reports here are computed from memory
+    public void rebuildReportStats() throws SQLException {
+        delegate.rebuildReportStats();
+    }
+
+    public List<String> checkReportStats() throws SQLException {
+        return delegate.checkReportStats();
+    }
+
+    // Search here runs in memory, the full-text index is rebuilt for the SQLite store underneath
+    public void rebuildSearchIndex() throws SQLException {
+        delegate.rebuildSearchIndex();
+    }
+
+
+    // ================= QUERY EVALUATION =================
+
+    // Entries matching every criterion, in the requested order. Caller holds the read lock.
+    private List<Entry> matches(StudentQuery query) {
+
+        List<String> queryWords = query.getText() == null ? List.of() : List.of(SearchText.words(query.getText()));
+        boolean textSearch = query.getText() != null;
+
+        // start from the smallest index lookup available, then check every criterion
+        Collection<Entry> candidates = candidates(query, queryWords);
+        Comparator<Entry> order = order(query.getSorts());
+        List<Entry> results = new ArrayList<>();
+
+        // a cursor seeks in the SQLite order: sort key, or student_id without one
+        Entry cursor = null;
+
+        if (query.hasCursor()) {
+            order = order != null ? order : column(StudentQuery.SortField.STUDENT_ID);
+            cursor = cursorProbe(query);
+        }
+
+        // unsorted results can stop once the requested page is complete
+        long end = query.getLimit() > 0 ? (long) query.getOffset() + query.getLimit() : Long.MAX_VALUE;
+
+        for (Entry entry : candidates) {
+            if (cursor != null && !pastCursor(order.compare(entry, cursor), query.isCursorBefore())) {
+                continue;
+            }
+
+            if (matches(entry, query, queryWords, textSearch)) {
+                results.add(entry);
+
+                if (order == null && results.size() == end) {
+                    break;
+                }
+            }
+        }
+
+        if (order != null) {
+            results.sort(order);
+        }
+
+        // the rows right before the cursor are the last ones
+        if (query.isCursorBefore() && query.getLimit() > 0 && results.size() > query.getLimit()) {
+            return results.subList(results.size() - query.getLimit(), results.size());
+        }
+
+        int from = Math.min(query.getOffset(), results.size());
+        int to = (int) Math.min(end, results.size());
+
+        return from == 0 && to == results.size() ? results : results.subList(from, to);
+    }
+
+    private Collection<Entry> candidates(StudentQuery query, List<String> queryWords) {
+
+        Collection<Entry> best = null;
+
+        if (!queryWords.isEmpty()) {
+            // the longest word usually has the fewest prefix matches
+            String longest = queryWords.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+            best = wordMatches(longest);
+        }
+
+        if (query.getProgramme() != null) {
+            best = smaller(best, entries(byProgramme.get(query.getProgramme())));
+        }
+
+        if (query.getStatus() != null) {
+            best = smaller(best, entries(byStatus.get(query.getStatus())));
+        }
+
+        if (best == null && (query.getMinGpa() != null || query.getMaxGpa() != null)) {
+            Entry from = probe(query.getMinGpa() == null ? Double.NEGATIVE_INFINITY : query.getMinGpa(), null, "");
+            Entry to = probe(query.getMaxGpa() == null ? Double.POSITIVE_INFINITY : query.getMaxGpa(), null, "\uffff");
+            best = byGpa.subSet(from, true, to, true);
+        }
+
+        return best == null ? byId.values() : best;
+    }
+
+    private List<Entry> wordMatches(String prefix) {
+
+        Set<String> ids = new LinkedHashSet<>();
+
+        for (Set<String> words : byWord.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            ids.addAll(words);
+        }
+
+        return entries(ids);
+    }
+
+    private List<Entry> entries(Set<String> ids) {
+
+        if (ids == null) {
+            return List.of();
+        }
+
+        List<Entry> entries = new ArrayList<>(ids.size());
+
+        for (String id : ids) {
+            entries.add(byId.get(id));
+        }
+
+        return entries;
+    }
+
+    private static Collection<Entry> smaller(Collection<Entry> current, Collection<Entry> other) {
+        return current == null || other.size() < current.size() ? other : current;
+    }
+
+    private boolean matches(Entry entry, StudentQuery query, List<String> queryWords, boolean textSearch) {
+
+        Student student = entry.student;
+
+        if (query.getProgramme() != null && !query.getProgramme().equals(student.getProgramme()))
+            return false;
+
+        if (query.getLevel() != null && query.getLevel() != student.getLevel())
+            return false;
+
+        if (query.getStatus() != null && !query.getStatus().equals(student.getStatus()))
+            return false;
+
+        if (query.getMinGpa() != null && student.getGpa() < query.getMinGpa())
+            return false;
+
+        if (query.getMaxGpa() != null && student.getGpa() > query.getMaxGpa())
+            return false;
+
+        if (textSearch && queryWords.isEmpty()) {
+            // nothing indexable typed: substring match on id and name, like the LIKE fallback
+            String text = query.getText().toLowerCase(Locale.ROOT);
+            return student.getStudentId().toLowerCase(Locale.ROOT).contains(text)
+                    || student.getFullName().toLowerCase(Locale.ROOT).contains(text);
+        }
+
+        for (String word : queryWords) {
+            if (!hasWordWithPrefix(entry, word))
+                return false;
+        }
+
+        return true;
+    }
+
+    private static boolean hasWordWithPrefix(Entry entry, String prefix) {
+
+        for (String word : entry.words) {
+            if (word.startsWith(prefix))
+                return true;
+        }
+
+        return false;
+    }
+
+    // Comparator for the sort keys with student_id as tie breaker in the last key's direction
+    private static Comparator<Entry> order(List<StudentQuery.Sort> sorts) {
+
+        if (sorts.isEmpty()) {
+            return null;
+        }
+
+        Comparator<Entry> order = null;
+
+        for (StudentQuery.Sort sort : sorts) {
+            Comparator<Entry> key = sort.descending() ? column(sort.field()).reversed() : column(sort.field());
+            order = order == null ? key : order.thenComparing(key);
+        }
+
+        Comparator<Entry> tieBreaker = column(StudentQuery.SortField.STUDENT_ID);
+
+        return order.thenComparing(sorts.get(sorts.size() - 1).descending() ? tieBreaker.reversed() : tieBreaker);
+    }
+
+    private static Comparator<Entry> column(StudentQuery.SortField field) {
+        return switch (field) {
+            case GPA -> Comparator.comparingDouble(e -> e.student.getGpa());
+            case FULL_NAME -> Comparator.comparing(e -> e.student.getFullName(), String.CASE_INSENSITIVE_ORDER);
+            case LEVEL -> Comparator.comparingInt(e -> e.student.getLevel());
+            case STUDENT_ID -> Comparator.comparing(e -> e.student.getStudentId());
+        };
+    }
+
+    // Keyset page with the same cursor semantics as StudentRepository.getPage
+    private StudentPage page(PageRequest request) {
+
+        StudentQuery.SortField field = StudentQuery.SortField.from(request.getSortField());
+        boolean descending = "desc".equalsIgnoreCase(request.getDirection());
+        Comparator<Entry> order = order(List.of(new StudentQuery.Sort(field, descending)));
+
+        // GPA and name pages walk their sorted index, other orders sort a snapshot
+        NavigableSet<Entry> ordered;
+
+        if (field == StudentQuery.SortField.GPA) {
+            ordered = descending ? byGpa.descendingSet() : byGpa;
+        } else if (field == StudentQuery.SortField.FULL_NAME) {
+            ordered = descending ? byName.descendingSet() : byName;
+        } else {
+            ordered = new TreeSet<>(order);
+            ordered.addAll(byId.values());
+        }
+
+        if (!request.isFirstPage()) {
+            Object after = request.getAfterSortValue();
+
+            Entry cursor = switch (field) {
+                case GPA -> probe(((Number) after).doubleValue(), null, request.getAfterStudentId());
+                case FULL_NAME -> probe(0, (String) after, request.getAfterStudentId());
+                case LEVEL -> probeLevel(((Number) after).intValue(), request.getAfterStudentId());
+                case STUDENT_ID -> probe(0, null, request.getAfterStudentId());
+            };
+
+            ordered = ordered.tailSet(cursor, false);
+        }
+
+        List<Student> students = new ArrayList<>();
+        boolean hasMore = false;
+
+        for (Entry entry : ordered) {
+            if (!matchesFilter(entry, request.getFilterField(), request.getFilterValue()))
+                continue;
+
+            if (students.size() == request.getPageSize()) {
+                hasMore = true;
+                break;
+            }
+
+            students.add(new Student(entry.student));
+        }
+
+        if (students.isEmpty()) {
+            return new StudentPage(students, false, null, null);
+        }
+
+        Student last = students.get(students.size() - 1);
+
+        Object sortValue = switch (field) {
+            case GPA -> last.getGpa();
+            case FULL_NAME -> last.getFullName();
+            case LEVEL -> last.getLevel();
+            case STUDENT_ID -> last.getStudentId();
+        };
+
+        return new StudentPage(students, hasMore, sortValue, last.getStudentId());
+    }
+
+    private static boolean matchesFilter(Entry entry, String field, Object value) {
+
+        if (field == null) {
+            return true;
+        }
+
+        return switch (field.toLowerCase()) {
+            case "programme" -> Objects.equals(entry.student.getProgramme(), value);
+            case "level" -> value instanceof Number number && number.intValue() == entry.student.getLevel();
+            case "status" -> Objects.equals(entry.student.getStatus(), value);
+            default -> throw new IllegalArgumentException("Invalid filtering field");
+        };
+    }
+
+    private static boolean pastCursor(int comparison, boolean before) {
+        return before ? comparison < 0 : comparison > 0;
+    }
+
+    // Search key for the cursor row of a query
+    private static Entry cursorProbe(StudentQuery query) {
+
+        List<StudentQuery.Sort> sorts = query.getSorts();
+        String id = query.getCursorStudentId();
+        Object value = query.getCursorSortValue();
+
+        if (sorts.isEmpty()) {
+            return probe(0, null, id);
+        }
+
+        return switch (sorts.get(0).field()) {
+            case GPA -> probe(((Number) value).doubleValue(), null, id);
+            case FULL_NAME -> probe(0, (String) value, id);
+            case LEVEL -> probeLevel(((Number) value).intValue(), id);
+            case STUDENT_ID -> probe(0, null, id);
+        };
+    }
+
+    // Search key for the sorted indexes, never stored
+    private static Entry probe(double gpa, String fullName, String studentId) {
+        Student student = new Student(studentId, fullName == null ? "" : fullName, null, 0, gpa);
+        return new Entry(student, List.of());
+    }
+
+    private static Entry probeLevel(int level, String studentId) {
+        Student student = new Student(studentId, "", null, level, 0);
+        return new Entry(student, List.of());
+    }
+
+
+    // ================= HELPERS =================
+
+    private <T> T read(Supplier<T> reader) {
+
+        indexLock.readLock().lock();
+
+        try {
+            return reader.get();
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    private static StudentRow toRow(Entry entry) {
+        return StudentRow.from(entry.student);
+    }
+
+    // Words indexed for search, from the same columns as students_fts
+    private static List<String> words(Student student) {
+
+        Set<String> words = new LinkedHashSet<>();
+
+        for (String column : new String[] { student.getStudentId(), student.getFullName(), student.getEmail(), student.getProgramme() }) {
+            if (column != null) {
+                words.addAll(List.of(SearchText.words(column)));
+            }
+        }
+
+        return List.copyOf(words);
+    }
+
+    private record Entry(Student student, List<String> words) {
+    }
+}
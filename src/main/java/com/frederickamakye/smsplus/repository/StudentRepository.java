@@ -1,48 +1,86 @@
 /*
- * StudentRepository takes care of activities related to student data. Such as:
+ * StudentRepository is the SQLite StudentStore and takes care of activities related to student data. Such as:
  * - Execution of CRUD operations
- * - Mapping student database rows to Student objects
+ * - Mapping student database rows to Student objects, or to StudentRow for table listings
 */
 
 package com.frederickamakye.smsplus.repository;
 
 import com.frederickamakye.smsplus.models.Student;
+import com.frederickamakye.smsplus.models.BulkWriteResult;
+import com.frederickamakye.smsplus.models.DashboardStats;
 import com.frederickamakye.smsplus.models.GpaBandSummary;
+import com.frederickamakye.smsplus.models.GpaHistogramBand;
+import com.frederickamakye.smsplus.models.GpaSample;
+import com.frederickamakye.smsplus.models.PageRequest;
 import com.frederickamakye.smsplus.models.ProgrammeSummary;
+import com.frederickamakye.smsplus.models.StudentPage;
+import com.frederickamakye.smsplus.models.StudentQuery;
+import com.frederickamakye.smsplus.models.StudentRow;
 import com.frederickamakye.smsplus.utils.Database;
 import com.frederickamakye.smsplus.exceptions.RepositoryException;
 import com.frederickamakye.smsplus.exceptions.DuplicateStudentException;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class StudentRepository {
+public class StudentRepository implements StudentStore {
 
     private static final Logger logger = LoggerFactory.getLogger(StudentRepository.class);
 
+    // Rows per transaction for bulk writes. Override with -Ddb.batchSize
+    public static final int DEFAULT_BATCH_SIZE = Integer.getInteger("db.batchSize", 500);
+
+    // Maximum results returned by search. Override with -Ddb.searchLimit
+    public static final int DEFAULT_SEARCH_LIMIT = Integer.getInteger("db.searchLimit", 200);
+
+    // Rows fetched per round trip by streaming reads. Override with -Ddb.fetchSize
+    public static final int DEFAULT_FETCH_SIZE = Integer.getInteger("db.fetchSize", 1000);
+
+    // GPA band of a student. Must match the CASE in the gpa_band_stats triggers (SchemaMigrations 7).
+    private static final String GPA_BAND = """
+        CASE
+            WHEN gpa < 2.0 THEN 'Below 2.0'
+            WHEN gpa < 3.0 THEN '2.0 - 2.99'
+            WHEN gpa < 3.7 THEN '3.0 - 3.69'
+            ELSE '3.7 - 4.0'
+        END""";
+
+    private static final String INSERT_SQL = """
+        INSERT INTO students
+        (student_id, full_name, programme, level, gpa, email, phone, date_added, status)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+    """;
+
+    // Columns read for table listings (StudentRow). Email, phone and date added are left out.
+    private static final String ROW_COLUMNS = "s.student_id, s.full_name, s.programme, s.level, s.gpa, s.status";
+
+    // Every repository reads the database that Database connects to
+    public String storeKey() {
+        return Database.getUrl();
+    }
+
     // Save a new student record into the database.
     public void create(Student student) throws SQLException {
-        String sql = """
-            INSERT INTO students
-            (student_id, full_name, programme, level, gpa, email, phone, date_added, status)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
-        """;
 
         try (Connection conn = Database.connect();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
 
-            stmt.setString(1, student.getStudentId());
-            stmt.setString(2, student.getFullName());
-            stmt.setString(3, student.getProgramme());
-            stmt.setInt(4, student.getLevel());
-            stmt.setDouble(5, student.getGpa());
-            stmt.setString(6, student.getEmail());
-            stmt.setString(7, student.getPhone());
-            stmt.setString(8, student.getDateAdded());
-            stmt.setString(9, student.getStatus());
+            bindInsert(stmt, student);
 
             stmt.executeUpdate();
 
@@ -60,6 +98,228 @@ public class StudentRepository {
     }
 
 
+    // Save many new student records using batched inserts, one transaction per batch.
+    // Rows whose ID already exists are skipped and reported as failures instead of aborting the batch.
+    public BulkWriteResult createAll(List<Student> students, int batchSize) throws SQLException {
+
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than 0");
+        }
+
+        String sql = INSERT_SQL + " ON CONFLICT(student_id) DO NOTHING";
+
+        BulkWriteResult result = new BulkWriteResult();
+
+        try (Connection conn = Database.connect();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            conn.setAutoCommit(false);
+
+            for (int start = 0; start < students.size(); start += batchSize) {
+                int end = Math.min(start + batchSize, students.size());
+
+                try {
+                    for (int i = start; i < end; i++) {
+                        bindInsert(stmt, students.get(i));
+                        stmt.addBatch();
+                    }
+
+                    int[] counts = stmt.executeBatch();
+                    conn.commit();
+
+                    for (int i = 0; i < counts.length; i++) {
+                        if (counts[i] == 0) {
+                            result.addFailure(start + i, "Student ID already exists");
+                        } else {
+                            result.incrementInserted();
+                        }
+                    }
+
+                } catch (SQLException e) {
+
+                    // one bad row must not lose the whole batch: retry its rows one by one
+                    logger.warn("Batch insert failed, retrying rows {}-{} individually", start, end - 1, e);
+                    conn.rollback();
+                    stmt.clearBatch();
+
+                    insertIndividually(conn, stmt, students, start, end, result);
+                }
+            }
+
+            conn.setAutoCommit(true);
+
+            logger.info("Bulk created {} students ({} failed)", result.getInsertedCount(), result.getFailureCount());
+
+        } catch (SQLException e) {
+
+            logger.error("Failed to bulk create students", e);
+            throw new RepositoryException("Failed to bulk create students", e);
+        }
+
+        return result;
+    }
+
+    private void insertIndividually(Connection conn, PreparedStatement stmt, List<Student> students,
+                                    int start, int end, BulkWriteResult result) throws SQLException {
+
+        for (int i = start; i < end; i++) {
+            try {
+                bindInsert(stmt, students.get(i));
+
+                if (stmt.executeUpdate() == 0) {
+                    result.addFailure(i, "Student ID already exists");
+                } else {
+                    result.incrementInserted();
+                }
+
+                conn.commit();
+
+            } catch (SQLException e) {
+                conn.rollback();
+                result.addFailure(i, e.getMessage());
+            }
+        }
+    }
+
+    // Insert new students and update existing ones in batches, one transaction per batch.
+    // Existing rows are only rewritten when at least one column differs (date_added is kept).
+    public BulkWriteResult upsertAll(List<Student> students, int batchSize) throws SQLException {
+
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than 0");
+        }
+
+        String sql = INSERT_SQL + """
+            ON CONFLICT(student_id) DO UPDATE SET
+                full_name = excluded.full_name,
+                programme = excluded.programme,
+                level = excluded.level,
+                gpa = excluded.gpa,
+                email = excluded.email,
+                phone = excluded.phone,
+                status = excluded.status
+            WHERE (students.full_name, students.programme, students.level, students.gpa,
+                   students.email, students.phone, students.status)
+               IS NOT (excluded.full_name, excluded.programme, excluded.level, excluded.gpa,
+                   excluded.email, excluded.phone, excluded.status)
+        """;
+
+        BulkWriteResult result = new BulkWriteResult();
+
+        try (Connection conn = Database.connect();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            conn.setAutoCommit(false);
+
+            for (int start = 0; start < students.size(); start += batchSize) {
+                int end = Math.min(start + batchSize, students.size());
+
+                // IDs already stored decide whether an affected row was an insert or an update
+                Set<String> existing = findExistingIds(conn, students.subList(start, end));
+
+                try {
+                    for (int i = start; i < end; i++) {
+                        bindInsert(stmt, students.get(i));
+                        stmt.addBatch();
+                    }
+
+                    int[] counts = stmt.executeBatch();
+                    conn.commit();
+
+                    for (int i = 0; i < counts.length; i++) {
+                        classifyUpsert(existing, students.get(start + i).getStudentId(), counts[i], result);
+                    }
+
+                } catch (SQLException e) {
+
+                    logger.warn("Batch upsert failed, retrying rows {}-{} individually", start, end - 1, e);
+                    conn.rollback();
+                    stmt.clearBatch();
+
+                    for (int i = start; i < end; i++) {
+                        try {
+                            bindInsert(stmt, students.get(i));
+                            int count = stmt.executeUpdate();
+                            conn.commit();
+
+                            classifyUpsert(existing, students.get(i).getStudentId(), count, result);
+
+                        } catch (SQLException rowError) {
+                            conn.rollback();
+                            result.addFailure(i, rowError.getMessage());
+                        }
+                    }
+                }
+            }
+
+            conn.setAutoCommit(true);
+
+            logger.info("Bulk upserted students: {} inserted, {} updated, {} unchanged, {} failed",
+                    result.getInsertedCount(), result.getUpdatedCount(), result.getUnchangedCount(), result.getFailureCount());
+
+        } catch (SQLException e) {
+
+            logger.error("Failed to bulk upsert students", e);
+            throw new RepositoryException("Failed to bulk upsert students", e);
+        }
+
+        return result;
+    }
+
+    // An affected row count of 0 means the stored record already had the same content
+    private void classifyUpsert(Set<String> existing, String id, int count, BulkWriteResult result) {
+        if (!existing.contains(id)) {
+            result.incrementInserted();
+            existing.add(id); // a repeated ID later in the same batch is an update
+        } else if (count > 0) {
+            result.incrementUpdated();
+        } else {
+            result.incrementUnchanged();
+        }
+    }
+
+    private Set<String> findExistingIds(Connection conn, List<Student> students) throws SQLException {
+        Set<String> existing = new HashSet<>();
+
+        // stay well below SQLite's bound parameter limit
+        int chunkSize = 500;
+
+        for (int start = 0; start < students.size(); start += chunkSize) {
+            List<Student> chunk = students.subList(start, Math.min(start + chunkSize, students.size()));
+
+            String sql = "SELECT student_id FROM students WHERE student_id IN (%s)"
+                    .formatted(String.join(", ", Collections.nCopies(chunk.size(), "?")));
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i).getStudentId());
+                }
+
+                try (ResultSet resultset = stmt.executeQuery()) {
+                    while (resultset.next()) {
+                        existing.add(resultset.getString(1));
+                    }
+                }
+            }
+        }
+
+        return existing;
+    }
+
+    private void bindInsert(PreparedStatement stmt, Student student) throws SQLException {
+        stmt.setString(1, student.getStudentId());
+        stmt.setString(2, student.getFullName());
+        stmt.setString(3, student.getProgramme());
+        stmt.setInt(4, student.getLevel());
+        stmt.setDouble(5, student.getGpa());
+        stmt.setString(6, student.getEmail());
+        stmt.setString(7, student.getPhone());
+        stmt.setString(8, student.getDateAdded());
+        stmt.setString(9, student.getStatus());
+    }
+
+
     // Update the records of an existing student in the database
     public void update(Student student) throws SQLException {
         String sql = """
@@ -106,8 +366,10 @@ public class StudentRepository {
              Statement stmt = conn.createStatement();
              ResultSet resultset = stmt.executeQuery(sql)) {
 
+            StudentMapper mapper = new StudentMapper(resultset);
+
             while (resultset.next()) {
-                students.add(toObject(resultset));
+                students.add(mapper.map(resultset));
             }
 
             logger.info("Found students: {}", students.size());
@@ -121,6 +383,72 @@ public class StudentRepository {
         return students;
     }
 
+    // Get every student as a listing row (table columns only)
+    public List<StudentRow> getAllRows() throws SQLException {
+
+        return findRows(new StudentQuery());
+    }
+
+
+    // Stream all student records without loading the table into memory.
+    // The stream holds a pooled connection until it is closed, so always use try-with-resources.
+    public Stream<Student> streamAll(int fetchSize) throws SQLException {
+        return stream("SELECT * FROM students", fetchSize, StudentMapper::new);
+    }
+
+    // Stream the programme, level and GPA of every student, for reports that need no other column
+    public Stream<GpaSample> streamGpaSamples(int fetchSize) throws SQLException {
+        return stream("SELECT programme, level, gpa FROM students", fetchSize,
+                resultset -> rs -> new GpaSample(rs.getString(1), rs.getInt(2), rs.getDouble(3)));
+    }
+
+    private <T> Stream<T> stream(String sql, int fetchSize, MapperFactory<T> mapperFactory) throws SQLException {
+
+        Connection conn = Database.connect();
+
+        try {
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            stmt.setFetchSize(fetchSize);
+
+            ResultSet resultset = stmt.executeQuery();
+            RowMapper<T> mapper = mapperFactory.create(resultset);
+
+            Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!resultset.next()) {
+                            return false;
+                        }
+
+                        action.accept(mapper.map(resultset));
+                        return true;
+
+                    } catch (SQLException e) {
+
+                        logger.error("Failed to read student stream", e);
+                        throw new RepositoryException("Failed to read student stream", e);
+                    }
+                }
+            };
+
+            return StreamSupport.stream(rows, false).onClose(() -> {
+                try (conn; stmt; resultset) {
+                    logger.debug("Closed student stream");
+                } catch (SQLException e) {
+                    logger.warn("Failed to close student stream", e);
+                }
+            });
+
+        } catch (SQLException e) {
+
+            conn.close();
+
+            logger.error("Failed to open student stream", e);
+            throw new RepositoryException("Failed to open student stream", e);
+        }
+    }
+
 
     // Get a specific student record from db with student's id
     // Returns student object or null
@@ -135,7 +463,7 @@ public class StudentRepository {
 
             try (ResultSet resultset = stmt.executeQuery()) {
                 if (resultset.next()) {
-                    return toObject(resultset);
+                    return new StudentMapper(resultset).map(resultset);
                 }
             }
 
@@ -170,112 +498,359 @@ public class StudentRepository {
     }
 
 
-    // Search for students using id or full name
-    public List<Student> search(String query) throws SQLException {
+    // Search for students using id, full name, email or programme through the students_fts index.
+    // Every word in the query is matched as a prefix, best matches (bm25 rank) first.
+    public List<Student> search(String query, int limit) throws SQLException {
+
+        String match = toFtsQuery(query);
+
+        // nothing indexable in the query (e.g. only punctuation): fall back to a pattern scan
+        if (match.isEmpty()) {
+            return searchLike(query, limit);
+        }
+
+        // every match is ranked, the sort keeps only the best limit rows and only those are read from students
+        String sql = """
+            SELECT s.* FROM (
+                SELECT rowid, rank FROM students_fts
+                WHERE students_fts MATCH ?
+                ORDER BY rank
+                LIMIT ?
+            ) f
+            JOIN students s ON s.rowid = f.rowid
+            ORDER BY f.rank
+        """;
+
+        try {
+            return queryList(sql, List.of(match, limit), StudentMapper::new);
+
+        } catch (SQLException e) {
+
+            logger.error("Search query failed", e);
+            throw new RepositoryException("Search failed", e);
+        }
+    }
+
+    // Substring search on id and name without the index. Scans the whole table.
+    List<Student> searchLike(String query, int limit) throws SQLException {
         String sql = """
             SELECT * FROM students
             WHERE student_id LIKE ?
             OR LOWER(full_name) LIKE LOWER(?)
+            LIMIT ?
         """;
 
-        List<Student> students = new ArrayList<>();
+        String pattern = "%" + query + "%";
 
-        try (Connection conn = Database.connect();
-            PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try {
+            return queryList(sql, List.of(pattern, pattern, limit), StudentMapper::new);
 
-            String pattern = "%" + query + "%";
+        } catch (SQLException e) {
 
-            stmt.setString(1, pattern);
-            stmt.setString(2, pattern);
+            logger.error("Search query failed", e);
+            throw new RepositoryException("Search failed", e);
+        }
+    }
 
-            try (ResultSet resultset = stmt.executeQuery()) {
+    // Turn user input into an FTS5 query: each word becomes a quoted prefix term ("word"*),
+    // so FTS operators typed by the user are treated as plain text
+    private String toFtsQuery(String query) {
+        StringBuilder match = new StringBuilder();
 
-                while (resultset.next()) {
-                    students.add(toObject(resultset));
+        for (String token : query.split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                if (match.length() > 0) {
+                    match.append(' ');
                 }
+                match.append('"').append(token).append("\"*");
             }
+        }
+
+        return match.toString();
+    }
+
+    // Rebuild students_fts from the students table. Needed after VACUUM, which may renumber rowids.
+    public void rebuildSearchIndex() throws SQLException {
+
+        try (Connection conn = Database.connect();
+            Statement stmt = conn.createStatement()) {
+
+            stmt.execute("INSERT INTO students_fts(students_fts) VALUES ('rebuild')");
+
+            logger.info("Rebuilt student search index");
 
         } catch (SQLException e) {
 
-            logger.error("Search query failed", e);
-            throw new RepositoryException("Search failed", e);
+            logger.error("Failed to rebuild search index", e);
+            throw new RepositoryException("Failed to rebuild search index", e);
         }
+    }
 
-        return students;
+
+    // Get students matching every criterion of the query, compiled into a single SELECT
+    public List<Student> find(StudentQuery query) throws SQLException {
+        return find(query, "s.*", StudentMapper::new);
     }
-    
 
-    // Sort records by specific field (gpa, fullname, or level)
-    public List<Student> sortBy(String field, String direction) throws SQLException {
-        String column;
+    // Same query returning listing rows only
+    public List<StudentRow> findRows(StudentQuery query) throws SQLException {
+        return find(query, ROW_COLUMNS, StudentRowMapper::new);
+    }
+
+    // Number of students matching the criteria, for sizing a paged listing
+    public int count(StudentQuery query) throws SQLException {
+
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) AS total FROM students s");
+        List<Object> params = new ArrayList<>();
+
+        appendCriteria(query, sql, params);
+
+        try {
+            return queryList(sql.toString(), params, resultset -> rs -> rs.getInt("total")).get(0);
 
-        switch (field.toLowerCase()) {
-            case "gpa" -> column = "gpa";
-            case "fullname" -> column = "full_name";
-            case "level" -> column = "level";
-            default -> throw new IllegalArgumentException("Invalid sorting field");
+        } catch (SQLException e) {
+
+            logger.error("Student count failed", e);
+            throw new RepositoryException("Student count failed", e);
         }
+    }
 
-        String order = "ASC";
-        if ("desc".equalsIgnoreCase(direction)) {
-            order = "DESC";
+    private <T> List<T> find(StudentQuery query, String columns, MapperFactory<T> mapper) throws SQLException {
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(columns).append(" FROM students s");
+        List<Object> params = new ArrayList<>();
+
+        boolean ranked = appendCriteria(query, sql, params);
+
+        // rows before a cursor are read backwards from it, then put back in listing order
+        boolean backwards = query.isCursorBefore();
+
+        if (query.hasCursor()) {
+            appendCursor(query, sql, params);
         }
 
-        String sql = "SELECT * FROM students ORDER BY " + column + " " + order;
+        // explicit sort keys win, otherwise text searches list the best matches first
+        List<String> order = new ArrayList<>();
 
-        List<Student> students = new ArrayList<>();
+        for (StudentQuery.Sort sort : query.getSorts()) {
+            order.add("s." + sortColumn(sort.field()) + (sort.descending() != backwards ? " DESC" : " ASC"));
+        }
 
-        try (Connection conn = Database.connect();
-            Statement stmt = conn.createStatement();
-            ResultSet resultset = stmt.executeQuery(sql)) {
+        // tie breaker in the same direction as the last key, so the (column, student_id) indexes still apply
+        List<StudentQuery.Sort> sorts = query.getSorts();
 
-            while (resultset.next()) {
-                students.add(toObject(resultset));
+        if (!sorts.isEmpty() && sorts.get(sorts.size() - 1).field() != StudentQuery.SortField.STUDENT_ID) {
+            order.add("s.student_id" + (sorts.get(sorts.size() - 1).descending() != backwards ? " DESC" : " ASC"));
+        }
+
+        if (order.isEmpty() && ranked) {
+            order.add("f.rank");
+        }
+
+        // student_id order otherwise, and as the final tie breaker, so offset pages are stable.
+        // The filter indexes all end with student_id (see SchemaMigrations), a filtered listing adds no sort.
+        if (sorts.isEmpty()) {
+            order.add("s.student_id" + (backwards ? " DESC" : ""));
+        }
+
+        sql.append(" ORDER BY ").append(String.join(", ", order));
+
+        if (query.getLimit() > 0 || query.getOffset() > 0) {
+            sql.append(" LIMIT ? OFFSET ?");
+            params.add(query.getLimit() > 0 ? query.getLimit() : -1);
+            params.add(query.getOffset());
+        }
+
+        try {
+            List<T> results = queryList(sql.toString(), params, mapper);
+
+            if (backwards) {
+                Collections.reverse(results);
             }
 
+            return results;
+
         } catch (SQLException e) {
 
-            logger.error("Sorting failed", e);
-            throw new RepositoryException("Sorting failed", e);
+            logger.error("Student query failed", e);
+            throw new RepositoryException("Student query failed", e);
         }
+    }
 
-        return students;
+    // Keyset condition: rows past the cursor row in the listing order, as getPage seeks.
+    // The row value matches the (column, student_id) indexes, so the seek is an index range.
+    private void appendCursor(StudentQuery query, StringBuilder sql, List<Object> params) {
+
+        List<StudentQuery.Sort> sorts = query.getSorts();
+        boolean descending = !sorts.isEmpty() && sorts.get(0).descending();
+        String comparison = descending != query.isCursorBefore() ? "<" : ">";
+
+        if (sorts.isEmpty() || sorts.get(0).field() == StudentQuery.SortField.STUDENT_ID) {
+            sql.append(" AND s.student_id ").append(comparison).append(" ?");
+        } else {
+            sql.append(" AND (s.").append(sortColumn(sorts.get(0).field())).append(", s.student_id) ")
+                    .append(comparison).append(" (?, ?)");
+            params.add(query.getCursorSortValue());
+        }
+
+        params.add(query.getCursorStudentId());
     }
 
-    // filter records by  level, programme, or status
-    public List<Student> filterBy(String field, Object value) throws SQLException {
-        String column;
+    // FROM joins and WHERE clause of a StudentQuery. Returns true when rows come from the full-text index.
+    private boolean appendCriteria(StudentQuery query, StringBuilder sql, List<Object> params) {
 
-        switch (field.toLowerCase()) {
-            case "programme" -> column = "programme";
-            case "level" -> column = "level";
-            case "status" -> column = "status";
-            default -> throw new IllegalArgumentException("Invalid filtering field");
+        String match = query.getText() == null ? "" : toFtsQuery(query.getText());
+        boolean ranked = !match.isEmpty();
+
+        // text matches come from the full-text index, joined so the filters below still apply
+        if (ranked) {
+            sql.append(" JOIN (SELECT rowid, rank FROM students_fts WHERE students_fts MATCH ?) f ON s.rowid = f.rowid");
+            params.add(match);
+        }
+
+        sql.append(" WHERE 1=1");
+
+        // only punctuation typed: nothing to look up in the index, match it as a substring instead
+        if (query.getText() != null && !ranked) {
+            sql.append(" AND (s.student_id LIKE ? OR s.full_name LIKE ?)");
+            params.add("%" + query.getText() + "%");
+            params.add("%" + query.getText() + "%");
+        }
+
+        if (query.getProgramme() != null) {
+            sql.append(" AND s.programme = ?");
+            params.add(query.getProgramme());
+        }
+
+        if (query.getLevel() != null) {
+            sql.append(" AND s.level = ?");
+            params.add(query.getLevel());
+        }
+
+        if (query.getStatus() != null) {
+            sql.append(" AND s.status = ?");
+            params.add(query.getStatus());
+        }
+
+        if (query.getMinGpa() != null) {
+            sql.append(" AND s.gpa >= ?");
+            params.add(query.getMinGpa());
+        }
+
+        if (query.getMaxGpa() != null) {
+            sql.append(" AND s.gpa <= ?");
+            params.add(query.getMaxGpa());
+        }
+
+        return ranked;
+    }
+
+    // Columns are indexed (see SchemaMigrations), a single sort key with no filters reads the index in order
+    private String sortColumn(StudentQuery.SortField field) {
+        return switch (field) {
+            case GPA -> "gpa";
+            case FULL_NAME -> "full_name COLLATE NOCASE";
+            case LEVEL -> "level";
+            case STUDENT_ID -> "student_id";
+        };
+    }
+
+    // Get one page of students using keyset (seek) pagination.
+    // Rows are ordered by the sort column with student_id as tie breaker, and each following page
+    // seeks past the previous page's last (sort value, student_id) pair, so page N costs the same as page 1.
+    public StudentPage getPage(PageRequest request) throws SQLException {
+
+        String column = keysetColumn(request.getSortField());
+        boolean descending = "desc".equalsIgnoreCase(request.getDirection());
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM students WHERE 1=1");
+        List<Object> params = new ArrayList<>();
+
+        if (request.getFilterField() != null) {
+            sql.append(" AND ").append(filterColumn(request.getFilterField())).append(" = ?");
+            params.add(request.getFilterValue());
+        }
+
+        if (!request.isFirstPage()) {
+            String comparison = descending ? "<" : ">";
+
+            if (column.equals("student_id")) {
+                sql.append(" AND student_id ").append(comparison).append(" ?");
+            } else {
+                sql.append(" AND (").append(column).append(", student_id) ").append(comparison).append(" (?, ?)");
+                params.add(request.getAfterSortValue());
+            }
+
+            params.add(request.getAfterStudentId());
+        }
+
+        String order = descending ? "DESC" : "ASC";
+        sql.append(" ORDER BY ").append(column).append(" ").append(order);
+
+        if (!column.equals("student_id")) {
+            sql.append(", student_id ").append(order);
         }
 
-        String sql = "SELECT * FROM students WHERE " + column + " = ?";
+        // fetch one extra row to know whether another page follows
+        sql.append(" LIMIT ?");
+        params.add(request.getPageSize() + 1);
 
         List<Student> students = new ArrayList<>();
 
         try (Connection conn = Database.connect();
-            PreparedStatement stmt = conn.prepareStatement(sql)) {
+            PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
 
-            stmt.setObject(1, value);
+            for (int i = 0; i < params.size(); i++)
+                stmt.setObject(i + 1, params.get(i));
 
-            try (ResultSet rs = stmt.executeQuery()) {
+            try (ResultSet resultset = stmt.executeQuery()) {
+                StudentMapper mapper = new StudentMapper(resultset);
 
-                while (rs.next()) {
-                    students.add(toObject(rs));
-                }
+                while (resultset.next())
+                    students.add(mapper.map(resultset));
             }
 
         } catch (SQLException e) {
 
-            logger.error("Filtering failed", e);
-            throw new RepositoryException("Filtering failed", e);
+            logger.error("Page query failed", e);
+            throw new RepositoryException("Page query failed", e);
         }
 
-        return students;
+        boolean hasMore = students.size() > request.getPageSize();
+
+        if (hasMore) {
+            students.remove(students.size() - 1);
+        }
+
+        if (students.isEmpty()) {
+            return new StudentPage(students, false, null, null);
+        }
+
+        Student last = students.get(students.size() - 1);
+
+        return new StudentPage(students, hasMore, sortValue(last, request.getSortField()), last.getStudentId());
+    }
+
+    private String keysetColumn(String field) {
+        return sortColumn(StudentQuery.SortField.from(field));
+    }
+
+    private Object sortValue(Student student, String field) {
+        return switch (field.toLowerCase()) {
+            case "gpa" -> student.getGpa();
+            case "fullname" -> student.getFullName();
+            case "level" -> student.getLevel();
+            default -> student.getStudentId();
+        };
+    }
+
+    private String filterColumn(String field) {
+        return switch (field.toLowerCase()) {
+            case "programme" -> "programme";
+            case "level" -> "level";
+            case "status" -> "status";
+            default -> throw new IllegalArgumentException("Invalid filtering field");
+        };
     }
 
 
@@ -289,7 +864,8 @@ public class StudentRepository {
         List<Object> params = new ArrayList<>();
 
         if (programme != null) {
-            sql.append(" AND LOWER(programme) = LOWER(?)");
+            // NOCASE compares like LOWER() did, but on the bare column, so the index applies
+            sql.append(" AND programme = ? COLLATE NOCASE");
             params.add(programme);
         }
 
@@ -309,8 +885,10 @@ public class StudentRepository {
                 stmt.setObject(i + 1, params.get(i));
 
             try (ResultSet resultset = stmt.executeQuery()) {
+                StudentMapper mapper = new StudentMapper(resultset);
+
                 while (resultset.next())
-                    students.add(toObject(resultset));
+                    students.add(mapper.map(resultset));
             }
 
         } catch (SQLException e) {
@@ -336,8 +914,10 @@ public class StudentRepository {
             stmt.setDouble(1, threshold);
 
             try (ResultSet resultset = stmt.executeQuery()) {
+                StudentMapper mapper = new StudentMapper(resultset);
+
                 while (resultset.next()) {
-                    students.add(toObject(resultset));
+                    students.add(mapper.map(resultset));
                 }
             }
 
@@ -351,20 +931,10 @@ public class StudentRepository {
     }
 
 
-    // Get gpa band distribution (how many students fall into each GPA band)
+    // Get gpa band distribution (how many students fall into each GPA band).
+    // Reads the trigger-maintained gpa_band_stats table: one row per band, whatever the number of students.
     public List<GpaBandSummary> getGpaDistribution() throws SQLException {
-        String sql = """
-            SELECT
-                CASE
-                    WHEN gpa < 2.0 THEN 'Below 2.0'
-                    WHEN gpa < 3.0 THEN '2.0 - 2.99'
-                    WHEN gpa < 3.7 THEN '3.0 - 3.69'
-                    ELSE '3.7 - 4.0'
-                END AS band,
-                COUNT(*) AS total
-            FROM students
-            GROUP BY band
-        """;
+        String sql = "SELECT band, total FROM gpa_band_stats ORDER BY band";
 
         List<GpaBandSummary> results = new ArrayList<>();
 
@@ -388,14 +958,15 @@ public class StudentRepository {
     }
 
 
-    // Get programme summary (total students per programme and average GPA per programme)
+    // Get programme summary (total students per programme and average GPA per programme).
+    // Reads the trigger-maintained programme_stats table: one row per programme.
     public List<ProgrammeSummary> getProgrammeSummary() throws SQLException {
         String sql = """
             SELECT programme,
-                COUNT(*) as total,
-                AVG(gpa) as averageGpa
-            FROM students
-            GROUP BY programme
+                total,
+                gpa_sum / total AS averageGpa
+            FROM programme_stats
+            ORDER BY programme
         """;
 
         List<ProgrammeSummary> results = new ArrayList<>();
@@ -421,6 +992,203 @@ public class StudentRepository {
     }
 
 
+    // Count, average, min and max GPA per band of the given cut points, per programme if asked.
+    // A row's band is the number of cut points at or below its GPA, (gpa >= ?) + (gpa >= ?) + ...,
+    // so one GROUP BY covers every band. Across programmes it scans idx_students_gpa alone.
+    public List<GpaHistogramBand> getGpaHistogram(List<Double> cutPoints, boolean perProgramme) throws SQLException {
+
+        GpaHistogram histogram = new GpaHistogram(cutPoints, perProgramme);
+        double[] points = histogram.cutPoints();
+
+        String band = points.length == 0 ? "0" : String.join(" + ", Collections.nCopies(points.length, "(gpa >= ?)"));
+        String group = perProgramme ? "programme" : "NULL";
+
+        String sql = "SELECT " + group + " AS programme, " + band + " AS band, COUNT(*) AS total, "
+                + "SUM(gpa) AS gpaSum, MIN(gpa) AS minGpa, MAX(gpa) AS maxGpa "
+                + "FROM students GROUP BY " + (perProgramme ? "programme, " : "") + "band";
+
+        try (Connection conn = Database.connect();
+            PreparedStatement stmt = conn.prepareStatement(sql)) {
+
+            for (int i = 0; i < points.length; i++)
+                stmt.setDouble(i + 1, points[i]);
+
+            try (ResultSet resultset = stmt.executeQuery()) {
+                while (resultset.next())
+                    histogram.add(
+                        resultset.getString("programme"),
+                        resultset.getInt("band"),
+                        resultset.getLong("total"),
+                        resultset.getDouble("gpaSum"),
+                        resultset.getDouble("minGpa"),
+                        resultset.getDouble("maxGpa")
+                    );
+            }
+
+        } catch (SQLException e) {
+
+            logger.error("GPA histogram failed", e);
+            throw new RepositoryException("Report failed", e);
+        }
+
+        return histogram.toBands();
+    }
+
+
+    // Recompute programme_stats and gpa_band_stats from the students table in one transaction.
+    // Needed if the tables were edited by hand or the triggers were dropped, see checkReportStats.
+    public void rebuildReportStats() throws SQLException {
+
+        try (Connection conn = Database.connect()) {
+
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+
+            try (Statement stmt = conn.createStatement()) {
+
+                stmt.execute("DELETE FROM programme_stats");
+                stmt.execute("DELETE FROM gpa_band_stats");
+
+                stmt.execute("""
+                    INSERT INTO programme_stats (programme, total, gpa_sum)
+                    SELECT programme, COUNT(*), SUM(gpa) FROM students GROUP BY programme
+                """);
+
+                stmt.execute("INSERT INTO gpa_band_stats (band, total) SELECT " + GPA_BAND
+                        + " AS band, COUNT(*) FROM students GROUP BY band");
+
+                conn.commit();
+
+            } catch (SQLException e) {
+
+                conn.rollback();
+                throw e;
+
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+
+            logger.info("Rebuilt report summary tables");
+
+        } catch (SQLException e) {
+
+            logger.error("Failed to rebuild report summary tables", e);
+            throw new RepositoryException("Failed to rebuild report summary tables", e);
+        }
+    }
+
+    // Compare the summary tables with a live GROUP BY over students, read in one transaction.
+    // Returns one line per group that differs, an empty list when the tables are consistent.
+    public List<String> checkReportStats() throws SQLException {
+
+        List<String> differences = new ArrayList<>();
+
+        try (Connection conn = Database.connect()) {
+
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+
+            try {
+                Map<String, double[]> stored = readGroups(conn, "SELECT programme, total, gpa_sum FROM programme_stats");
+                Map<String, double[]> live = readGroups(conn, "SELECT programme, COUNT(*), SUM(gpa) FROM students GROUP BY programme");
+
+                compareGroups("programme", stored, live, differences);
+
+                stored = readGroups(conn, "SELECT band, total, 0 FROM gpa_band_stats");
+                live = readGroups(conn, "SELECT " + GPA_BAND + " AS band, COUNT(*), 0 FROM students GROUP BY band");
+
+                compareGroups("band", stored, live, differences);
+
+            } finally {
+                conn.commit();
+                conn.setAutoCommit(autoCommit);
+            }
+
+        } catch (SQLException e) {
+
+            logger.error("Failed to check report summary tables", e);
+            throw new RepositoryException("Failed to check report summary tables", e);
+        }
+
+        if (!differences.isEmpty()) {
+            logger.warn("Report summary tables differ from students: {}", differences);
+        }
+
+        return differences;
+    }
+
+    // group key -> {count, gpa sum}
+    private Map<String, double[]> readGroups(Connection conn, String sql) throws SQLException {
+
+        Map<String, double[]> groups = new TreeMap<>();
+
+        try (Statement stmt = conn.createStatement();
+            ResultSet resultset = stmt.executeQuery(sql)) {
+
+            while (resultset.next()) {
+                groups.put(resultset.getString(1), new double[] { resultset.getLong(2), resultset.getDouble(3) });
+            }
+        }
+
+        return groups;
+    }
+
+    private void compareGroups(String kind, Map<String, double[]> stored, Map<String, double[]> live, List<String> differences) {
+
+        Set<String> keys = new TreeSet<>(stored.keySet());
+        keys.addAll(live.keySet());
+
+        for (String key : keys) {
+            double[] expected = live.getOrDefault(key, new double[2]);
+            double[] actual = stored.getOrDefault(key, new double[2]);
+
+            // GPA sums are updated one student at a time, allow for rounding drift
+            boolean sameSum = Math.abs(expected[1] - actual[1]) <= 1e-6 * Math.max(1, Math.abs(expected[1]));
+
+            if (expected[0] != actual[0] || !sameSum) {
+                differences.add(String.format("%s '%s': stored %d students (GPA sum %.4f), actual %d (GPA sum %.4f)",
+                        kind, key, (long) actual[0], actual[1], (long) expected[0], expected[1]));
+            }
+        }
+    }
+
+
+    // Get dashboard counts and GPA statistics in one aggregate pass, without building Student objects
+    public DashboardStats getDashboardStats() throws SQLException {
+        String sql = """
+            SELECT
+                COUNT(*) AS total,
+                COALESCE(SUM(status = 'Active'), 0) AS active,
+                COALESCE(SUM(status = 'Inactive'), 0) AS inactive,
+                COALESCE(AVG(gpa), 0) AS averageGpa,
+                COALESCE(MIN(gpa), 0) AS minGpa,
+                COALESCE(MAX(gpa), 0) AS maxGpa
+            FROM students
+        """;
+
+        try (Connection conn = Database.connect();
+            Statement stmt = conn.createStatement();
+            ResultSet resultset = stmt.executeQuery(sql)) {
+
+            resultset.next();
+
+            return new DashboardStats(
+                resultset.getInt("total"),
+                resultset.getInt("active"),
+                resultset.getInt("inactive"),
+                resultset.getDouble("averageGpa"),
+                resultset.getDouble("minGpa"),
+                resultset.getDouble("maxGpa")
+            );
+
+        } catch (SQLException e) {
+
+            logger.error("Dashboard statistics failed", e);
+            throw new RepositoryException("Report failed", e);
+        }
+    }
+
+
     public List<String> getDistinctProgrammes() throws SQLException {
 
         String sql = "SELECT DISTINCT programme FROM students";
@@ -441,21 +1209,98 @@ public class StudentRepository {
 
 
 
-    // Map database student records to Student objects
-    private Student toObject(ResultSet resultset) throws SQLException {
+    // Run a query and map every row with a mapper built once for the result set
+    private <T> List<T> queryList(String sql, List<Object> params, MapperFactory<T> factory) throws SQLException {
+
+        List<T> items = new ArrayList<>();
+
+        try (Connection conn = Database.connect();
+            PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-        Student student = new Student();
+            for (int i = 0; i < params.size(); i++)
+                stmt.setObject(i + 1, params.get(i));
 
-        student.setStudentId(resultset.getString("student_id"));
-        student.setFullName(resultset.getString("full_name"));
-        student.setProgramme(resultset.getString("programme"));
-        student.setLevel(resultset.getInt("level"));
-        student.setGpa(resultset.getDouble("gpa"));
-        student.setEmail(resultset.getString("email"));
-        student.setPhone(resultset.getString("phone"));
-        student.setDateAdded(resultset.getString("date_added"));
-        student.setStatus(resultset.getString("status"));
+            try (ResultSet resultset = stmt.executeQuery()) {
+                RowMapper<T> mapper = factory.create(resultset);
 
-        return student;
+                while (resultset.next())
+                    items.add(mapper.map(resultset));
+            }
+        }
+
+        return items;
+    }
+
+
+    private interface RowMapper<T> {
+        T map(ResultSet resultset) throws SQLException;
+    }
+
+    private interface MapperFactory<T> {
+        RowMapper<T> create(ResultSet resultset) throws SQLException;
+    }
+
+    // Map database student records to Student objects.
+    // Column indexes are looked up once per result set instead of by name on every row.
+    private static class StudentMapper implements RowMapper<Student> {
+
+        private final int studentId, fullName, programme, level, gpa, email, phone, dateAdded, status;
+
+        StudentMapper(ResultSet resultset) throws SQLException {
+            studentId = resultset.findColumn("student_id");
+            fullName = resultset.findColumn("full_name");
+            programme = resultset.findColumn("programme");
+            level = resultset.findColumn("level");
+            gpa = resultset.findColumn("gpa");
+            email = resultset.findColumn("email");
+            phone = resultset.findColumn("phone");
+            dateAdded = resultset.findColumn("date_added");
+            status = resultset.findColumn("status");
+        }
+
+        @Override
+        public Student map(ResultSet resultset) throws SQLException {
+
+            Student student = new Student();
+
+            student.setStudentId(resultset.getString(studentId));
+            student.setFullName(resultset.getString(fullName));
+            student.setProgramme(resultset.getString(programme));
+            student.setLevel(resultset.getInt(level));
+            student.setGpa(resultset.getDouble(gpa));
+            student.setEmail(resultset.getString(email));
+            student.setPhone(resultset.getString(phone));
+            student.setDateAdded(resultset.getString(dateAdded));
+            student.setStatus(resultset.getString(status));
+
+            return student;
+        }
+    }
+
+    // Map ROW_COLUMNS projections to StudentRow listing rows
+    private static class StudentRowMapper implements RowMapper<StudentRow> {
+
+        private final int studentId, fullName, programme, level, gpa, status;
+
+        StudentRowMapper(ResultSet resultset) throws SQLException {
+            studentId = resultset.findColumn("student_id");
+            fullName = resultset.findColumn("full_name");
+            programme = resultset.findColumn("programme");
+            level = resultset.findColumn("level");
+            gpa = resultset.findColumn("gpa");
+            status = resultset.findColumn("status");
+        }
+
+        @Override
+        public StudentRow map(ResultSet resultset) throws SQLException {
+            return new StudentRow(
+                resultset.getString(studentId),
+                resultset.getString(fullName),
+                resultset.getString(programme),
+                resultset.getInt(level),
+                resultset.getDouble(gpa),
+                resultset.getString(status)
+            );
+        }
     }
-}
\ No newline at end of file
+}
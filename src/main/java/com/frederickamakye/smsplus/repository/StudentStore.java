@@ -0,0 +1,116 @@
+/*
+ * StudentStore is the storage contract StudentService works against.
+ * - StudentRepository keeps students in SQLite
+ * - InMemoryStudentStore keeps an indexed copy in the heap and writes through to a StudentRepository
+*/
+
+package com.frederickamakye.smsplus.repository;
+
+import com.frederickamakye.smsplus.models.BulkWriteResult;
+import com.frederickamakye.smsplus.models.DashboardStats;
+import com.frederickamakye.smsplus.models.GpaBandSummary;
+import com.frederickamakye.smsplus.models.GpaHistogramBand;
+import com.frederickamakye.smsplus.models.GpaSample;
+import com.frederickamakye.smsplus.models.PageRequest;
+import com.frederickamakye.smsplus.models.ProgrammeSummary;
+import com.frederickamakye.smsplus.models.Student;
+import com.frederickamakye.smsplus.models.StudentPage;
+import com.frederickamakye.smsplus.models.StudentQuery;
+import com.frederickamakye.smsplus.models.StudentRow;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface StudentStore {
+
+    // Stores with equal keys hold the same data. StudentService shares one read cache,
+    // prefix index and listener list between them, so the key must not be unique per instance.
+    String storeKey();
+
+    // Writes
+    void create(Student student) throws SQLException;
+
+    BulkWriteResult createAll(List<Student> students, int batchSize) throws SQLException;
+
+    BulkWriteResult upsertAll(List<Student> students, int batchSize) throws SQLException;
+
+    void update(Student student) throws SQLException;
+
+    void delete(String id) throws SQLException;
+
+
+    // Reads
+    Student getById(String id) throws SQLException;
+
+    List<Student> getAll() throws SQLException;
+
+    List<StudentRow> getAllRows() throws SQLException;
+
+    // Close the stream when done (try-with-resources)
+    Stream<Student> streamAll(int fetchSize) throws SQLException;
+
+    // Programme, level and GPA of every student. Close the stream when done.
+    Stream<GpaSample> streamGpaSamples(int fetchSize) throws SQLException;
+
+    // Every word of the query matches as a prefix of a word in id, full name, email or programme
+    List<Student> search(String query, int limit) throws SQLException;
+
+    default List<Student> search(String query) throws SQLException {
+        return search(query, StudentRepository.DEFAULT_SEARCH_LIMIT);
+    }
+
+    List<Student> find(StudentQuery query) throws SQLException;
+
+    List<StudentRow> findRows(StudentQuery query) throws SQLException;
+
+    // Students matching the criteria of the query, its limit and offset are ignored
+    int count(StudentQuery query) throws SQLException;
+
+    StudentPage getPage(PageRequest request) throws SQLException;
+
+    // Sort records by specific field (gpa, fullname, level or studentid)
+    default List<Student> sortBy(String field, String direction) throws SQLException {
+        return find(new StudentQuery().orderBy(StudentQuery.SortField.from(field), "desc".equalsIgnoreCase(direction)));
+    }
+
+    // filter records by  level, programme, or status
+    default List<Student> filterBy(String field, Object value) throws SQLException {
+
+        StudentQuery query = switch (field.toLowerCase()) {
+            case "programme" -> new StudentQuery().programme((String) value);
+            case "level" -> new StudentQuery().level((Integer) value);
+            case "status" -> new StudentQuery().status((String) value);
+            default -> throw new IllegalArgumentException("Invalid filtering field");
+        };
+
+        return find(query);
+    }
+
+
+    // Reports
+    List<Student> getTopPerformers(String programme, Integer level) throws SQLException;
+
+    List<Student> getAtRiskStudents(double threshold) throws SQLException;
+
+    List<GpaBandSummary> getGpaDistribution() throws SQLException;
+
+    // Bands split at the given cut points (strictly increasing), optionally per programme
+    List<GpaHistogramBand> getGpaHistogram(List<Double> cutPoints, boolean perProgramme) throws SQLException;
+
+    List<ProgrammeSummary> getProgrammeSummary() throws SQLException;
+
+    DashboardStats getDashboardStats() throws SQLException;
+
+    List<String> getDistinctProgrammes() throws SQLException;
+
+
+    // Maintenance of the trigger-maintained report summary tables
+    void rebuildReportStats() throws SQLException;
+
+    // One line per group that differs from the students table, empty when consistent
+    List<String> checkReportStats() throws SQLException;
+
+    // Rebuild the full-text search index from the students table
+    void rebuildSearchIndex() throws SQLException;
+}
@@ -0,0 +1,306 @@
+/*
+ * AsyncStudentService runs StudentService calls on virtual threads and returns CompletableFutures,
+ * so JavaFX handlers and batch jobs can share the service without blocking their own threads.
+ * - At most maxConcurrent calls touch the database at once, the rest wait on a virtual thread
+ * - cancel(true) on a returned future interrupts the call or removes it from the queue
+ * - Calls that do not finish within the timeout complete with a TimeoutException and are cancelled,
+ *   callers can set their own per call with future.orTimeout(...)
+ * SQLite cannot abort a statement that is already running: a cancelled call stops waiting for
+ * its result, but the statement runs to the end.
+*/
+
+package com.frederickamakye.smsplus.services;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.frederickamakye.smsplus.models.BulkWriteResult;
+import com.frederickamakye.smsplus.models.DashboardStats;
+import com.frederickamakye.smsplus.models.GpaBandSummary;
+import com.frederickamakye.smsplus.models.GpaHistogramBand;
+import com.frederickamakye.smsplus.models.GpaPercentileSummary;
+import com.frederickamakye.smsplus.models.PageRequest;
+import com.frederickamakye.smsplus.models.ProgrammeSummary;
+import com.frederickamakye.smsplus.models.Student;
+import com.frederickamakye.smsplus.models.StudentPage;
+import com.frederickamakye.smsplus.models.StudentQuery;
+import com.frederickamakye.smsplus.models.StudentRow;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class AsyncStudentService implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncStudentService.class);
+
+    // Calls running against the database at once. Defaults to the connection pool size,
+    // more would only wait for a connection. Override with -Ddb.async.maxConcurrent
+    public static final int DEFAULT_MAX_CONCURRENT =
+            Integer.getInteger("db.async.maxConcurrent", Integer.getInteger("db.pool.size", 4));
+
+    // Timeout applied to every call, 0 for none. Override with -Ddb.async.timeoutMs
+    public static final long DEFAULT_TIMEOUT_MS = Long.getLong("db.async.timeoutMs", 0L);
+
+    private static AsyncStudentService shared;
+
+    private final StudentService studentService;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long timeoutMs;
+
+    public AsyncStudentService(StudentService studentService, int maxConcurrent, long timeoutMs) {
+
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("Concurrent call limit must be greater than 0");
+        }
+
+        this.studentService = studentService;
+        this.maxConcurrent = maxConcurrent;
+        this.timeoutMs = timeoutMs;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("student-service-", 0).factory());
+    }
+
+    // Instance shared by every view. Its calls and the views' BackgroundLoader tasks (see execute)
+    // count against the same limit, so it applies to the whole application.
+    public static synchronized AsyncStudentService shared() {
+
+        if (shared == null) {
+            shared = new AsyncStudentService(new StudentService(), DEFAULT_MAX_CONCURRENT, DEFAULT_TIMEOUT_MS);
+        }
+
+        return shared;
+    }
+
+    public static synchronized void shutdownShared() {
+
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+
+    // ================= WRITES =================
+
+    public CompletableFuture<Student> createStudent(Student student) {
+        return submit(() -> studentService.createStudent(student));
+    }
+
+    public CompletableFuture<BulkWriteResult> createStudents(List<Student> students) {
+        return submit(() -> studentService.createStudents(students));
+    }
+
+    public CompletableFuture<BulkWriteResult> upsertStudents(List<Student> students) {
+        return submit(() -> studentService.upsertStudents(students));
+    }
+
+    public CompletableFuture<Student> updateStudent(Student student) {
+        return submit(() -> studentService.updateStudent(student));
+    }
+
+    public CompletableFuture<Student> deleteStudent(String id) {
+        return submit(() -> studentService.deleteStudent(id));
+    }
+
+
+    // ================= READS =================
+
+    public CompletableFuture<Student> getStudentById(String id) {
+        return submit(() -> studentService.getStudentById(id));
+    }
+
+    public CompletableFuture<List<Student>> getAllStudents() {
+        return submit(studentService::getAllStudents);
+    }
+
+    public CompletableFuture<List<StudentRow>> getAllStudentRows() {
+        return submit(studentService::getAllStudentRows);
+    }
+
+    public CompletableFuture<List<Student>> searchStudents(String query) {
+        return submit(() -> studentService.searchStudents(query));
+    }
+
+    public CompletableFuture<List<Student>> searchStudents(String query, int limit) {
+        return submit(() -> studentService.searchStudents(query, limit));
+    }
+
+    public CompletableFuture<List<StudentRow>> suggestStudents(String text, int limit) {
+        return submit(() -> studentService.suggestStudents(text, limit));
+    }
+
+    public CompletableFuture<List<Student>> sortByGpa(String direction) {
+        return submit(() -> studentService.sortByGpa(direction));
+    }
+
+    public CompletableFuture<List<Student>> sortByFullName(String direction) {
+        return submit(() -> studentService.sortByFullName(direction));
+    }
+
+    public CompletableFuture<List<Student>> findStudents(StudentQuery query) {
+        return submit(() -> studentService.findStudents(query));
+    }
+
+    public CompletableFuture<List<StudentRow>> findStudentRows(StudentQuery query) {
+        return submit(() -> studentService.findStudentRows(query));
+    }
+
+    public CompletableFuture<Integer> countStudents(StudentQuery query) {
+        return submit(() -> studentService.countStudents(query));
+    }
+
+    public CompletableFuture<StudentPage> getStudentsPage(PageRequest request) {
+        return submit(() -> studentService.getStudentsPage(request));
+    }
+
+    public CompletableFuture<List<String>> getProgrammes() {
+        return submit(studentService::getProgrammes);
+    }
+
+    public CompletableFuture<List<Student>> filterByProgramme(String programme) {
+        return submit(() -> studentService.filterByProgramme(programme));
+    }
+
+    public CompletableFuture<List<Student>> filterByLevel(Integer level) {
+        return submit(() -> studentService.filterByLevel(level));
+    }
+
+    public CompletableFuture<List<Student>> filterByStatus(String status) {
+        return submit(() -> studentService.filterByStatus(status));
+    }
+
+
+    // ================= REPORTS =================
+
+    public CompletableFuture<DashboardStats> getDashboardStats() {
+        return submit(studentService::getDashboardStats);
+    }
+
+    public CompletableFuture<List<GpaBandSummary>> getGpaDistributionReport() {
+        return submit(studentService::getGpaDistributionReport);
+    }
+
+    public CompletableFuture<List<GpaHistogramBand>> getGpaHistogramReport(List<Double> cutPoints, boolean perProgramme) {
+        return submit(() -> studentService.getGpaHistogramReport(cutPoints, perProgramme));
+    }
+
+    public CompletableFuture<List<Student>> getTopPerformersReport(String programme, Integer level) {
+        return submit(() -> studentService.getTopPerformersReport(programme, level));
+    }
+
+    public CompletableFuture<List<Student>> getAtRiskStudentsReport(double threshold) {
+        return submit(() -> studentService.getAtRiskStudentsReport(threshold));
+    }
+
+    public CompletableFuture<List<ProgrammeSummary>> getProgrammeSummaryReport() {
+        return submit(studentService::getProgrammeSummaryReport);
+    }
+
+    public CompletableFuture<List<GpaPercentileSummary>> getGpaPercentileReport() {
+        return submit(studentService::getGpaPercentileReport);
+    }
+
+
+    // Run a view's background task (a javafx.concurrent.Task reading through its own StudentService)
+    // under the same limit as the calls above. No timeout: a CSV import runs as long as its file.
+    // Cancelling the task interrupts it; a task cancelled while queued still waits for its permit, then does nothing.
+    public void execute(Runnable task) {
+
+        executor.execute(() -> {
+
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                // the service was closed, the application is exiting
+                return;
+            }
+
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    // Calls holding a database permit
+    public int getRunningCount() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    // Calls waiting for a permit
+    public int getQueuedCount() {
+        return permits.getQueueLength();
+    }
+
+    // Stop accepting calls and interrupt the ones still running
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+
+    // Run a call on its own virtual thread once a permit is free
+    <T> CompletableFuture<T> submit(Call<T> call) {
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        Future<?> task = executor.submit(() -> {
+
+            // cancelled or timed out while queued
+            if (result.isDone()) {
+                return;
+            }
+
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                result.cancel(false);
+                return;
+            }
+
+            try {
+                if (!result.isDone()) {
+                    result.complete(call.call());
+                }
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                permits.release();
+            }
+        });
+
+        // cancel(true) and timeouts complete the future first, then interrupt the call
+        result.whenComplete((value, error) -> {
+            if (error != null && !task.isDone()) {
+                task.cancel(true);
+                logger.debug("Cancelled student service call", error);
+            }
+        });
+
+        if (timeoutMs > 0) {
+            result.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        return result;
+    }
+
+
+    @FunctionalInterface
+    interface Call<T> {
+        T call() throws SQLException;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * DataVersion tells views whether the data changed since they last loaded it, without querying it.
+ * - Writes through StudentService bump a counter in memory
+ * - PRAGMA data_version catches commits from other processes (another app instance, a CSV import script)
+ * A view keeps the stamp taken before its last load and reloads only when the current stamp differs.
+ * A database change that no local write accounts for also drops the read caches, they cannot know about it.
+*/
+
+package com.frederickamakye.smsplus.services;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.frederickamakye.smsplus.utils.Database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public final class DataVersion {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataVersion.class);
+
+    private static final AtomicLong localWrites = new AtomicLong();
+
+    // data_version as of the last local write or check, -1 before the first one
+    private static long knownDatabaseVersion = -1;
+
+    public record Stamp(long localWrites, long databaseVersion) {
+    }
+
+    private DataVersion() {
+    }
+
+    // Current stamp: one counter read and one PRAGMA
+    public static Stamp current() throws SQLException {
+        return new Stamp(localWrites.get(), checkDatabaseVersion());
+    }
+
+    // Called by StudentService just before a write. A commit made elsewhere since the last check
+    // is noticed here, before the write's own commit moves data_version past it.
+    static void beforeLocalWrite() {
+
+        try {
+            checkDatabaseVersion();
+        } catch (SQLException e) {
+            logger.warn("Failed to read data version", e);
+        }
+    }
+
+    // Called by StudentService after a write, so its own commit is not taken for an external one.
+    // data_version moves once per check however many commits landed in between, so an external
+    // commit that lands while the write runs is absorbed with it. beforeLocalWrite() keeps that
+    // window down to the write itself.
+    static void localWrite() {
+
+        localWrites.incrementAndGet();
+
+        try {
+            long databaseVersion = Database.dataVersion();
+
+            synchronized (DataVersion.class) {
+                knownDatabaseVersion = databaseVersion;
+            }
+        } catch (SQLException e) {
+            logger.warn("Failed to read data version", e);
+        }
+    }
+
+    // Reads data_version and drops the read caches when it moved since the last local write or check
+    private static long checkDatabaseVersion() throws SQLException {
+
+        long databaseVersion = Database.dataVersion();
+        boolean external;
+
+        synchronized (DataVersion.class) {
+            external = knownDatabaseVersion != -1 && databaseVersion != knownDatabaseVersion;
+            knownDatabaseVersion = databaseVersion;
+        }
+
+        if (external) {
+            logger.info("Database changed outside this application, dropping cached reads");
+            StudentService.clearCache();
+        }
+
+        return databaseVersion;
+    }
+}
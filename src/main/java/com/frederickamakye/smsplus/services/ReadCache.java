@@ -0,0 +1,176 @@
+/*
+ * ReadCache is a bounded read-through cache for query results shared by every StudentService.
+ * - Entries expire after a fixed time to live and the least recently used entry is evicted when full
+ * - Keys belong to a region, so writes can drop a single student or every entry of a region
+ * - A result loaded while an invalidation happened is returned but not cached, so it can never go stale
+ * - Collections larger than maxCollectionSize are not cached, so one huge listing cannot fill the heap
+*/
+
+package com.frederickamakye.smsplus.services;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ReadCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReadCache.class);
+
+    public enum Region {
+        STUDENT,      // by-ID lookups
+        PROGRAMMES,   // distinct programme list
+        REPORT,       // report and dashboard results
+        QUERY         // listings, searches and pages
+    }
+
+    public record Key(Region region, Object id) {
+    }
+
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws SQLException;
+    }
+
+    public record Stats(int size, int maxEntries, long hits, long misses, long evictions,
+                        long expirations, long invalidations) {
+
+        public double hitRatio() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final int maxCollectionSize;
+
+    // access order, so iteration starts at the least recently used entry
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    // bumped by every invalidation, loads that overlap one are not stored
+    private long generation;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+
+    public ReadCache(int maxEntries, long ttlMs, int maxCollectionSize) {
+
+        if (maxEntries < 0 || ttlMs < 0 || maxCollectionSize < 0) {
+            throw new IllegalArgumentException("Cache limits cannot be negative");
+        }
+
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.maxCollectionSize = maxCollectionSize;
+    }
+
+
+    // Return the cached value for the key, or load it and cache it.
+    // Null results are not cached. A size or time to live of 0 disables caching.
+    @SuppressWarnings("unchecked")
+    public <V> V get(Region region, Object id, Loader<V> loader) throws SQLException {
+
+        Key key = new Key(region, id);
+        long startGeneration;
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAt < 0) {
+                    hits++;
+                    return (V) entry.value;
+                }
+
+                entries.remove(key);
+                expirations++;
+            }
+
+            misses++;
+            startGeneration = generation;
+        }
+
+        // load outside the lock so a slow query does not block other readers
+        V value = loader.load();
+
+        if (value == null || maxEntries == 0 || ttlNanos == 0) {
+            return value;
+        }
+
+        if (value instanceof Collection<?> collection && collection.size() > maxCollectionSize) {
+            return value;
+        }
+
+        synchronized (this) {
+            if (generation == startGeneration) {
+                entries.put(key, new Entry(value, System.nanoTime() + ttlNanos));
+                evictOverflow();
+            }
+        }
+
+        return value;
+    }
+
+    // Drop one entry, e.g. the by-ID lookup of a student that was updated
+    public synchronized void invalidate(Region region, Object id) {
+        generation++;
+
+        if (entries.remove(new Key(region, id)) != null) {
+            invalidations++;
+        }
+    }
+
+    // Drop every entry of the given regions
+    public synchronized void invalidate(Region... regions) {
+        generation++;
+
+        Iterator<Key> keys = entries.keySet().iterator();
+
+        while (keys.hasNext()) {
+            Region region = keys.next().region();
+
+            for (Region target : regions) {
+                if (region == target) {
+                    keys.remove();
+                    invalidations++;
+                    break;
+                }
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations += entries.size();
+        entries.clear();
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(entries.size(), maxEntries, hits, misses, evictions, expirations, invalidations);
+    }
+
+
+    private void evictOverflow() {
+
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            Key key = eldest.next().getKey();
+            eldest.remove();
+            evictions++;
+
+            logger.debug("Evicted cache entry {}", key);
+        }
+    }
+
+    private record Entry(Object value, long expiresAt) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.frederickamakye.smsplus.services;
+
+import com.frederickamakye.smsplus.models.StudentChange;
+
+// Called on the writing thread after a write committed. UI listeners hand the change to the FX thread.
+@FunctionalInterface
+public interface StudentChangeListener {
+    void studentChanged(StudentChange change);
+}
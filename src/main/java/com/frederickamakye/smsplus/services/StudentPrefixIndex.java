@@ -0,0 +1,286 @@
+/*
+ * StudentPrefixIndex answers search-as-you-type queries from memory.
+ * - Normalized words of every student's ID, full name, email and programme (the students_fts columns)
+ *   are kept in a sorted map, a prefix is a range of it
+ * - Every word typed must be a prefix of a word of the student, so suggestions find the same students
+ *   as the students_fts search run on Enter
+ * - The table is loaded on first use, StudentService keeps it current on every write
+ * Results are listing rows in word order, which is what a suggestion list shows.
+*/
+
+package com.frederickamakye.smsplus.services;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import com.frederickamakye.smsplus.models.Student;
+import com.frederickamakye.smsplus.models.StudentRow;
+import com.frederickamakye.smsplus.repository.StudentRepository;
+import com.frederickamakye.smsplus.repository.StudentStore;
+import com.frederickamakye.smsplus.utils.SearchText;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class StudentPrefixIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentPrefixIndex.class);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Entry> byId = new HashMap<>();
+
+    // normalized word -> IDs of the students with that word in one of the indexed columns
+    private final TreeMap<String, Set<String>> byWord = new TreeMap<>();
+
+    private boolean loaded;
+
+
+    // Load every student from the store, unless already loaded. Writes that arrive meanwhile wait
+    // for the load and are applied on top of it.
+    public void ensureLoaded(StudentStore store) throws SQLException {
+
+        lock.readLock().lock();
+        try {
+            if (loaded) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+
+        try {
+            if (loaded) {
+                return;
+            }
+
+            long start = System.nanoTime();
+
+            byId.clear();
+            byWord.clear();
+
+            try (Stream<Student> students = store.streamAll(StudentRepository.DEFAULT_FETCH_SIZE)) {
+                students.forEach(this::index);
+            }
+
+            loaded = true;
+
+            logger.info("Indexed {} students for prefix search in {} ms", byId.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isLoaded() {
+
+        lock.readLock().lock();
+        try {
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Drop everything, the next ensureLoaded reads the store again.
+    // Used when a write failed part way or the table was changed outside the service.
+    public void clear() {
+
+        lock.writeLock().lock();
+
+        try {
+            byId.clear();
+            byWord.clear();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    // Add or replace students that were written to the store
+    public void put(List<Student> students) {
+
+        lock.writeLock().lock();
+
+        try {
+            if (loaded) {
+                students.forEach(this::index);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Replace students that already exist, an update of an unknown ID changes nothing
+    public void replace(Student student) {
+
+        lock.writeLock().lock();
+
+        try {
+            if (loaded && byId.containsKey(student.getStudentId())) {
+                index(student);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String studentId) {
+
+        lock.writeLock().lock();
+
+        try {
+            Entry removed = byId.remove(studentId);
+
+            if (removed != null) {
+                unindex(removed);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    // Students with a word starting with each word of the text, at most limit of them.
+    // Text without letters or digits matches nothing.
+    public List<StudentRow> search(String text, int limit) {
+
+        String[] words = text == null ? new String[0] : SearchText.words(text);
+
+        if (words.length == 0 || limit <= 0) {
+            return List.of();
+        }
+
+        // the longest word usually covers the smallest range of the index
+        String longest = Stream.of(words).max(Comparator.comparingInt(String::length)).orElseThrow();
+
+        lock.readLock().lock();
+
+        try {
+            Map<String, StudentRow> results = new LinkedHashMap<>();
+
+            for (Set<String> ids : byWord.subMap(longest, true, longest + Character.MAX_VALUE, false).values()) {
+                for (String id : ids) {
+                    Entry entry = byId.get(id);
+
+                    if (!results.containsKey(id) && entry.matchesAll(words)) {
+                        results.put(id, entry.row);
+
+                        if (results.size() == limit) {
+                            return new ArrayList<>(results.values());
+                        }
+                    }
+                }
+            }
+
+            return new ArrayList<>(results.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Whether search(text, ...) would list the student, worked out from the student alone.
+    // Lets a view tell whether a write touches the suggestions it shows.
+    public static boolean matches(Student student, String text) {
+
+        String[] prefixes = text == null ? new String[0] : SearchText.words(text);
+
+        return prefixes.length > 0 && matchesAll(words(student), prefixes);
+    }
+
+    public int size() {
+
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    // Caller holds the write lock
+    private void index(Student student) {
+
+        StudentRow row = StudentRow.from(student);
+
+        Entry entry = new Entry(row, words(student));
+        Entry previous = byId.put(row.getStudentId(), entry);
+
+        if (previous != null) {
+            unindex(previous);
+        }
+
+        for (String word : entry.words) {
+            byWord.computeIfAbsent(word, key -> new LinkedHashSet<>(2)).add(row.getStudentId());
+        }
+    }
+
+    // Same columns as students_fts, see SchemaMigrations
+    private static String[] words(Student student) {
+
+        Set<String> words = new LinkedHashSet<>();
+
+        for (String column : new String[] { student.getStudentId(), student.getFullName(), student.getEmail(), student.getProgramme() }) {
+            if (column != null) {
+                words.addAll(List.of(SearchText.words(column)));
+            }
+        }
+
+        return words.toArray(String[]::new);
+    }
+
+    private void unindex(Entry entry) {
+
+        for (String word : entry.words) {
+            Set<String> ids = byWord.get(word);
+
+            if (ids != null) {
+                ids.remove(entry.row.getStudentId());
+
+                if (ids.isEmpty()) {
+                    byWord.remove(word);
+                }
+            }
+        }
+    }
+
+    private static boolean matchesAll(String[] words, String[] prefixes) {
+
+        for (String prefix : prefixes) {
+            boolean found = false;
+
+            for (String word : words) {
+                if (word.startsWith(prefix)) {
+                    found = true;
+                    break;
+                }
+            }
+
+            if (!found) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private record Entry(StudentRow row, String[] words) {
+
+        boolean matchesAll(String[] prefixes) {
+            return StudentPrefixIndex.matchesAll(words, prefixes);
+        }
+    }
+}
@@ -6,26 +6,303 @@
 package com.frederickamakye.smsplus.services;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
 
+import com.frederickamakye.smsplus.exceptions.RepositoryException;
 import com.frederickamakye.smsplus.exceptions.ValidationException;
+import com.frederickamakye.smsplus.models.BulkWriteResult;
+import com.frederickamakye.smsplus.models.DashboardStats;
+import com.frederickamakye.smsplus.models.ImportMode;
 import com.frederickamakye.smsplus.models.Student;
+import com.frederickamakye.smsplus.models.StudentChange;
 import com.frederickamakye.smsplus.models.GpaBandSummary;
+import com.frederickamakye.smsplus.models.GpaHistogramBand;
+import com.frederickamakye.smsplus.models.GpaPercentileSummary;
+import com.frederickamakye.smsplus.models.GpaSample;
+import com.frederickamakye.smsplus.models.PageRequest;
 import com.frederickamakye.smsplus.models.ProgrammeSummary;
+import com.frederickamakye.smsplus.models.StudentPage;
+import com.frederickamakye.smsplus.models.StudentQuery;
+import com.frederickamakye.smsplus.models.StudentRow;
+import com.frederickamakye.smsplus.repository.InMemoryStudentStore;
 import com.frederickamakye.smsplus.repository.StudentRepository;
+import com.frederickamakye.smsplus.repository.StudentStore;
+import com.frederickamakye.smsplus.utils.GpaQuantileSketch;
 import com.frederickamakye.smsplus.utils.StudentIdGenerator;
 import com.frederickamakye.smsplus.utils.StudentValidator;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 public class StudentService {
 
-    private final StudentRepository studentRepository;
+    private static final Logger logger = LoggerFactory.getLogger(StudentService.class);
+
+    // Cut points of the GPA Distribution report bands, the default for getGpaHistogramReport
+    public static final List<Double> DEFAULT_GPA_CUT_POINTS = List.of(2.0, 3.0, 3.7);
+
+    // One read cache per database (StudentStore.storeKey), shared by every StudentService on it (every view),
+    // however many store instances were created for it.
+    // Override with -Dcache.maxEntries, -Dcache.ttlMs and -Dcache.maxRows (largest list that is cached).
+    // -Dcache.maxEntries=0 disables caching.
+    private static final Map<String, ReadCache> CACHES = new ConcurrentHashMap<>();
+
+    // One search-as-you-type index per database, kept current by the write methods below
+    private static final Map<String, StudentPrefixIndex> PREFIX_INDEXES = new ConcurrentHashMap<>();
+
+    // Change listeners per database, so every view hears about writes made through any service on it
+    private static final Map<String, List<StudentChangeListener>> LISTENERS = new ConcurrentHashMap<>();
+
+    private static StudentStore defaultStore;
+
+    private final StudentStore studentStore;
+    private final ReadCache cache;
+    private final StudentPrefixIndex prefixIndex;
+    private final List<StudentChangeListener> listeners;
 
     public StudentService() {
-        this.studentRepository = new StudentRepository();
+        this(defaultStore());
+    }
+
+    public StudentService(StudentStore studentStore) {
+        this.studentStore = studentStore;
+        String key = studentStore.storeKey();
+
+        this.cache = CACHES.computeIfAbsent(key, store -> new ReadCache(
+                Integer.getInteger("cache.maxEntries", 256),
+                Long.getLong("cache.ttlMs", 60_000L),
+                Integer.getInteger("cache.maxRows", 5_000)
+        ));
+        this.prefixIndex = PREFIX_INDEXES.computeIfAbsent(key, store -> new StudentPrefixIndex());
+        this.listeners = LISTENERS.computeIfAbsent(key, store -> new CopyOnWriteArrayList<>());
+    }
+
+    // Store used by the views: -Ddb.store=sqlite (default) or memory, which loads the table into
+    // an InMemoryStudentStore once and writes through to SQLite
+    private static synchronized StudentStore defaultStore() {
+
+        if (defaultStore == null) {
+            String store = System.getProperty("db.store", "sqlite");
+
+            switch (store.toLowerCase()) {
+                case "sqlite" -> defaultStore = new StudentRepository();
+                case "memory" -> {
+                    try {
+                        defaultStore = new InMemoryStudentStore(new StudentRepository());
+                    } catch (SQLException e) {
+                        throw new RepositoryException("Failed to load students into memory", e);
+                    }
+                }
+                default -> throw new IllegalArgumentException("Unknown student store: " + store);
+            }
+        }
+
+        return defaultStore;
+    }
+
+    public ReadCache.Stats getCacheStats() {
+        return cache.getStats();
+    }
+
+    // Drop every cached result and prefix index, e.g. after the database was changed outside this service
+    public static void clearCache() {
+        CACHES.values().forEach(ReadCache::invalidateAll);
+        PREFIX_INDEXES.values().forEach(StudentPrefixIndex::clear);
+    }
+
+    // Listen for committed writes through any StudentService on the same database
+    public void addChangeListener(StudentChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(StudentChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    // Create new student. Returns a copy of the saved record, with its generated ID and defaults.
+    public Student createStudent(Student student) throws SQLException {
+
+        applyDefaults(student);
+
+        StudentValidator.validate(student);
+
+        DataVersion.beforeLocalWrite();
+
+        try {
+            studentStore.create(student);
+            prefixIndex.put(List.of(student));
+        } finally {
+            invalidateAfterWrite(List.of(student.getStudentId()));
+        }
+
+        Student saved = new Student(student);
+        fireChange(StudentChange.created(saved));
+
+        return saved;
+    }
+
+    // Create many students in batched transactions. Invalid or duplicate rows are reported
+    // in the result by their position in the list, the remaining rows are still saved.
+    public BulkWriteResult createStudents(List<Student> students) throws SQLException {
+        return createStudents(students, StudentRepository.DEFAULT_BATCH_SIZE);
+    }
+
+    public BulkWriteResult createStudents(List<Student> students, int batchSize) throws SQLException {
+        return writeStudents(students, batchSize, ImportMode.INSERT);
+    }
+
+    // Insert new students and update existing ones in batches. Rows that match the stored record
+    // are counted as unchanged and not rewritten.
+    public BulkWriteResult upsertStudents(List<Student> students) throws SQLException {
+        return upsertStudents(students, StudentRepository.DEFAULT_BATCH_SIZE);
+    }
+
+    public BulkWriteResult upsertStudents(List<Student> students, int batchSize) throws SQLException {
+        return writeStudents(students, batchSize, ImportMode.UPSERT);
+    }
+
+    private BulkWriteResult writeStudents(List<Student> students, int batchSize, ImportMode mode) throws SQLException {
+
+        List<String> written = new ArrayList<>(students.size());
+        List<String> saved = new ArrayList<>(students.size());
+
+        DataVersion.beforeLocalWrite();
+
+        try {
+            return writeBatch(students, batchSize, mode, written, saved);
+        } finally {
+            invalidateAfterWrite(written);
+
+            if (!saved.isEmpty()) {
+                fireChange(StudentChange.bulk(saved));
+            }
+        }
+    }
+
+    // Start a bulk import (a CSV file of many batches). Its batches are written without dropping the
+    // read caches or telling listeners, close() does both once when the import finished or failed,
+    // so a 100k row import is one BULK change for the views instead of one per batch.
+    public BulkImport beginBulkImport() {
+
+        DataVersion.beforeLocalWrite();
+
+        return new BulkImport();
+    }
+
+    public final class BulkImport implements AutoCloseable {
+
+        private final List<String> written = new ArrayList<>();
+        private final List<String> saved = new ArrayList<>();
+        private boolean closed;
+
+        private BulkImport() {
+        }
+
+        // Write one batch like createStudents / upsertStudents, reporting rows the same way
+        public BulkWriteResult write(List<Student> students, int batchSize, ImportMode mode) throws SQLException {
+
+            if (closed) {
+                throw new IllegalStateException("Bulk import already closed");
+            }
+
+            return writeBatch(students, batchSize, mode, written, saved);
+        }
+
+        @Override
+        public void close() {
+
+            if (closed) {
+                return;
+            }
+
+            closed = true;
+
+            if (written.isEmpty()) {
+                return;
+            }
+
+            invalidateAfterWrite(written);
+
+            if (!saved.isEmpty()) {
+                fireChange(StudentChange.bulk(List.copyOf(saved)));
+            }
+        }
+    }
+
+    // Validate and write students, adding the IDs sent to the store to written and those saved to saved.
+    // The caller drops the caches and tells listeners.
+    private BulkWriteResult writeBatch(List<Student> students, int batchSize, ImportMode mode,
+                                       List<String> written, List<String> saved) throws SQLException {
+
+        List<Student> valid = new ArrayList<>(students.size());
+        List<Integer> positions = new ArrayList<>(students.size());
+        Map<Integer, String> invalid = new HashMap<>();
+
+        for (int i = 0; i < students.size(); i++) {
+            Student student = students.get(i);
+
+            try {
+                applyDefaults(student);
+                StudentValidator.validate(student);
+
+                valid.add(student);
+                positions.add(i);
+
+            } catch (ValidationException e) {
+                invalid.put(i, e.getMessage());
+            }
+        }
+
+        BulkWriteResult stored;
+
+        valid.forEach(student -> written.add(student.getStudentId()));
+
+        try {
+            stored = mode == ImportMode.UPSERT
+                    ? studentStore.upsertAll(valid, batchSize)
+                    : studentStore.createAll(valid, batchSize);
+        } catch (SQLException | RuntimeException e) {
+            // batches committed before the failure are not known here, rebuild the index on next use
+            prefixIndex.clear();
+            throw e;
+        }
+
+        List<Student> savedStudents = new ArrayList<>(valid.size());
+
+        for (int i = 0; i < valid.size(); i++) {
+            if (!stored.isFailed(i)) {
+                savedStudents.add(valid.get(i));
+                saved.add(valid.get(i).getStudentId());
+            }
+        }
+
+        prefixIndex.put(savedStudents);
+
+        // map repository positions back to positions in the caller's list
+        BulkWriteResult result = new BulkWriteResult();
+        result.addCounts(stored);
+        invalid.forEach(result::addFailure);
+        stored.getFailures().forEach((index, reason) -> result.addFailure(positions.get(index), reason));
+
+        return result;
+    }
+
+    // Fill in the defaults and validate, as every bulk write does first. Lets CSV import workers
+    // reject rows in parallel before they reach the writer. Safe to call from any thread.
+    public void prepareStudent(Student student) {
+        applyDefaults(student);
+        StudentValidator.validate(student);
     }
 
-    // Create new student 
-    public void createStudent(Student student) throws SQLException {
+    private void applyDefaults(Student student) {
 
         // Generate new ID if missing
         if (student.getStudentId() == null) {
@@ -41,31 +318,79 @@ public class StudentService {
         if (student.getStatus() == null) {
             student.setStatus("Active");
         }
+    }
+
+    // Returns a copy of the saved record, or null when no student has that ID
+    public Student updateStudent(Student student) throws SQLException {
 
         StudentValidator.validate(student);
 
-        studentRepository.create(student);
-    }
+        DataVersion.beforeLocalWrite();
 
-    public void updateStudent(Student student) throws SQLException {
+        // listeners get the record as it was, a primary key read
+        Student previous = studentStore.getById(student.getStudentId());
 
-        StudentValidator.validate(student);
-        studentRepository.update(student);
+        try {
+            studentStore.update(student);
+            prefixIndex.replace(student);
+        } finally {
+            invalidateAfterWrite(List.of(student.getStudentId()));
+        }
+
+        if (previous == null) {
+            return null;
+        }
+
+        Student saved = new Student(student);
+        fireChange(StudentChange.updated(previous, saved));
+
+        return saved;
     }
 
-    public void deleteStudent(String id) throws SQLException {
+    // Returns the deleted record, or null when no student has that ID
+    public Student deleteStudent(String id) throws SQLException {
+
+        DataVersion.beforeLocalWrite();
 
-        studentRepository.delete(id);
+        Student previous = studentStore.getById(id);
+
+        try {
+            studentStore.delete(id);
+            prefixIndex.remove(id);
+        } finally {
+            invalidateAfterWrite(List.of(id));
+        }
+
+        if (previous != null) {
+            fireChange(StudentChange.deleted(previous));
+        }
+
+        return previous;
     }
 
+    // Returns a copy, so a caller editing the student (UpdateStudentDialog) cannot change the cached one
     public Student getStudentById(String id) throws SQLException {
 
-        return studentRepository.getById(id);
+        Student student = cache.get(ReadCache.Region.STUDENT, id, () -> studentStore.getById(id));
+
+        return student == null ? null : new Student(student);
     }
 
     public List<Student> getAllStudents() throws SQLException {
 
-        return studentRepository.getAll();
+        return studentStore.getAll();
+    }
+
+    // Listing rows for the students table. Use getStudentById when the full record is needed.
+    public List<StudentRow> getAllStudentRows() throws SQLException {
+
+        return findStudentRows(new StudentQuery());
+    }
+
+    // Read every student one row at a time. Close the stream when done (try-with-resources).
+    public Stream<Student> streamAllStudents() throws SQLException {
+
+        return studentStore.streamAll(StudentRepository.DEFAULT_FETCH_SIZE);
     }   
 
 
@@ -76,48 +401,215 @@ public class StudentService {
             throw new ValidationException("Search query cannot be empty");
         }
 
-        return studentRepository.search(query);
+        return searchStudents(query, StudentRepository.DEFAULT_SEARCH_LIMIT);
+    }
+
+    public List<Student> searchStudents(String query, int limit) throws SQLException {
+        if (query == null || query.isBlank()) {
+            throw new ValidationException("Search query cannot be empty");
+        }
+
+        return copies(cache.get(ReadCache.Region.QUERY, Arrays.asList("search", query, limit),
+                () -> List.copyOf(studentStore.search(query, limit))));
+    }
+
+    // Search-as-you-type over the columns searchStudents matches, answered from memory in well under a millisecond.
+    // The index is loaded from the store on the first call.
+    public List<StudentRow> suggestStudents(String text, int limit) throws SQLException {
+
+        prefixIndex.ensureLoaded(studentStore);
+
+        return prefixIndex.search(text, limit);
     }
 
     public List<Student> sortByGpa(String direction) throws SQLException {
-        return studentRepository.sortBy("gpa", direction);
+        return studentStore.sortBy("gpa", direction);
     }
 
     public List<Student> sortByFullName(String direction) throws SQLException {
-        return studentRepository.sortBy("fullname", direction);
+        return studentStore.sortBy("fullname", direction);
+    }
+
+    // Combined search, filter and sort in one query
+    public List<Student> findStudents(StudentQuery query) throws SQLException {
+        return copies(cache.get(ReadCache.Region.QUERY, queryKey("students", query),
+                () -> List.copyOf(studentStore.find(query))));
+    }
+
+    public List<StudentRow> findStudentRows(StudentQuery query) throws SQLException {
+        return cache.get(ReadCache.Region.QUERY, queryKey("rows", query),
+                () -> List.copyOf(studentStore.findRows(query)));
+    }
+
+    // Total rows of a listing, ignoring its limit and offset
+    public int countStudents(StudentQuery query) throws SQLException {
+        return cache.get(ReadCache.Region.QUERY, queryKey("count", query), () -> studentStore.count(query));
+    }
+
+    // Keyset paged listing. Pass the returned page to request.next(page) to get the following page.
+    public StudentPage getStudentsPage(PageRequest request) throws SQLException {
+        List<Object> key = Arrays.asList("page", request.getSortField(), request.getDirection(),
+                request.getFilterField(), request.getFilterValue(),
+                request.getAfterSortValue(), request.getAfterStudentId(), request.getPageSize());
+
+        StudentPage page = cache.get(ReadCache.Region.QUERY, key, () -> studentStore.getPage(request));
+
+        return new StudentPage(copies(page.getStudents()), page.hasMore(), page.getLastSortValue(), page.getLastStudentId());
     }
 
     public List<String> getProgrammes() throws SQLException {
-        return studentRepository.getDistinctProgrammes();
+        return cache.get(ReadCache.Region.PROGRAMMES, "all",
+                () -> List.copyOf(studentStore.getDistinctProgrammes()));
     }
 
     public List<Student> filterByProgramme(String programme) throws SQLException {
-        return studentRepository.filterBy("programme", programme);
+        return studentStore.filterBy("programme", programme);
     }
 
     public List<Student> filterByLevel(Integer level) throws SQLException {
-        return studentRepository.filterBy("level", level);
+        return studentStore.filterBy("level", level);
     }
 
     public List<Student> filterByStatus(String status) throws SQLException {
-        return studentRepository.filterBy("status", status);
+        return studentStore.filterBy("status", status);
     }
 
 
     // Reporting logic
+    public DashboardStats getDashboardStats() throws SQLException {
+        return cache.get(ReadCache.Region.REPORT, "dashboard", studentStore::getDashboardStats);
+    }
+
     public List<GpaBandSummary> getGpaDistributionReport() throws SQLException {
-        return studentRepository.getGpaDistribution();
+        return cache.get(ReadCache.Region.REPORT, "gpaDistribution",
+                () -> List.copyOf(studentStore.getGpaDistribution()));
+    }
+
+    // Count, average, min and max GPA per band between the cut points, for every student or per programme
+    public List<GpaHistogramBand> getGpaHistogramReport(List<Double> cutPoints, boolean perProgramme) throws SQLException {
+        List<Double> points = List.copyOf(cutPoints);
+
+        return cache.get(ReadCache.Region.REPORT, Arrays.asList("gpaHistogram", points, perProgramme),
+                () -> List.copyOf(studentStore.getGpaHistogram(points, perProgramme)));
     }
 
     public List<Student> getTopPerformersReport(String programme, Integer level) throws SQLException {
-        return studentRepository.getTopPerformers(programme, level);
+        return copies(cache.get(ReadCache.Region.REPORT, Arrays.asList("topPerformers", programme, level),
+                () -> List.copyOf(studentStore.getTopPerformers(programme, level))));
     }
 
     public List<Student> getAtRiskStudentsReport(double threshold) throws SQLException {
-        return studentRepository.getAtRiskStudents(threshold);
+        return copies(cache.get(ReadCache.Region.REPORT, Arrays.asList("atRisk", threshold),
+                () -> List.copyOf(studentStore.getAtRiskStudents(threshold))));
     }
 
     public List<ProgrammeSummary> getProgrammeSummaryReport() throws SQLException {
-        return studentRepository.getProgrammeSummary();
+        return cache.get(ReadCache.Region.REPORT, "programmeSummary",
+                () -> List.copyOf(studentStore.getProgrammeSummary()));
+    }
+
+    // Recompute the report summary tables from the students table, then drop the reports cached from them
+    public void rebuildReportStats() throws SQLException {
+        try {
+            studentStore.rebuildReportStats();
+        } finally {
+            cache.invalidate(ReadCache.Region.REPORT);
+        }
+    }
+
+    // Rebuild the full-text search index, then drop the searches cached from it and the
+    // search-as-you-type index, which loads again on next use
+    public void rebuildSearchIndex() throws SQLException {
+        try {
+            studentStore.rebuildSearchIndex();
+        } finally {
+            cache.invalidate(ReadCache.Region.QUERY);
+            prefixIndex.clear();
+        }
+    }
+
+    // Differences between the report summary tables and a live GROUP BY, empty when consistent
+    public List<String> checkReportStats() throws SQLException {
+        return studentStore.checkReportStats();
+    }
+
+    // p10, p25, median, p75 and p90 GPA of every student, then per programme and per level
+    public List<GpaPercentileSummary> getGpaPercentileReport() throws SQLException {
+        return cache.get(ReadCache.Region.REPORT, "gpaPercentiles", this::computeGpaPercentiles);
+    }
+
+    // One streaming pass over the programme, level and GPA columns feeding a GpaQuantileSketch per
+    // programme and per level, no copy of the table is kept or sorted. The overall row is the
+    // programme sketches merged.
+    private List<GpaPercentileSummary> computeGpaPercentiles() throws SQLException {
+
+        Map<String, GpaQuantileSketch> byProgramme = new TreeMap<>();
+        Map<Integer, GpaQuantileSketch> byLevel = new TreeMap<>();
+
+        try (Stream<GpaSample> samples = studentStore.streamGpaSamples(StudentRepository.DEFAULT_FETCH_SIZE)) {
+            samples.forEach(sample -> {
+                byProgramme.computeIfAbsent(sample.getProgramme(), key -> new GpaQuantileSketch()).add(sample.getGpa());
+                byLevel.computeIfAbsent(sample.getLevel(), key -> new GpaQuantileSketch()).add(sample.getGpa());
+            });
+        }
+
+        GpaQuantileSketch all = new GpaQuantileSketch();
+        byProgramme.values().forEach(all::merge);
+
+        List<GpaPercentileSummary> results = new ArrayList<>();
+
+        if (all.count() > 0) {
+            results.add(percentiles("All", "All students", all));
+        }
+
+        byProgramme.forEach((programme, sketch) -> results.add(percentiles("Programme", programme, sketch)));
+        byLevel.forEach((level, sketch) -> results.add(percentiles("Level", String.valueOf(level), sketch)));
+
+        return List.copyOf(results);
+    }
+
+    private static GpaPercentileSummary percentiles(String grouping, String group, GpaQuantileSketch sketch) {
+        return new GpaPercentileSummary(grouping, group, (int) sketch.count(),
+                sketch.quantile(0.10), sketch.quantile(0.25), sketch.quantile(0.50),
+                sketch.quantile(0.75), sketch.quantile(0.90));
+    }
+
+
+    // A failing listener is logged and skipped, the write already committed
+    private void fireChange(StudentChange change) {
+
+        for (StudentChangeListener listener : listeners) {
+            try {
+                listener.studentChanged(change);
+            } catch (RuntimeException e) {
+                logger.warn("Student change listener failed", e);
+            }
+        }
+    }
+
+    // Any write can change listings, reports and the programme list.
+    // By-ID lookups of other students stay cached.
+    private void invalidateAfterWrite(List<String> studentIds) {
+
+        for (String id : studentIds) {
+            cache.invalidate(ReadCache.Region.STUDENT, id);
+        }
+
+        cache.invalidate(ReadCache.Region.PROGRAMMES, ReadCache.Region.REPORT, ReadCache.Region.QUERY);
+
+        DataVersion.localWrite();
+    }
+
+    // Student is mutable and cached lists are shared, so every caller gets its own copies.
+    // A caller editing a result can then never change what other views read from the cache.
+    private static List<Student> copies(List<Student> students) {
+        return students.stream().map(Student::new).toList();
+    }
+
+    // StudentQuery is mutable, so the cache key is a snapshot of its criteria
+    private List<Object> queryKey(String kind, StudentQuery query) {
+        return Arrays.asList(kind, query.getProgramme(), query.getLevel(), query.getStatus(),
+                query.getMinGpa(), query.getMaxGpa(), query.getText(), List.copyOf(query.getSorts()), query.getLimit(), query.getOffset(),
+                query.getCursorSortValue(), query.getCursorStudentId(), query.isCursorBefore());
     }
 }
\ No newline at end of file
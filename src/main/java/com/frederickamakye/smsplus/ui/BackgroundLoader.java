@@ -0,0 +1,157 @@
+/*
+ * BackgroundLoader runs database calls for a view as javafx.concurrent.Tasks on the shared
+ * AsyncStudentService, so the FX Application Thread never waits on JDBC and the views' loads count
+ * against the same limit on concurrent database calls as every other call.
+ * - Starting a load cancels the one still in flight, a slow old result never replaces a newer one
+ * - Results and errors are delivered on the FX Application Thread
+ * - loadingProperty() is true while a load runs, views bind their progress indicators to it
+ * - Each load remembers the DataVersion it read, reloadIfChanged() skips the reload when nothing was written since
+ * Every method must be called on the FX Application Thread.
+*/
+
+package com.frederickamakye.smsplus.ui;
+
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+import com.frederickamakye.smsplus.services.AsyncStudentService;
+import com.frederickamakye.smsplus.services.DataVersion;
+
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.concurrent.Task;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class BackgroundLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackgroundLoader.class);
+
+    private final ReadOnlyBooleanWrapper loading = new ReadOnlyBooleanWrapper(false);
+
+    private Task<?> current;
+
+    // version of the data the last successful load read, null before the first one
+    private DataVersion.Stamp loadedVersion;
+
+    // Run the call in the background, then hand its result or error to the FX thread
+    public <T> void load(Callable<T> call, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+
+        cancel();
+
+        Task<Loaded<T>> task = new Task<>() {
+            @Override
+            protected Loaded<T> call() throws Exception {
+                // read before the call, so a write that lands during it makes the next check reload
+                DataVersion.Stamp version = readVersion();
+                return new Loaded<>(version, call.call());
+            }
+        };
+
+        // a superseded task is cancelled, but check anyway so only the latest one reports back
+        task.setOnSucceeded(e -> {
+            if (finish(task)) {
+                loadedVersion = task.getValue().version();
+                onSuccess.accept(task.getValue().value());
+            }
+        });
+
+        task.setOnFailed(e -> {
+            if (finish(task)) {
+                logger.warn("Background load failed", task.getException());
+                onFailure.accept(task.getException());
+            }
+        });
+
+        current = task;
+        loading.set(true);
+
+        AsyncStudentService.shared().execute(task);
+    }
+
+    // Run reload only if the data changed since the last load: a counter and one PRAGMA instead of
+    // the load's queries. Nothing happens while a load is in flight, it is reading the latest data.
+    public void reloadIfChanged(Runnable reload) {
+
+        if (current != null) {
+            return;
+        }
+
+        DataVersion.Stamp known = loadedVersion;
+
+        if (known == null) {
+            reload.run();
+            return;
+        }
+
+        Task<DataVersion.Stamp> check = new Task<>() {
+            @Override
+            protected DataVersion.Stamp call() throws Exception {
+                return DataVersion.current();
+            }
+        };
+
+        check.setOnSucceeded(e -> {
+            if (finish(check) && !known.equals(check.getValue())) {
+                reload.run();
+            }
+        });
+
+        // the version could not be read, load as if it changed
+        check.setOnFailed(e -> {
+            if (finish(check)) {
+                reload.run();
+            }
+        });
+
+        current = check;
+        loading.set(true);
+
+        AsyncStudentService.shared().execute(check);
+    }
+
+    // Cancel the load in flight, if any. Its result is discarded.
+    public void cancel() {
+
+        if (current != null) {
+            current.cancel(true);
+            current = null;
+            loading.set(false);
+        }
+    }
+
+    public ReadOnlyBooleanProperty loadingProperty() {
+        return loading.getReadOnlyProperty();
+    }
+
+    public boolean isLoading() {
+        return loading.get();
+    }
+
+    private static DataVersion.Stamp readVersion() {
+
+        try {
+            return DataVersion.current();
+        } catch (SQLException e) {
+            // unknown version, the next reloadIfChanged() reloads
+            logger.debug("Failed to read data version", e);
+            return null;
+        }
+    }
+
+    private boolean finish(Task<?> task) {
+
+        if (current != task) {
+            return false;
+        }
+
+        current = null;
+        loading.set(false);
+        return true;
+    }
+
+    private record Loaded<T>(DataVersion.Stamp version, T value) {
+    }
+}
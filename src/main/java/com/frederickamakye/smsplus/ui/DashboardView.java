@@ -1,8 +1,10 @@
 package com.frederickamakye.smsplus.ui;
 
+import com.frederickamakye.smsplus.models.DashboardStats;
 import com.frederickamakye.smsplus.services.StudentService;
 
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 
@@ -15,6 +17,8 @@ public class DashboardView extends VBox {
     private final Label inactiveStudentsLabel;
     private final Label averageGpaLabel;
 
+    private final BackgroundLoader statsLoader = new BackgroundLoader();
+
     public DashboardView() {
 
         studentService = new StudentService();
@@ -22,6 +26,10 @@ public class DashboardView extends VBox {
         Label header = new Label("Summary");
         header.setStyle("-fx-font-size: 22px; -fx-font-weight: bold;");
 
+        ProgressIndicator loadingIndicator = new ProgressIndicator();
+        loadingIndicator.setMaxSize(22, 22);
+        loadingIndicator.visibleProperty().bind(statsLoader.loadingProperty());
+
         totalStudentsLabel = new Label();
         activeStudentsLabel = new Label();
         inactiveStudentsLabel = new Label();
@@ -55,38 +63,30 @@ public class DashboardView extends VBox {
         setSpacing(20);
         setStyle("-fx-padding: 20;");
 
-        getChildren().addAll(header, row1, row2);
+        getChildren().addAll(new HBox(10, header, loadingIndicator), row1, row2);
 
         refreshStats();
     }
 
     private void refreshStats() {
-        try {
-
-            int total = studentService.getAllStudents().size();
-
-            int active = studentService.filterByStatus("Active").size();
-            int inactive = studentService.filterByStatus("Inactive").size();
 
-            double averageGpa = studentService.getAllStudents()
-                    .stream()
-                    .mapToDouble(s -> s.getGpa())
-                    .average()
-                    .orElse(0.0);
-
-            totalStudentsLabel.setText(String.valueOf(total));
-            activeStudentsLabel.setText(String.valueOf(active));
-            inactiveStudentsLabel.setText(String.valueOf(inactive));
-            averageGpaLabel.setText(String.format("%.2f", averageGpa));
+        statsLoader.load(
+                studentService::getDashboardStats,
+                this::showStats,
+                error -> totalStudentsLabel.setText("Failed to load statistics"));
+    }
 
-        } catch (Exception e) {
+    private void showStats(DashboardStats stats) {
 
-            totalStudentsLabel.setText("Failed to load statistics");
-        }
+        totalStudentsLabel.setText(String.valueOf(stats.getTotalStudents()));
+        activeStudentsLabel.setText(String.valueOf(stats.getActiveStudents()));
+        inactiveStudentsLabel.setText(String.valueOf(stats.getInactiveStudents()));
+        averageGpaLabel.setText(String.format("%.2f", stats.getAverageGpa()));
     }
 
+    // Tab switches reload only when the data changed since the stats were read
     public void refresh() {
-        refreshStats();
+        statsLoader.reloadIfChanged(this::refreshStats);
     }
 
     private VBox createCard(String title, Label valueLabel) {
@@ -1,14 +1,17 @@
 package com.frederickamakye.smsplus.ui;
 
 import java.io.File;
+import java.util.stream.Collectors;
 
-import com.frederickamakye.smsplus.models.ImportResult;
+import com.frederickamakye.smsplus.models.ImportMode;
 import com.frederickamakye.smsplus.services.StudentService;
 import com.frederickamakye.smsplus.utils.CsvHandler;
 
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.Separator;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
@@ -19,6 +22,10 @@ public class ImportExportView extends VBox {
 
     private final Label successLabel;
     private final Label errorLabel;
+    private final CheckBox updateExistingBox;
+
+    // one import or export at a time, the buttons stay disabled while it runs
+    private final BackgroundLoader fileLoader = new BackgroundLoader();
 
     public ImportExportView() {
 
@@ -31,11 +38,15 @@ public class ImportExportView extends VBox {
 
         Button importBtn = new Button("Import CSV");
 
+        // re-importing a corrected file updates existing students instead of rejecting them
+        updateExistingBox = new CheckBox("Update existing students");
+
         successLabel = new Label("Success: 0");
         errorLabel = new Label("Errors: 0");
 
         VBox importSection = new VBox(5,
                 importBtn,
+                updateExistingBox,
                 successLabel,
                 errorLabel
         );
@@ -52,6 +63,13 @@ public class ImportExportView extends VBox {
                 exportBtn
         );
 
+        ProgressIndicator loadingIndicator = new ProgressIndicator();
+        loadingIndicator.setMaxSize(22, 22);
+        loadingIndicator.visibleProperty().bind(fileLoader.loadingProperty());
+
+        importBtn.disableProperty().bind(fileLoader.loadingProperty());
+        exportBtn.disableProperty().bind(fileLoader.loadingProperty());
+
         setSpacing(15);
         setStyle("-fx-padding: 20;");
 
@@ -59,7 +77,8 @@ public class ImportExportView extends VBox {
                 header,
                 importSection,
                 new Separator(),
-                exportSection
+                exportSection,
+                loadingIndicator
         );
 
         // ================= EVENTS =================
@@ -84,19 +103,26 @@ public class ImportExportView extends VBox {
         if (file == null)
             return;
 
-        try {
-
-            ImportResult result = CsvHandler.importStudents(file.getAbsolutePath(), studentService);
-
-            successLabel.setText("Success: " + result.getSuccessCount());
-            errorLabel.setText("Errors: " + result.getErrorCount());
-
-            showSuccess("Import completed");
-
-        } catch (Exception e) {
-
-            showError("Import failed: " + e.getMessage());
-        }
+        ImportMode mode = updateExistingBox.isSelected() ? ImportMode.UPSERT : ImportMode.INSERT;
+
+        fileLoader.load(
+                () -> CsvHandler.importStudents(file.getAbsolutePath(), studentService, mode),
+                result -> {
+                    successLabel.setText("Success: %d (inserted %d, updated %d, unchanged %d)".formatted(
+                            result.getSuccessCount(),
+                            result.getInsertedCount(),
+                            result.getUpdatedCount(),
+                            result.getUnchangedCount()));
+                    errorLabel.setText("Errors: " + result.getErrorCount());
+
+                    // per stage rates show whether parsing, validation or the database held the import back
+                    showSuccess("Import completed at %.0f rows/s\n%s".formatted(
+                            result.getRowsPerSecond(),
+                            result.getStageStats().stream()
+                                    .map(Object::toString)
+                                    .collect(Collectors.joining("\n"))));
+                },
+                error -> showError("Import failed: " + error.getMessage()));
     }
 
     // ================= EXPORT LOGIC =================
@@ -123,19 +149,10 @@ public class ImportExportView extends VBox {
             return;
         }
 
-        try {
-
-            CsvHandler.exportStudents(
-                    studentService.getAllStudents(),
-                    file.getAbsolutePath()
-            );
-
-            showSuccess("Export completed successfully");
-
-        } catch (Exception e) {
-
-            showError("Export failed: " + e.getMessage());
-        }
+        fileLoader.load(
+                () -> CsvHandler.exportStudents(studentService, file.getAbsolutePath()),
+                count -> showSuccess("Export completed successfully"),
+                error -> showError("Export failed: " + error.getMessage()));
     }
     // ================= DIALOG HELPERS =================
 
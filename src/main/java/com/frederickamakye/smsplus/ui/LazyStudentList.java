@@ -0,0 +1,323 @@
+/*
+ * LazyStudentList is the items list of the students table for listings of any size.
+ * - size() is the total row count, known up front, so the scroll bar covers the whole listing
+ * - Rows are fetched in fixed-size pages when the TableView asks for them, a row not loaded yet is null
+ *   and its cell fills in when the page arrives
+ * - A page next to a loaded one seeks from that page's edge row (keyset cursor), so scrolling deep into
+ *   a large listing costs the same as the first page. Only a jump far away, or a text search ranked by
+ *   relevance, skips rows with an offset
+ * - At most maxPages pages stay in memory, the least recently used page is dropped first
+ * - The page after (or before) the one being read is fetched ahead, in the direction of the scroll
+ * The list is read-only for callers. A new query means a new list, a single write is patched in:
+ * replace() swaps a loaded row in place, rowsChanged() moves the row count and drops the loaded pages
+ * from the changed position on.
+ * Every method must be called on the FX Application Thread.
+*/
+
+package com.frederickamakye.smsplus.ui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import com.frederickamakye.smsplus.models.StudentQuery;
+import com.frederickamakye.smsplus.models.StudentRow;
+import com.frederickamakye.smsplus.services.AsyncStudentService;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class LazyStudentList extends ObservableListBase<StudentRow> {
+
+    private static final Logger logger = LoggerFactory.getLogger(LazyStudentList.class);
+
+    // Rows per fetch and pages kept in memory. Override with -Dui.pageSize and -Dui.maxPages
+    public static final int DEFAULT_PAGE_SIZE = Integer.getInteger("ui.pageSize", 100);
+    public static final int DEFAULT_MAX_PAGES = Integer.getInteger("ui.maxPages", 20);
+
+    private final AsyncStudentService studentService;
+    private final StudentQuery query;
+    private final int pageSize;
+    private final int maxPages;
+
+    // runs page arrivals on the FX Application Thread
+    private final Executor fxThread;
+
+    // order of the listing by its sort key and student_id, null for text searches ranked by relevance
+    private final Comparator<StudentRow> rowOrder;
+
+    // access order, so the eldest entry is the least recently read page
+    private final LinkedHashMap<Integer, List<StudentRow>> pages;
+    private final Set<Integer> pending = new HashSet<>();
+
+    // rows of the listing as counted by the store, size() caps it at the query limit
+    private int totalRows;
+
+    // bumped when loaded pages are dropped, so fetches started before are not applied
+    private int generation;
+
+    private int lastPage = -1;
+    private boolean disposed;
+
+    // totalRows comes from StudentService.countStudents for the same query. firstPage, when given,
+    // is shown right away instead of starting with an empty table.
+    public LazyStudentList(AsyncStudentService studentService, StudentQuery query, int totalRows,
+                           List<StudentRow> firstPage, int pageSize, int maxPages) {
+        this(studentService, query, totalRows, firstPage, pageSize, maxPages, Platform::runLater);
+    }
+
+    // Tests run without the FX toolkit and apply page arrivals themselves
+    LazyStudentList(AsyncStudentService studentService, StudentQuery query, int totalRows,
+                    List<StudentRow> firstPage, int pageSize, int maxPages, Executor fxThread) {
+
+        if (pageSize <= 0 || maxPages <= 0) {
+            throw new IllegalArgumentException("Page size and page count must be greater than 0");
+        }
+
+        this.studentService = studentService;
+        this.query = keyOrdered(query);
+        this.rowOrder = isKeyOrdered(this.query) ? rowOrder(this.query.getSorts().get(0)) : null;
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.fxThread = fxThread;
+
+        this.totalRows = totalRows;
+
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<StudentRow>> eldest) {
+                return size() > LazyStudentList.this.maxPages;
+            }
+        };
+
+        if (firstPage != null) {
+            pages.put(0, List.copyOf(firstPage));
+        }
+    }
+
+    public LazyStudentList(AsyncStudentService studentService, StudentQuery query, int totalRows, List<StudentRow> firstPage) {
+        this(studentService, query, totalRows, firstPage, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+
+    // The query with its row order made explicit (student_id when it has no sort key), so pages can
+    // seek from a neighbour in both stores. The first page passed to the constructor must come from it.
+    public static StudentQuery keyOrdered(StudentQuery query) {
+
+        StudentQuery ordered = new StudentQuery(query);
+
+        if (ordered.getText() == null && ordered.getSorts().isEmpty()) {
+            ordered.orderBy(StudentQuery.SortField.STUDENT_ID, false);
+        }
+
+        return ordered;
+    }
+
+    private static boolean isKeyOrdered(StudentQuery query) {
+        return query.getText() == null && query.getSorts().size() == 1;
+    }
+
+    // The row, or null while its page is loading
+    @Override
+    public StudentRow get(int index) {
+
+        int size = size();
+
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+
+        int page = index / pageSize;
+        List<StudentRow> rows = pages.get(page);
+
+        if (rows == null) {
+            fetch(page);
+        }
+
+        // read ahead in the scroll direction
+        if (page != lastPage) {
+            fetch(page > lastPage ? page + 1 : page - 1);
+            lastPage = page;
+        }
+
+        int offset = index - page * pageSize;
+
+        return rows == null || offset >= rows.size() ? null : rows.get(offset);
+    }
+
+    // a limited query (text search) never lists more than its limit
+    @Override
+    public int size() {
+        return query.getLimit() > 0 ? Math.min(totalRows, query.getLimit()) : totalRows;
+    }
+
+    // Swap a row in place if its page is loaded. Returns false when the row is not in memory.
+    public boolean replace(StudentRow row) {
+
+        for (Map.Entry<Integer, List<StudentRow>> page : pages.entrySet()) {
+            List<StudentRow> rows = page.getValue();
+
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i).getStudentId().equals(row.getStudentId())) {
+                    List<StudentRow> patched = new ArrayList<>(rows);
+                    StudentRow old = patched.set(i, row);
+                    page.setValue(List.copyOf(patched));
+
+                    beginChange();
+                    nextSet(page.getKey() * pageSize + i, old);
+                    endChange();
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    // A row left the listing (previous), entered it (current) or moved within it (both).
+    // Full pages that end before the change keep their rows and positions. The pages from the change
+    // on are dropped, the table reads the ones it shows again, seeking from the kept page before them.
+    // Text searches have no key order to place the change by and drop every page.
+    public void rowsChanged(StudentRow previous, StudentRow current) {
+
+        int oldSize = size();
+
+        totalRows = Math.max(0, totalRows + (current != null ? 1 : 0) - (previous != null ? 1 : 0));
+
+        // first row of the listing the change can move
+        int from = 0;
+        StudentRow changed = previous == null ? current
+                : current == null || rowOrder == null || rowOrder.compare(previous, current) < 0 ? previous : current;
+
+        for (Iterator<Map.Entry<Integer, List<StudentRow>>> it = pages.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, List<StudentRow>> page = it.next();
+            List<StudentRow> rows = page.getValue();
+
+            if (rowOrder != null && changed != null && rows.size() == pageSize
+                    && rowOrder.compare(rows.get(pageSize - 1), changed) < 0) {
+                from = Math.max(from, (page.getKey() + 1) * pageSize);
+            } else {
+                it.remove();
+            }
+        }
+
+        // fetches in flight may belong to the dropped pages
+        pending.clear();
+        generation++;
+
+        from = Math.min(from, Math.min(oldSize, size()));
+
+        beginChange();
+        nextReplace(from, size(), Collections.nCopies(oldSize - from, null));
+        endChange();
+    }
+
+    public StudentQuery getQuery() {
+        return new StudentQuery(query);
+    }
+
+    public int getLoadedPageCount() {
+        return pages.size();
+    }
+
+    // Stop applying pages that arrive after the list was replaced
+    public void dispose() {
+        disposed = true;
+        pages.clear();
+    }
+
+
+    private void fetch(int page) {
+
+        int size = size();
+
+        if (page < 0 || page * pageSize >= size || pages.containsKey(page) || !pending.add(page) || disposed) {
+            return;
+        }
+
+        StudentQuery pageQuery = new StudentQuery(query).limit(Math.min(pageSize, size - page * pageSize));
+
+        List<StudentRow> previousPage = rowOrder == null ? null : pages.get(page - 1);
+        List<StudentRow> nextPage = rowOrder == null ? null : pages.get(page + 1);
+
+        // seek from a loaded neighbour, skip rows only for a jump
+        if (previousPage != null && previousPage.size() == pageSize) {
+            StudentRow last = previousPage.get(pageSize - 1);
+            pageQuery.after(sortValue(last), last.getStudentId());
+        } else if (nextPage != null && !nextPage.isEmpty()) {
+            StudentRow first = nextPage.get(0);
+            pageQuery.before(sortValue(first), first.getStudentId());
+        } else {
+            pageQuery.offset(page * pageSize);
+        }
+
+        int fetchGeneration = generation;
+
+        studentService.findStudentRows(pageQuery).whenComplete((rows, error) -> fxThread.execute(() -> {
+
+            // pages were dropped after this fetch started, its rows may be out of date
+            if (disposed || fetchGeneration != generation) {
+                return;
+            }
+
+            pending.remove(page);
+
+            if (error != null) {
+                logger.warn("Failed to load students page {}", page, error);
+                return;
+            }
+
+            pages.put(page, List.copyOf(rows));
+            fireLoaded(page, rows.size());
+        }));
+    }
+
+    private Object sortValue(StudentRow row) {
+        return switch (query.getSorts().get(0).field()) {
+            case GPA -> row.getGpa();
+            case FULL_NAME -> row.getFullName();
+            case LEVEL -> row.getLevel();
+            case STUDENT_ID -> row.getStudentId();
+        };
+    }
+
+    // Same order as StudentRepository.find: the sort key, then student_id in the same direction
+    private static Comparator<StudentRow> rowOrder(StudentQuery.Sort sort) {
+
+        Comparator<StudentRow> key = switch (sort.field()) {
+            case GPA -> Comparator.comparingDouble(StudentRow::getGpa);
+            case FULL_NAME -> Comparator.comparing(StudentRow::getFullName, String.CASE_INSENSITIVE_ORDER);
+            case LEVEL -> Comparator.comparingInt(StudentRow::getLevel);
+            case STUDENT_ID -> Comparator.comparing(StudentRow::getStudentId);
+        };
+
+        Comparator<StudentRow> order = key.thenComparing(StudentRow::getStudentId);
+
+        return sort.descending() ? order.reversed() : order;
+    }
+
+    // Tell the table the placeholder rows of the page were replaced by real ones
+    private void fireLoaded(int page, int count) {
+
+        int from = page * pageSize;
+        int to = Math.min(from + count, size());
+
+        if (from >= to) {
+            return;
+        }
+
+        beginChange();
+        nextReplace(from, to, Collections.nCopies(to - from, null));
+        endChange();
+    }
+}
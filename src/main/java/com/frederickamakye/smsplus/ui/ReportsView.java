@@ -1,9 +1,13 @@
 package com.frederickamakye.smsplus.ui;
 
-import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
 
 import com.frederickamakye.smsplus.models.GpaBandSummary;
+import com.frederickamakye.smsplus.models.GpaHistogramBand;
+import com.frederickamakye.smsplus.models.GpaPercentileSummary;
 import com.frederickamakye.smsplus.models.ProgrammeSummary;
 import com.frederickamakye.smsplus.models.Student;
 import com.frederickamakye.smsplus.services.StudentService;
@@ -31,9 +35,15 @@ public class ReportsView extends BorderPane {
     private final ComboBox<String> programmeFilter;
     private final ComboBox<Integer> levelFilter;
     private final Spinner<Double> thresholdSpinner;
+    private final TextField cutPointsField;
+    private final CheckBox perProgrammeBox;
 
     private final VBox filtersContainer;
 
+    // switching report or filter supersedes the report still loading
+    private final BackgroundLoader reportLoader = new BackgroundLoader();
+    private final BackgroundLoader programmeLoader = new BackgroundLoader();
+
     public ReportsView() {
 
         studentService = new StudentService();
@@ -50,14 +60,21 @@ public class ReportsView extends BorderPane {
                 "Top Performers",
                 "At Risk Students",
                 "GPA Distribution",
+                "GPA Percentiles",
+                "GPA Histogram",
                 "Programme Summary"
         );
         reportSelector.setPromptText("Select Report");
 
+        ProgressIndicator loadingIndicator = new ProgressIndicator();
+        loadingIndicator.setMaxSize(22, 22);
+        loadingIndicator.visibleProperty().bind(reportLoader.loadingProperty());
+
         HBox controlsBar = new HBox(10);
         controlsBar.getChildren().addAll(
                 new Label("Report Type:"),
-                reportSelector
+                reportSelector,
+                loadingIndicator
         );
 
         controlsBar.setStyle(
@@ -77,6 +94,13 @@ public class ReportsView extends BorderPane {
         thresholdSpinner = new Spinner<>(0.0, 4.0, 2.0, 0.1);
         thresholdSpinner.setEditable(true);
 
+        cutPointsField = new TextField(StudentService.DEFAULT_GPA_CUT_POINTS.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(", ")));
+        cutPointsField.setPromptText("e.g. 2.0, 3.0, 3.7");
+
+        perProgrammeBox = new CheckBox("Per programme");
+
         filtersContainer = new VBox(10);
         filtersContainer.setStyle("-fx-padding: 0 10 10 10;");
 
@@ -117,6 +141,8 @@ public class ReportsView extends BorderPane {
         programmeFilter.setOnAction(e -> updateReport());
         levelFilter.setOnAction(e -> updateReport());
         thresholdSpinner.valueProperty().addListener((obs, o, n) -> updateReport());
+        cutPointsField.setOnAction(e -> updateReport());
+        perProgrammeBox.setOnAction(e -> updateReport());
 
         loadProgrammes();
     }
@@ -133,136 +159,216 @@ public class ReportsView extends BorderPane {
 
         filtersContainer.getChildren().clear();
         resultsTable.getColumns().clear();
+        resultsTable.getItems().clear();
 
-        try {
+        // filter values are read here, the report itself loads off the FX thread
+        Callable<List<?>> report;
 
-            if (selectedReport.equals("Top Performers")) {
+        if (selectedReport.equals("Top Performers")) {
 
-                filtersContainer.getChildren().add(
-                        new HBox(10, programmeFilter, levelFilter)
-                );
+            filtersContainer.getChildren().add(
+                    new HBox(10, programmeFilter, levelFilter)
+            );
 
-                TableColumn<Object, String> idCol = new TableColumn<>("Student ID");
-                idCol.setCellValueFactory(new PropertyValueFactory<>("studentId"));
+            TableColumn<Object, String> idCol = new TableColumn<>("Student ID");
+            idCol.setCellValueFactory(new PropertyValueFactory<>("studentId"));
 
-                TableColumn<Object, String> nameCol = new TableColumn<>("Full Name");
-                nameCol.setCellValueFactory(new PropertyValueFactory<>("fullName"));
+            TableColumn<Object, String> nameCol = new TableColumn<>("Full Name");
+            nameCol.setCellValueFactory(new PropertyValueFactory<>("fullName"));
 
-                TableColumn<Object, String> programmeCol = new TableColumn<>("Programme");
-                programmeCol.setCellValueFactory(new PropertyValueFactory<>("programme"));
+            TableColumn<Object, String> programmeCol = new TableColumn<>("Programme");
+            programmeCol.setCellValueFactory(new PropertyValueFactory<>("programme"));
 
-                TableColumn<Object, Integer> levelCol = new TableColumn<>("Level");
-                levelCol.setCellValueFactory(new PropertyValueFactory<>("level"));
+            TableColumn<Object, Integer> levelCol = new TableColumn<>("Level");
+            levelCol.setCellValueFactory(new PropertyValueFactory<>("level"));
 
-                TableColumn<Object, Double> gpaCol = new TableColumn<>("GPA");
-                gpaCol.setCellValueFactory(new PropertyValueFactory<>("gpa"));
+            TableColumn<Object, Double> gpaCol = new TableColumn<>("GPA");
+            gpaCol.setCellValueFactory(new PropertyValueFactory<>("gpa"));
 
-                resultsTable.getColumns().addAll(
-                        idCol,
-                        nameCol,
-                        programmeCol,
-                        levelCol,
-                        gpaCol
-                );
+            resultsTable.getColumns().addAll(
+                    idCol,
+                    nameCol,
+                    programmeCol,
+                    levelCol,
+                    gpaCol
+            );
 
-                List<Student> results = studentService.getTopPerformersReport(
-                        programmeFilter.getValue(),
-                        levelFilter.getValue()
-                );
+            String programme = programmeFilter.getValue();
+            Integer level = levelFilter.getValue();
 
-                resultsTable.setItems(FXCollections.observableArrayList(results));
-            }
+            report = () -> studentService.getTopPerformersReport(programme, level);
+        }
 
-            else if (selectedReport.equals("At Risk Students")) {
+        else if (selectedReport.equals("At Risk Students")) {
 
-                filtersContainer.getChildren().add(
-                        new HBox(10, new Label("GPA Threshold:"), thresholdSpinner)
-                );
+            filtersContainer.getChildren().add(
+                    new HBox(10, new Label("GPA Threshold:"), thresholdSpinner)
+            );
 
-                TableColumn<Object, String> idCol = new TableColumn<>("Student ID");
-                idCol.setCellValueFactory(new PropertyValueFactory<>("studentId"));
+            TableColumn<Object, String> idCol = new TableColumn<>("Student ID");
+            idCol.setCellValueFactory(new PropertyValueFactory<>("studentId"));
 
-                TableColumn<Object, String> nameCol = new TableColumn<>("Full Name");
-                nameCol.setCellValueFactory(new PropertyValueFactory<>("fullName"));
+            TableColumn<Object, String> nameCol = new TableColumn<>("Full Name");
+            nameCol.setCellValueFactory(new PropertyValueFactory<>("fullName"));
 
-                TableColumn<Object, String> programmeCol = new TableColumn<>("Programme");
-                programmeCol.setCellValueFactory(new PropertyValueFactory<>("programme"));
+            TableColumn<Object, String> programmeCol = new TableColumn<>("Programme");
+            programmeCol.setCellValueFactory(new PropertyValueFactory<>("programme"));
 
-                TableColumn<Object, Integer> levelCol = new TableColumn<>("Level");
-                levelCol.setCellValueFactory(new PropertyValueFactory<>("level"));
+            TableColumn<Object, Integer> levelCol = new TableColumn<>("Level");
+            levelCol.setCellValueFactory(new PropertyValueFactory<>("level"));
 
-                TableColumn<Object, Double> gpaCol = new TableColumn<>("GPA");
-                gpaCol.setCellValueFactory(new PropertyValueFactory<>("gpa"));
+            TableColumn<Object, Double> gpaCol = new TableColumn<>("GPA");
+            gpaCol.setCellValueFactory(new PropertyValueFactory<>("gpa"));
 
-                resultsTable.getColumns().addAll(
-                        idCol,
-                        nameCol,
-                        programmeCol,
-                        levelCol,
-                        gpaCol
-                );
+            resultsTable.getColumns().addAll(
+                    idCol,
+                    nameCol,
+                    programmeCol,
+                    levelCol,
+                    gpaCol
+            );
 
-                List<Student> results = studentService.getAtRiskStudentsReport(
-                        thresholdSpinner.getValue()
-                );
+            double threshold = thresholdSpinner.getValue();
 
-                resultsTable.setItems(FXCollections.observableArrayList(results));
-            }
+            report = () -> studentService.getAtRiskStudentsReport(threshold);
+        }
+
+        else if (selectedReport.equals("GPA Distribution")) {
+
+            TableColumn<Object, String> bandCol = new TableColumn<>("GPA Band");
+            bandCol.setCellValueFactory(new PropertyValueFactory<>("band"));
+
+            TableColumn<Object, Integer> totalCol = new TableColumn<>("Total Students");
+            totalCol.setCellValueFactory(new PropertyValueFactory<>("totalStudents"));
+
+            resultsTable.getColumns().addAll(bandCol, totalCol);
+
+            report = studentService::getGpaDistributionReport;
+        }
+
+        else if (selectedReport.equals("GPA Percentiles")) {
+
+            TableColumn<Object, String> groupingCol = new TableColumn<>("Grouping");
+            groupingCol.setCellValueFactory(new PropertyValueFactory<>("grouping"));
+
+            TableColumn<Object, String> groupCol = new TableColumn<>("Group");
+            groupCol.setCellValueFactory(new PropertyValueFactory<>("group"));
+
+            TableColumn<Object, Integer> totalCol = new TableColumn<>("Total Students");
+            totalCol.setCellValueFactory(new PropertyValueFactory<>("totalStudents"));
+
+            TableColumn<Object, Double> p10Col = new TableColumn<>("P10");
+            p10Col.setCellValueFactory(new PropertyValueFactory<>("p10"));
+
+            TableColumn<Object, Double> p25Col = new TableColumn<>("P25");
+            p25Col.setCellValueFactory(new PropertyValueFactory<>("p25"));
+
+            TableColumn<Object, Double> medianCol = new TableColumn<>("Median");
+            medianCol.setCellValueFactory(new PropertyValueFactory<>("median"));
+
+            TableColumn<Object, Double> p75Col = new TableColumn<>("P75");
+            p75Col.setCellValueFactory(new PropertyValueFactory<>("p75"));
+
+            TableColumn<Object, Double> p90Col = new TableColumn<>("P90");
+            p90Col.setCellValueFactory(new PropertyValueFactory<>("p90"));
 
-            else if (selectedReport.equals("GPA Distribution")) {
+            resultsTable.getColumns().addAll(groupingCol, groupCol, totalCol, p10Col, p25Col, medianCol, p75Col, p90Col);
 
-                TableColumn<Object, String> bandCol = new TableColumn<>("GPA Band");
-                bandCol.setCellValueFactory(new PropertyValueFactory<>("band"));
+            report = studentService::getGpaPercentileReport;
+        }
 
-                TableColumn<Object, Integer> totalCol = new TableColumn<>("Total Students");
-                totalCol.setCellValueFactory(new PropertyValueFactory<>("totalStudents"));
+        else if (selectedReport.equals("GPA Histogram")) {
 
-                resultsTable.getColumns().addAll(bandCol, totalCol);
+            filtersContainer.getChildren().add(
+                    new HBox(10, new Label("Band cut points:"), cutPointsField, perProgrammeBox)
+            );
 
-                List<GpaBandSummary> results = studentService.getGpaDistributionReport();
+            List<Double> cutPoints;
 
-                resultsTable.setItems(FXCollections.observableArrayList(results));
+            try {
+                cutPoints = parseCutPoints(cutPointsField.getText());
+            } catch (NumberFormatException e) {
+                showError("Cut points must be numbers separated by commas");
+                return;
             }
 
-            else if (selectedReport.equals("Programme Summary")) {
+            boolean perProgramme = perProgrammeBox.isSelected();
 
+            if (perProgramme) {
                 TableColumn<Object, String> programmeCol = new TableColumn<>("Programme");
                 programmeCol.setCellValueFactory(new PropertyValueFactory<>("programme"));
 
-                TableColumn<Object, Integer> totalCol = new TableColumn<>("Total Students");
-                totalCol.setCellValueFactory(new PropertyValueFactory<>("totalStudents"));
+                resultsTable.getColumns().add(programmeCol);
+            }
 
-                TableColumn<Object, Double> avgCol = new TableColumn<>("Average GPA");
-                avgCol.setCellValueFactory(new PropertyValueFactory<>("averageGpa"));
+            TableColumn<Object, String> bandCol = new TableColumn<>("GPA Band");
+            bandCol.setCellValueFactory(new PropertyValueFactory<>("band"));
 
-                resultsTable.getColumns().addAll(programmeCol, totalCol, avgCol);
+            TableColumn<Object, Integer> totalCol = new TableColumn<>("Total Students");
+            totalCol.setCellValueFactory(new PropertyValueFactory<>("totalStudents"));
 
-                List<ProgrammeSummary> results = studentService.getProgrammeSummaryReport();
+            TableColumn<Object, Double> avgCol = new TableColumn<>("Average GPA");
+            avgCol.setCellValueFactory(new PropertyValueFactory<>("averageGpa"));
 
-                resultsTable.setItems(FXCollections.observableArrayList(results));
-            }
+            TableColumn<Object, Double> minCol = new TableColumn<>("Min GPA");
+            minCol.setCellValueFactory(new PropertyValueFactory<>("minGpa"));
 
-        } catch (Exception e) {
+            TableColumn<Object, Double> maxCol = new TableColumn<>("Max GPA");
+            maxCol.setCellValueFactory(new PropertyValueFactory<>("maxGpa"));
+
+            resultsTable.getColumns().addAll(bandCol, totalCol, avgCol, minCol, maxCol);
 
-            showError(e.getMessage());
+            report = () -> studentService.getGpaHistogramReport(cutPoints, perProgramme);
         }
-    }
 
-    // ================= HELPERS =================
+        else if (selectedReport.equals("Programme Summary")) {
 
-    private void loadProgrammes() {
+            TableColumn<Object, String> programmeCol = new TableColumn<>("Programme");
+            programmeCol.setCellValueFactory(new PropertyValueFactory<>("programme"));
 
-        try {
+            TableColumn<Object, Integer> totalCol = new TableColumn<>("Total Students");
+            totalCol.setCellValueFactory(new PropertyValueFactory<>("totalStudents"));
 
-            List<String> programmes = studentService.getProgrammes();
+            TableColumn<Object, Double> avgCol = new TableColumn<>("Average GPA");
+            avgCol.setCellValueFactory(new PropertyValueFactory<>("averageGpa"));
 
-            programmeFilter.getItems().clear();
-            programmeFilter.getItems().addAll(programmes);
+            resultsTable.getColumns().addAll(programmeCol, totalCol, avgCol);
 
-        } catch (SQLException e) {
+            report = studentService::getProgrammeSummaryReport;
+        }
 
-            showError("Failed to load programmes");
+        else {
+            return;
         }
+
+        reportLoader.load(
+                report,
+                results -> resultsTable.setItems(FXCollections.observableArrayList(results)),
+                error -> showError(error.getMessage()));
+    }
+
+    // ================= HELPERS =================
+
+    // "2.0, 3.0, 3.7" -> [2.0, 3.0, 3.7], sorted and without duplicates
+    private static List<Double> parseCutPoints(String text) {
+        return Arrays.stream(text.split(","))
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .map(Double::valueOf)
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    private void loadProgrammes() {
+
+        programmeLoader.load(
+                studentService::getProgrammes,
+                programmes -> {
+                    programmeFilter.getItems().clear();
+                    programmeFilter.getItems().addAll(programmes);
+                },
+                error -> showError("Failed to load programmes"));
     }
 
     private void exportCurrentReport() {
@@ -308,6 +414,26 @@ public class ReportsView extends BorderPane {
                 );
             }
 
+            else if (firstItem instanceof GpaPercentileSummary) {
+
+                CsvHandler.exportGpaPercentiles(
+                        items.stream()
+                                .map(item -> (GpaPercentileSummary) item)
+                                .toList(),
+                        file.getAbsolutePath()
+                );
+            }
+
+            else if (firstItem instanceof GpaHistogramBand) {
+
+                CsvHandler.exportGpaHistogram(
+                        items.stream()
+                                .map(item -> (GpaHistogramBand) item)
+                                .toList(),
+                        file.getAbsolutePath()
+                );
+            }
+
             else if (firstItem instanceof ProgrammeSummary) {
 
                 CsvHandler.exportProgrammeSummary(
@@ -328,9 +454,10 @@ public class ReportsView extends BorderPane {
 
     public void refresh() {
         // use the threshold set in settings
+        // a new threshold reloads the report through the spinner listener
         thresholdSpinner.getValueFactory().setValue(SettingsView.getAtRiskThreshold());
 
-        updateReport();
+        reportLoader.reloadIfChanged(this::updateReport);
     }
 
     private void showError(String message) {
@@ -1,8 +1,11 @@
 package com.frederickamakye.smsplus.ui;
 
+import com.frederickamakye.smsplus.services.StudentService;
+
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.Separator;
 import javafx.scene.control.Spinner;
 import javafx.scene.layout.VBox;
 
@@ -13,6 +16,9 @@ public class SettingsView extends VBox {
 
     private final Spinner<Double> thresholdSpinner;
 
+    private final StudentService studentService = new StudentService();
+    private final BackgroundLoader maintenanceLoader = new BackgroundLoader();
+
     public SettingsView() {
 
         Label header = new Label("Settings");
@@ -25,6 +31,17 @@ public class SettingsView extends VBox {
 
         Button saveBtn = new Button("Save Settings");
 
+        Label maintenanceLabel = new Label("Maintenance");
+        maintenanceLabel.setStyle("-fx-font-weight: bold;");
+
+        // the report totals are kept by triggers, this recomputes them if they were ever edited by hand
+        Button rebuildBtn = new Button("Rebuild Report Totals");
+        rebuildBtn.disableProperty().bind(maintenanceLoader.loadingProperty());
+
+        // the search index is kept by triggers too, VACUUM may renumber the rowids it points at
+        Button rebuildSearchBtn = new Button("Rebuild Search Index");
+        rebuildSearchBtn.disableProperty().bind(maintenanceLoader.loadingProperty());
+
         setSpacing(10);
         setStyle("-fx-padding: 20;");
 
@@ -32,10 +49,16 @@ public class SettingsView extends VBox {
                 header,
                 thresholdLabel,
                 thresholdSpinner,
-                saveBtn
+                saveBtn,
+                new Separator(),
+                maintenanceLabel,
+                rebuildBtn,
+                rebuildSearchBtn
         );
 
         saveBtn.setOnAction(e -> saveSettings());
+        rebuildBtn.setOnAction(e -> rebuildReportStats());
+        rebuildSearchBtn.setOnAction(e -> rebuildSearchIndex());
     }
 
     private void saveSettings() {
@@ -47,6 +70,47 @@ public class SettingsView extends VBox {
         alert.show();
     }
 
+    private void rebuildReportStats() {
+
+        maintenanceLoader.load(
+                () -> {
+                    int differences = studentService.checkReportStats().size();
+                    studentService.rebuildReportStats();
+                    return differences;
+                },
+                differences -> {
+                    Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                    alert.setContentText(differences == 0
+                            ? "Report totals rebuilt, they were already up to date"
+                            : "Report totals rebuilt, " + differences + " group(s) were out of date");
+                    alert.show();
+                },
+                error -> {
+                    Alert alert = new Alert(Alert.AlertType.ERROR);
+                    alert.setContentText("Failed to rebuild report totals: " + error.getMessage());
+                    alert.show();
+                });
+    }
+
+    private void rebuildSearchIndex() {
+
+        maintenanceLoader.load(
+                () -> {
+                    studentService.rebuildSearchIndex();
+                    return null;
+                },
+                ignored -> {
+                    Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                    alert.setContentText("Search index rebuilt");
+                    alert.show();
+                },
+                error -> {
+                    Alert alert = new Alert(Alert.AlertType.ERROR);
+                    alert.setContentText("Failed to rebuild search index: " + error.getMessage());
+                    alert.show();
+                });
+    }
+
     public static double getAtRiskThreshold() {
         return atRiskThreshold;
     }
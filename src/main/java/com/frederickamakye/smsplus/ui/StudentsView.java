@@ -1,10 +1,19 @@
 package com.frederickamakye.smsplus.ui;
 
-import java.sql.SQLException;
+import java.util.Objects;
 
 import com.frederickamakye.smsplus.models.Student;
+import com.frederickamakye.smsplus.models.StudentChange;
+import com.frederickamakye.smsplus.models.StudentQuery;
+import com.frederickamakye.smsplus.models.StudentRow;
+import com.frederickamakye.smsplus.repository.StudentRepository;
+import com.frederickamakye.smsplus.services.AsyncStudentService;
+import com.frederickamakye.smsplus.services.StudentPrefixIndex;
 import com.frederickamakye.smsplus.services.StudentService;
+import com.frederickamakye.smsplus.utils.SearchText;
 
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.control.Alert;
@@ -12,54 +21,79 @@ import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
+import javafx.util.Duration;
 
 public class StudentsView extends BorderPane {
 
-    private final TableView<Student> studentsTable;
+    private final TableView<StudentRow> studentsTable;
     private final StudentService studentService;
 
+    private final TextField searchField;
+    private final ComboBox<String> programmeFilter;
+    private final ComboBox<Integer> levelFilter;
+    private final ComboBox<String> statusFilter;
+    private final ComboBox<String> sortField;
+    private final ComboBox<String> sortDirection;
+
+    // listings supersede each other, writes run one at a time with the buttons disabled
+    private final BackgroundLoader listLoader = new BackgroundLoader();
+    private final BackgroundLoader programmeLoader = new BackgroundLoader();
+    private final BackgroundLoader writeLoader = new BackgroundLoader();
+
+    // search runs once typing pauses for this long
+    private final PauseTransition searchDebounce = new PauseTransition(Duration.millis(200));
+
+    // criteria of the rows on screen, to decide whether a changed student belongs to them
+    private StudentQuery shownQuery = new StudentQuery();
+
     public StudentsView() {
 
         studentService = new StudentService();
 
         // ================= TOP SECTION =================
         HBox topControls = new HBox(10);
-        TextField searchField = new TextField();
+        searchField = new TextField();
         searchField.setPromptText("Search students...");
 
-        ComboBox<String> programmeFilter = new ComboBox<>();
+        programmeFilter = new ComboBox<>();
         programmeFilter.getItems().add("Programme");
-        try {
-            programmeFilter.getItems().addAll(studentService.getProgrammes());
-        } catch (SQLException e) {
-            showError("Failed to load programmes");
-        }
         programmeFilter.setPromptText("Programme");
 
-        ComboBox<Integer> levelFilter = new ComboBox<>();
+        programmeLoader.load(
+                studentService::getProgrammes,
+                programmes -> programmeFilter.getItems().addAll(programmes),
+                error -> showError("Failed to load programmes"));
+
+        levelFilter = new ComboBox<>();
         levelFilter.getItems().add(null);
         levelFilter.getItems().addAll(100, 200, 300, 400);
         levelFilter.setPromptText("Level");
 
-        ComboBox<String> statusFilter = new ComboBox<>();
+        statusFilter = new ComboBox<>();
         statusFilter.getItems().add("Status");
         statusFilter.getItems().addAll("Active", "Inactive");
         statusFilter.setPromptText("Status");
 
-        ComboBox<String> sortField = new ComboBox<>();
+        sortField = new ComboBox<>();
         sortField.getItems().addAll("GPA", "Full Name");
         sortField.setPromptText("Sort Field");
 
-        ComboBox<String> sortDirection = new ComboBox<>();
+        sortDirection = new ComboBox<>();
         sortDirection.getItems().addAll("Ascending", "Descending");
         sortDirection.setPromptText("Order");
 
+        // spins while the table or a write is loading
+        ProgressIndicator loadingIndicator = new ProgressIndicator();
+        loadingIndicator.setMaxSize(22, 22);
+        loadingIndicator.visibleProperty().bind(listLoader.loadingProperty().or(writeLoader.loadingProperty()));
+
 
         topControls.getChildren().addAll(
             searchField,
@@ -67,29 +101,30 @@ public class StudentsView extends BorderPane {
             levelFilter,
             statusFilter,
             sortField,
-            sortDirection
+            sortDirection,
+            loadingIndicator
         );
 
         // ================= TABLE =================
         studentsTable = new TableView<>();
         studentsTable.setPlaceholder(new Label("No student records found"));
 
-        TableColumn<Student, String> idColumn = new TableColumn<>("Student ID");
+        TableColumn<StudentRow, String> idColumn = new TableColumn<>("Student ID");
         idColumn.setCellValueFactory(new PropertyValueFactory<>("studentId"));
 
-        TableColumn<Student, String> nameColumn = new TableColumn<>("Full Name");
+        TableColumn<StudentRow, String> nameColumn = new TableColumn<>("Full Name");
         nameColumn.setCellValueFactory(new PropertyValueFactory<>("fullName"));
 
-        TableColumn<Student, String> programmeColumn = new TableColumn<>("Programme");
+        TableColumn<StudentRow, String> programmeColumn = new TableColumn<>("Programme");
         programmeColumn.setCellValueFactory(new PropertyValueFactory<>("programme"));
 
-        TableColumn<Student, Integer> levelColumn = new TableColumn<>("Level");
+        TableColumn<StudentRow, Integer> levelColumn = new TableColumn<>("Level");
         levelColumn.setCellValueFactory(new PropertyValueFactory<>("level"));
 
-        TableColumn<Student, Double> gpaColumn = new TableColumn<>("GPA");
+        TableColumn<StudentRow, Double> gpaColumn = new TableColumn<>("GPA");
         gpaColumn.setCellValueFactory(new PropertyValueFactory<>("gpa"));
 
-        TableColumn<Student, String> statusColumn = new TableColumn<>("Status");
+        TableColumn<StudentRow, String> statusColumn = new TableColumn<>("Status");
         statusColumn.setCellValueFactory(new PropertyValueFactory<>("status"));
 
         studentsTable.getColumns().addAll(
@@ -109,6 +144,7 @@ public class StudentsView extends BorderPane {
         Button deleteBtn = new Button("Delete");
 
         bottomControls.getChildren().addAll(addBtn, updateBtn, deleteBtn);
+        bottomControls.disableProperty().bind(writeLoader.loadingProperty());
 
 
 
@@ -120,46 +156,30 @@ public class StudentsView extends BorderPane {
         // Load table data when UI opens
         loadStudents();
 
-        // search student by ID or name
-        searchField.setOnAction(e -> performSearch(searchField.getText()));
+        // writes from this view or any other patch the rows on screen instead of reloading them
+        studentService.addChangeListener(change -> Platform.runLater(() -> applyChange(change)));
 
+        // search as you type, debounced; Enter searches right away
+        searchField.textProperty().addListener((obs, oldText, newText) -> searchDebounce.playFromStart());
+        searchDebounce.setOnFinished(e -> searchAsYouType());
 
-        // sort/filter students
-        sortField.setOnAction(e -> performSort(sortField, sortDirection));
-        sortDirection.setOnAction(e -> performSort(sortField, sortDirection));
-        programmeFilter.setOnAction(e -> performFilter(programmeFilter, levelFilter, statusFilter));
-        levelFilter.setOnAction(e -> performFilter(programmeFilter, levelFilter, statusFilter));
-        statusFilter.setOnAction(e -> performFilter(programmeFilter, levelFilter, statusFilter));
+        // search, filter and sort combine: any change reloads the table with all current criteria
+        searchField.setOnAction(e -> {
+            searchDebounce.stop();
+            loadStudents();
+        });
+        sortField.setOnAction(e -> loadStudents());
+        sortDirection.setOnAction(e -> loadStudents());
+        programmeFilter.setOnAction(e -> loadStudents());
+        levelFilter.setOnAction(e -> loadStudents());
+        statusFilter.setOnAction(e -> loadStudents());
 
         // Open dialog box for adding a new user when add button us clicked
-        addBtn.setOnAction(e -> {
-
-            AddStudentDialog dialog = new AddStudentDialog();
-
-            while (true) {
-
-                var result = dialog.showAndWait();
-
-                if (result.isEmpty())
-                    return;
-
-                try {
-
-                    studentService.createStudent(result.get());
-
-                    loadStudents();
-                    return;
-
-                } catch (Exception ex) {
-
-                    dialog.showValidationError(ex.getMessage());
-                }
-            }
-        });
+        addBtn.setOnAction(e -> showAddDialog(new AddStudentDialog()));
 
         // Delete selected user
         deleteBtn.setOnAction(e -> {
-            Student selectedStudent = studentsTable.getSelectionModel().getSelectedItem();
+            StudentRow selectedStudent = studentsTable.getSelectionModel().getSelectedItem();
 
             if (selectedStudent == null) {
                 showError("Select a student to delete");
@@ -174,202 +194,254 @@ public class StudentsView extends BorderPane {
 
                 if (response == ButtonType.OK) {
 
-                    try {
-
-                        studentService.deleteStudent(selectedStudent.getStudentId());
-
-                        loadStudents(); // refresh table
-
-                    } catch (Exception ex) {
-
-                        showError(ex.getMessage());
-                    }
+                    writeLoader.load(
+                            () -> {
+                                studentService.deleteStudent(selectedStudent.getStudentId());
+                                return null;
+                            },
+                            deleted -> { }, // the change listener removes the row
+                            error -> showError(error.getMessage()));
                 }
             });
         });
 
         // Update details of selected user
         updateBtn.setOnAction(e -> {
-            Student selectedStudent = studentsTable.getSelectionModel().getSelectedItem();
+            StudentRow selectedStudent = studentsTable.getSelectionModel().getSelectedItem();
 
             if (selectedStudent == null) {
                 showError("Select a student to update");
                 return;
             }
 
-            UpdateStudentDialog dialog = new UpdateStudentDialog(selectedStudent);
+            // the table only holds listing columns, load the full record for editing
+            writeLoader.load(
+                    () -> studentService.getStudentById(selectedStudent.getStudentId()),
+                    student -> {
+                        if (student == null) {
+                            showError("Student no longer exists");
+                            loadStudents();
+                            return;
+                        }
+
+                        showUpdateDialog(new UpdateStudentDialog(student));
+                    },
+                    error -> showError(error.getMessage()));
+        });
+    }
 
-            while (true) {
 
-                var result = dialog.showAndWait();
+    // ================= DIALOGS =================
 
-                if (result.isEmpty())
-                    return;
+    // Save in the background, reopen the dialog with the error if the write is rejected
+    private void showAddDialog(AddStudentDialog dialog) {
 
-                try {
+        var result = dialog.showAndWait();
 
-                    studentService.updateStudent(result.get());
+        if (result.isEmpty())
+            return;
 
-                    loadStudents();
-                    return;
+        writeLoader.load(
+                () -> {
+                    studentService.createStudent(result.get());
+                    return null;
+                },
+                saved -> { }, // the change listener patches the table
+                error -> {
+                    dialog.showValidationError(error.getMessage());
+                    showAddDialog(dialog);
+                });
+    }
 
-                } catch (Exception ex) {
+    private void showUpdateDialog(UpdateStudentDialog dialog) {
 
-                    dialog.showValidationError(ex.getMessage());
-                }
-            }
-        });
+        var result = dialog.showAndWait();
+
+        if (result.isEmpty())
+            return;
+
+        writeLoader.load(
+                () -> {
+                    studentService.updateStudent(result.get());
+                    return null;
+                },
+                saved -> { }, // the change listener patches the table
+                error -> {
+                    dialog.showValidationError(error.getMessage());
+                    showUpdateDialog(dialog);
+                });
     }
 
 
     // ================= TABLE LOADING =================
+    // Each call supersedes the previous one, so fast typing or filtering only shows the latest result
     private void loadStudents() {
 
-        try {
-
-            ObservableList<Student> students =
-                    FXCollections.observableArrayList(studentService.getAllStudents());
-
-            studentsTable.setItems(students);
+        // read the controls here, the query runs off the FX thread
+        StudentQuery query = LazyStudentList.keyOrdered(buildQuery());
+
+        // count and first page up front, further pages load as the table scrolls to them
+        listLoader.load(
+                () -> {
+                    int total = studentService.countStudents(query);
+                    int pageSize = LazyStudentList.DEFAULT_PAGE_SIZE;
+                    StudentQuery firstPage = new StudentQuery(query)
+                            .limit(query.getLimit() > 0 ? Math.min(query.getLimit(), pageSize) : pageSize);
+
+                    return new LazyStudentList(AsyncStudentService.shared(), query, total,
+                            studentService.findStudentRows(firstPage));
+                },
+                rows -> showRows(rows, query),
+                error -> showError("Failed to load students"));
+    }
 
-        } catch (SQLException e) {
+    private void showRows(ObservableList<StudentRow> rows, StudentQuery query) {
 
-            showError("Failed to load students");
+        // pages of the previous listing still in flight are dropped
+        if (studentsTable.getItems() instanceof LazyStudentList previous) {
+            previous.dispose();
         }
-    }
 
+        shownQuery = query;
+        studentsTable.setItems(rows);
+    }
 
 
-    private void performSearch(String query) {
+    // ================= CHANGE PATCHING =================
+    // Insert, replace or remove the one row a write touched. Cost does not grow with the listing.
+    private void applyChange(StudentChange change) {
 
-        try {
+        // bulk writes (imports) touch too many rows to patch one by one
+        if (change.getType() == StudentChange.Type.BULK) {
+            loadStudents();
+            return;
+        }
 
-            if (query == null || query.isBlank()) {
-                loadStudents();
-                return;
-            }
+        Student previous = change.getPrevious();
+        Student current = change.getCurrent();
 
-            ObservableList<Student> students =
-                    FXCollections.observableArrayList(studentService.searchStudents(query));
+        // suggestion results are a short plain list from the prefix index, in its order and capped
+        // at its limit. A write that touches them asks the index again, in memory.
+        if (!(studentsTable.getItems() instanceof LazyStudentList lazy)) {
 
-            studentsTable.setItems(students);
+            String text = shownQuery.getText();
 
-        } catch (Exception e) {
+            if ((previous != null && StudentPrefixIndex.matches(previous, text))
+                    || (current != null && StudentPrefixIndex.matches(current, text))) {
+                showSuggestions(shownQuery);
+            }
 
-            showError(e.getMessage());
+            return;
         }
-    }
 
+        boolean wasShown = previous != null && shownQuery.matches(previous);
+        boolean isShown = current != null && shownQuery.matches(current);
 
-    private void performSort(ComboBox<String> fieldBox, ComboBox<String> directionBox) {
-        String field = fieldBox.getValue();
-        String direction = directionBox.getValue();
+        if (!wasShown && !isShown) {
+            return;
+        }
 
-        if (field == null || direction == null)
+        // same place in the listing: swap the row if it is loaded, otherwise its page is read fresh later
+        if (wasShown && isShown && sameOrder(shownQuery, previous, current)) {
+            lazy.replace(StudentRow.from(current));
             return;
+        }
 
-        try {
+        lazy.rowsChanged(wasShown ? StudentRow.from(previous) : null, isShown ? StudentRow.from(current) : null);
+    }
 
-            String sortDirection = direction.equals("Descending") ? "desc" : "asc";
+    // Whether an update leaves the student at the same position of the listing
+    private static boolean sameOrder(StudentQuery query, Student previous, Student current) {
 
-            ObservableList<Student> students;
+        for (StudentQuery.Sort sort : query.getSorts()) {
+            boolean same = switch (sort.field()) {
+                case GPA -> previous.getGpa() == current.getGpa();
+                case FULL_NAME -> previous.getFullName().equalsIgnoreCase(current.getFullName());
+                case LEVEL -> previous.getLevel() == current.getLevel();
+                case STUDENT_ID -> true;
+            };
 
-            switch (field) {
+            if (!same) {
+                return false;
+            }
+        }
 
-                case "GPA" -> students =
-                        FXCollections.observableArrayList(
-                                studentService.sortByGpa(sortDirection)
-                        );
+        // unsorted text searches are ranked on the searched columns
+        if (query.getSorts().isEmpty() && query.getText() != null) {
+            return Objects.equals(previous.getFullName(), current.getFullName())
+                    && Objects.equals(previous.getEmail(), current.getEmail())
+                    && Objects.equals(previous.getProgramme(), current.getProgramme());
+        }
 
-                case "Full Name" -> students =
-                        FXCollections.observableArrayList(
-                                studentService.sortByFullName(sortDirection)
-                        );
+        return true;
+    }
 
-                default -> {
-                    showError("Invalid sorting field");
-                    return;
-                }
-            }
 
-            studentsTable.setItems(students);
+    // A bare name or ID prefix is answered by the in-memory prefix index. With filters or a sort
+    // order set the full query runs instead, so typing never drops the other criteria.
+    private void searchAsYouType() {
 
-        } catch (Exception e) {
+        StudentQuery query = buildQuery();
 
-            showError(e.getMessage());
+        if (query.getText() == null || !isTextOnly(query) || SearchText.words(query.getText()).length == 0) {
+            loadStudents();
+            return;
         }
-    }
 
+        showSuggestions(query);
+    }
 
-    private void performFilter(ComboBox<String> programmeBox, ComboBox<Integer> levelBox, ComboBox<String> statusBox) {
-        String programme = programmeBox.getValue();
-        Integer level = levelBox.getValue();
-        String status = statusBox.getValue();
-
-        final String programmeValue;
-        final Integer levelValue;
-        final String statusValue;
+    private void showSuggestions(StudentQuery query) {
 
-        if (programme != null) {
-            if (programme.equals("Programme")) {
-                programmeValue = null;
-            } else {
-                programmeValue = programme;
-            }
-        } else {
-            programmeValue = null;
-        }
+        String text = query.getText();
 
-        if (status != null) {
-            if (status.equals("Status")) {
-                statusValue = null;
-            } else {
-                statusValue = status;
-            }
-        } else {
-            statusValue = null;
-        }
+        listLoader.load(
+                () -> studentService.suggestStudents(text, StudentRepository.DEFAULT_SEARCH_LIMIT),
+                rows -> showRows(FXCollections.observableArrayList(rows), query),
+                error -> showError("Failed to search students"));
+    }
 
-        levelValue = level;
+    private static boolean isTextOnly(StudentQuery query) {
+        return query.getProgramme() == null && query.getLevel() == null && query.getStatus() == null
+                && query.getSorts().isEmpty();
+    }
 
-        try {
+    // Translate the current state of the controls into one query
+    private StudentQuery buildQuery() {
 
-            ObservableList<Student> students = FXCollections.observableArrayList(
-                    studentService.getAllStudents()
-            );
+        StudentQuery query = new StudentQuery().text(searchField.getText());
 
-            if (programmeValue != null) {
-                students = FXCollections.observableArrayList(
-                        studentService.filterByProgramme(programmeValue)
-                );
-            }
+        // search results are capped like the search box always was
+        if (query.getText() != null) {
+            query.limit(StudentRepository.DEFAULT_SEARCH_LIMIT);
+        }
 
-            if (levelValue != null) {
-                students = FXCollections.observableArrayList(
-                        students.stream()
-                                .filter(s -> s.getLevel() == levelValue)
-                                .toList()
-                );
-            }
+        String programme = programmeFilter.getValue();
+        if (programme != null && !programme.equals("Programme")) {
+            query.programme(programme);
+        }
 
-            if (statusValue != null) {
-                students = FXCollections.observableArrayList(
-                        students.stream()
-                                .filter(s -> s.getStatus().equalsIgnoreCase(statusValue))
-                                .toList()
-                );
-            }
+        query.level(levelFilter.getValue());
 
-            studentsTable.setItems(students);
+        String status = statusFilter.getValue();
+        if (status != null && !status.equals("Status")) {
+            query.status(status);
+        }
 
-        } catch (Exception e) {
+        String field = sortField.getValue();
+        String direction = sortDirection.getValue();
 
-            showError(e.getMessage());
+        if (field != null) {
+            StudentQuery.SortField sort = field.equals("GPA") ? StudentQuery.SortField.GPA : StudentQuery.SortField.FULL_NAME;
+            query.orderBy(sort, "Descending".equals(direction));
         }
+
+        return query;
     }
 
+    // Tab switches reload only when the data changed since the listing was read
     public void refresh() {
-        loadStudents();
+        listLoader.reloadIfChanged(this::loadStudents);
     }
 
     private void showError(String message) {
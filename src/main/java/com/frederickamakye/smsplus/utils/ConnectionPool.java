@@ -0,0 +1,508 @@
+/*
+ * ConnectionPool keeps a bounded set of open SQLite connections so repository
+ * calls reuse them instead of opening the database file on every call.
+ * - Connections handed out are proxies, close() returns them to the pool
+ * - Statements the borrower left open are closed with the lease and fail if used afterwards
+ * - Idle connections are validated before they are handed out again
+ * - Connections held longer than the leak threshold are logged with the caller's stack trace
+*/
+
+package com.frederickamakye.smsplus.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ConnectionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    private final String url;
+    private final int maxSize;
+    private final long acquireTimeoutMs;
+    private final long leakThresholdMs;
+    private final int validationTimeoutSeconds;
+    private final Initializer initializer;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<Connection> idle = new ConcurrentLinkedDeque<>();
+    private final Map<Connection, Lease> leased = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService leakDetector;
+
+    // prepared statement caches of the open physical connections, and hit/miss counters per SQL text
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+    private final Map<String, StatementCache.Counters> statementStats = StatementCache.newStats();
+
+    private volatile boolean closed;
+
+    // acquire-wait statistics
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireWaitNanos = new LongAdder();
+    private final AtomicLong maxAcquireWaitNanos = new AtomicLong();
+    private final LongAdder acquireTimeouts = new LongAdder();
+    private final LongAdder leaksDetected = new LongAdder();
+
+    public ConnectionPool(String url, int maxSize, long acquireTimeoutMs, long leakThresholdMs) {
+        this(url, maxSize, acquireTimeoutMs, leakThresholdMs, conn -> { });
+    }
+
+    public ConnectionPool(String url, int maxSize, long acquireTimeoutMs, long leakThresholdMs, Initializer initializer) {
+        this(url, maxSize, acquireTimeoutMs, leakThresholdMs, initializer, 0);
+    }
+
+    // statementCacheSize = prepared statements kept open per connection (0 disables the cache)
+    public ConnectionPool(String url, int maxSize, long acquireTimeoutMs, long leakThresholdMs,
+                          Initializer initializer, int statementCacheSize) {
+
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be greater than 0");
+        }
+
+        this.url = url;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.validationTimeoutSeconds = 2;
+        this.initializer = initializer;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        if (leakThresholdMs > 0) {
+            leakDetector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "db-pool-leak-detector");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+            long period = Math.max(leakThresholdMs / 2, 1000);
+            leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            leakDetector = null;
+        }
+
+        logger.info("Connection pool created: url={}, size={}, acquireTimeoutMs={}, leakThresholdMs={}, statementCacheSize={}",
+                url, maxSize, acquireTimeoutMs, leakThresholdMs, statementCacheSize);
+    }
+
+
+    // Borrow a connection. Blocks until one is free or the acquire timeout elapses.
+    public Connection acquire() throws SQLException {
+
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                acquireTimeouts.increment();
+                throw new SQLException("Timed out after %d ms waiting for a database connection".formatted(acquireTimeoutMs));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        recordWait(System.nanoTime() - start);
+
+        try {
+            Connection physical = takeValidConnection();
+            Connection proxy = wrap(physical);
+
+            leased.put(physical, new Lease(System.currentTimeMillis(), leakThresholdMs > 0 ? new Throwable("Connection acquired here") : null));
+
+            return proxy;
+
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+
+    // Reuse an idle connection if it is still valid, otherwise open a new one
+    private Connection takeValidConnection() throws SQLException {
+        Connection conn;
+
+        while ((conn = idle.pollFirst()) != null) {
+            if (isUsable(conn)) {
+                return conn;
+            }
+
+            logger.warn("Discarding invalid pooled connection");
+            discard(conn);
+        }
+
+        return openConnection();
+    }
+
+    // Open a new physical connection and run the initializer (e.g. PRAGMA settings) on it
+    private Connection openConnection() throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+
+        try {
+            initializer.initialize(conn);
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(conn);
+            throw e;
+        }
+
+        if (statementCacheSize > 0) {
+            statementCaches.put(conn, new StatementCache(conn, statementCacheSize, statementStats));
+        }
+
+        return conn;
+    }
+
+    private boolean isUsable(Connection conn) {
+        try {
+            return !conn.isClosed() && conn.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+
+    // Called by the proxy when the caller closes its connection
+    private void release(Connection physical) {
+
+        Lease lease = leased.remove(physical);
+
+        if (lease == null) {
+            return; // already released
+        }
+
+        try {
+            // never hand out a connection with a half finished transaction
+            if (!physical.isClosed() && !physical.getAutoCommit()) {
+                logger.warn("Connection returned to pool with an open transaction, rolling back");
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+
+            if (closed || physical.isClosed()) {
+                discard(physical);
+            } else {
+                idle.offerFirst(physical);
+            }
+
+        } catch (SQLException e) {
+            logger.warn("Discarding pooled connection that failed to reset", e);
+            discard(physical);
+
+        } finally {
+            permits.release();
+        }
+    }
+
+
+    private void detectLeaks() {
+        long now = System.currentTimeMillis();
+
+        for (Lease lease : leased.values()) {
+            if (!lease.reported && now - lease.acquiredAt > leakThresholdMs) {
+                lease.reported = true;
+                leaksDetected.increment();
+                logger.warn("Possible connection leak: connection held for {} ms", now - lease.acquiredAt, lease.origin);
+            }
+        }
+    }
+
+
+    private void recordWait(long nanos) {
+        acquireCount.increment();
+        acquireWaitNanos.add(nanos);
+        maxAcquireWaitNanos.accumulateAndGet(nanos, Math::max);
+
+        if (nanos > TimeUnit.MILLISECONDS.toNanos(100)) {
+            logger.info("Waited {} ms for a database connection", TimeUnit.NANOSECONDS.toMillis(nanos));
+        }
+    }
+
+
+    public Stats getStats() {
+        long count = acquireCount.sum();
+        double averageMs = count == 0 ? 0.0 : acquireWaitNanos.sum() / (double) count / 1_000_000.0;
+
+        return new Stats(
+                maxSize,
+                leased.size(),
+                idle.size(),
+                count,
+                averageMs,
+                maxAcquireWaitNanos.get() / 1_000_000.0,
+                acquireTimeouts.sum(),
+                leaksDetected.sum()
+        );
+    }
+
+
+    // Close idle connections and stop handing out new ones. Leased connections are closed when returned.
+    public void close() {
+        closed = true;
+
+        if (leakDetector != null) {
+            leakDetector.shutdownNow();
+        }
+
+        Connection conn;
+        while ((conn = idle.pollFirst()) != null) {
+            discard(conn);
+        }
+
+        logger.info("Connection pool closed: {}", getStats());
+    }
+
+
+    private Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new PooledConnectionHandler(physical)
+        );
+    }
+
+    // Prepared statement hit and miss counts per SQL text, across all connections
+    public List<StatementStats> getStatementStats() {
+        List<StatementStats> result = new ArrayList<>();
+
+        statementStats.forEach((sql, counters) -> result.add(new StatementStats(
+                sql,
+                counters.hits.sum(),
+                counters.misses.sum(),
+                counters.evictions.sum()
+        )));
+
+        return result;
+    }
+
+    // Close a physical connection together with its cached statements
+    private void discard(Connection conn) {
+        StatementCache cache = statementCaches.remove(conn);
+
+        if (cache != null) {
+            cache.close();
+        }
+
+        closeQuietly(conn);
+    }
+
+    private static void closeQuietly(Connection conn) {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            logger.debug("Failed to close connection", e);
+        }
+    }
+
+
+    // Delegates every call to the physical connection, except close() which returns it to the pool
+    private class PooledConnectionHandler implements InvocationHandler {
+
+        private final Connection physical;
+        private boolean released;
+
+        // statements opened past the statement cache, closed with the lease if the borrower did not
+        private final List<Statement> statements = new ArrayList<>();
+
+        PooledConnectionHandler(Connection physical) {
+            this.physical = physical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!released) {
+                        released = true;
+                        endLease();
+                        release(physical);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return released || physical.isClosed();
+                }
+                case "unwrap" -> {
+                    if (((Class<?>) args[0]).isInstance(physical)) {
+                        return physical;
+                    }
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "PooledConnection[" + physical + "]";
+                }
+                default -> {
+                    // fall through to delegation below
+                }
+            }
+
+            if (released) {
+                throw new SQLException("Connection has been returned to the pool");
+            }
+
+            // prepareStatement(String) is served from the connection's statement cache
+            if (method.getName().equals("prepareStatement") && args.length == 1) {
+                StatementCache cache = statementCaches.get(physical);
+
+                if (cache != null) {
+                    return cache.prepare((String) args[0], (Connection) proxy);
+                }
+            }
+
+            Object result;
+
+            try {
+                result = method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            // the driver lets a closed statement run again, so the caller gets a proxy that checks the lease
+            if (result instanceof Statement statement) {
+                statements.add(statement);
+
+                return Proxy.newProxyInstance(
+                        ConnectionPool.class.getClassLoader(),
+                        new Class<?>[] { method.getReturnType() },
+                        new LeasedStatementHandler(statement, this, (Connection) proxy)
+                );
+            }
+
+            return result;
+        }
+
+        // Statements left open must not stay usable on the next borrower's connection
+        private void endLease() {
+
+            StatementCache cache = statementCaches.get(physical);
+
+            if (cache != null) {
+                cache.endLease();
+            }
+
+            for (Statement statement : statements) {
+                try {
+                    statement.close();
+                } catch (SQLException e) {
+                    logger.debug("Failed to close statement", e);
+                }
+            }
+
+            statements.clear();
+        }
+    }
+
+
+    // Delegates every call to a statement opened past the statement cache, until its lease ended
+    private static class LeasedStatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final PooledConnectionHandler lease;
+        private final Connection owner;
+
+        LeasedStatementHandler(Statement statement, PooledConnectionHandler lease, Connection owner) {
+            this.statement = statement;
+            this.lease = lease;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            switch (method.getName()) {
+                case "close" -> {
+                    statement.close();
+                    return null;
+                }
+                case "isClosed" -> {
+                    return lease.released || statement.isClosed();
+                }
+                case "getConnection" -> {
+                    return owner;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                    // fall through to delegation below
+                }
+            }
+
+            if (lease.released) {
+                throw new SQLException("Statement's connection has been returned to the pool");
+            }
+
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+
+    // Runs once on every physical connection the pool opens
+    @FunctionalInterface
+    public interface Initializer {
+        void initialize(Connection conn) throws SQLException;
+    }
+
+
+    private static class Lease {
+        private final long acquiredAt;
+        private final Throwable origin;
+        private volatile boolean reported;
+
+        Lease(long acquiredAt, Throwable origin) {
+            this.acquiredAt = acquiredAt;
+            this.origin = origin;
+        }
+    }
+
+
+    public record StatementStats(String sql, long hits, long misses, long evictions) {
+    }
+
+
+    public record Stats(
+            int maxSize,
+            int inUse,
+            int idle,
+            long acquireCount,
+            double averageAcquireWaitMs,
+            double maxAcquireWaitMs,
+            long acquireTimeouts,
+            long leaksDetected) {
+    }
+}
@@ -6,7 +6,9 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 import java.io.File;
 
 import org.apache.commons.csv.CSVFormat;
@@ -18,8 +20,13 @@ import org.slf4j.LoggerFactory;
 
 import com.frederickamakye.smsplus.models.Student;
 import com.frederickamakye.smsplus.models.GpaBandSummary;
+import com.frederickamakye.smsplus.models.GpaHistogramBand;
+import com.frederickamakye.smsplus.models.GpaPercentileSummary;
 import com.frederickamakye.smsplus.models.ProgrammeSummary;
 import com.frederickamakye.smsplus.models.ImportResult;
+import com.frederickamakye.smsplus.models.BulkWriteResult;
+import com.frederickamakye.smsplus.models.ImportMode;
+import com.frederickamakye.smsplus.repository.StudentRepository;
 import com.frederickamakye.smsplus.services.StudentService;
 
 public class CsvHandler {
@@ -64,48 +71,134 @@ public class CsvHandler {
         }
     }
 
+    // Export every student in the database, writing each row as it is read so heap use
+    // does not grow with the number of students. Returns the number of rows written.
+    public static long exportStudents(StudentService studentService, String filePath) throws IOException, SQLException {
+
+        File parentDir = new File(filePath).getParentFile();
+
+        if (parentDir != null && !parentDir.exists()) {
+            parentDir.mkdirs();
+        }
+
+        long count = 0;
+
+        try (Stream<Student> students = studentService.streamAllStudents();
+             BufferedWriter writer = new BufferedWriter(new FileWriter(filePath));
+             CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT
+                     .withHeader("student_id", "full_name", "programme", "level", "gpa", "email", "phone", "status"))) {
+
+            Iterator<Student> iterator = students.iterator();
+
+            while (iterator.hasNext()) {
+                Student s = iterator.next();
+
+                csvPrinter.printRecord(
+                        s.getStudentId(),
+                        s.getFullName(),
+                        s.getProgramme(),
+                        s.getLevel(),
+                        s.getGpa(),
+                        s.getEmail(),
+                        s.getPhone(),
+                        s.getStatus()
+                );
+
+                count++;
+            }
+
+            logger.info("Exported {} students to CSV", count);
+
+        } catch (IOException e) {
+
+            logger.error("CSV export failed", e);
+            throw e;
+        }
+
+        return count;
+    }
+
     public static ImportResult importStudents(String filePath, StudentService studentService) throws IOException {
-        ImportResult result = new ImportResult();
+        return importStudents(filePath, studentService, ImportMode.INSERT, StudentRepository.DEFAULT_BATCH_SIZE);
+    }
+
+    public static ImportResult importStudents(String filePath, StudentService studentService, ImportMode mode) throws IOException {
+        return importStudents(filePath, studentService, mode, StudentRepository.DEFAULT_BATCH_SIZE);
+    }
+
+    // Rows are parsed, validated on worker threads and saved in batches of batchSize, each batch in
+    // one transaction, see CsvImportPipeline. In UPSERT mode existing students are updated instead
+    // of reported as duplicates.
+    public static ImportResult importStudents(String filePath, StudentService studentService, ImportMode mode, int batchSize) throws IOException {
         // open provided csv file and parse content
-        // TODO: refactor for bulk db insert using transactions (to limit IO overhead)
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath));
             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
 
-            for (CSVRecord record : csvParser) {
+            return new CsvImportPipeline(studentService, mode, batchSize,
+                    CsvImportPipeline.DEFAULT_WORKERS, CsvImportPipeline.DEFAULT_CHUNK_SIZE).run(csvParser);
 
-                try {
-                    // validate and create student record for each line in the csv file
-                    Student student = new Student(
-                            record.get("student_id"),
-                            record.get("full_name"),
-                            record.get("programme"),
-                            Integer.parseInt(record.get("level")),
-                            Double.parseDouble(record.get("gpa"))
-                    );
+        } catch (IOException e) {
 
-                    student.setEmail(record.get("email"));
-                    student.setPhone(record.get("phone"));
-                    student.setStatus(record.get("status"));
+            logger.error("CSV import failed", e);
+            throw e;
+        }
+    }
 
-                    studentService.createStudent(student);
+    static Student toStudent(CSVRecord record) {
+        Student student = new Student(
+                record.get("student_id"),
+                record.get("full_name"),
+                record.get("programme"),
+                Integer.parseInt(record.get("level")),
+                Double.parseDouble(record.get("gpa"))
+        );
 
-                    result.incrementSuccess();
+        // CSV has no null, so empty optional fields are read back as null like the records they were exported from
+        student.setEmail(emptyToNull(record.get("email")));
+        student.setPhone(emptyToNull(record.get("phone")));
+        student.setStatus(emptyToNull(record.get("status")));
+
+        return student;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    // validate and save one batch, then record the outcome of every row in the batch
+    static void saveBatch(List<Student> batch, List<CSVRecord> batchRecords, StudentService.BulkImport bulkImport,
+                                  ImportMode mode, int batchSize, ImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            BulkWriteResult written = bulkImport.write(batch, batchSize, mode);
 
-                } catch (Exception e) {
+            result.addWriteCounts(written.getInsertedCount(), written.getUpdatedCount(), written.getUnchangedCount());
 
-                    result.incrementError(record.toString());
-                    // if validation fails or another exception occures skip the line
-                    logger.warn("Skipped invalid CSV line: {}", record);
+            for (int i = 0; i < batch.size(); i++) {
+                if (written.isFailed(i)) {
+                    result.incrementError(batchRecords.get(i).toString());
+                    // if validation fails or the ID already exists skip the line
+                    logger.warn("Skipped invalid CSV line: {} ({})", batchRecords.get(i), written.getFailures().get(i));
+                } else {
+                    result.incrementSuccess();
                 }
             }
 
-        } catch (IOException e) {
+        } catch (SQLException | RuntimeException e) {
 
-            logger.error("CSV import failed", e);
-            throw e;
+            // the whole batch could not be written
+            for (CSVRecord record : batchRecords) {
+                result.incrementError(record.toString());
+            }
+
+            logger.error("Failed to import batch of {} CSV lines", batch.size(), e);
         }
 
-        return result;
+        batch.clear();
+        batchRecords.clear();
     }
 
     public static void exportGpaDistribution(List<GpaBandSummary> data, String filePath) throws IOException {
@@ -138,6 +231,46 @@ public class CsvHandler {
     }
 
 
+    public static void exportGpaPercentiles(List<GpaPercentileSummary> data, String filePath) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath));
+            CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT
+                    .withHeader("grouping", "group", "total_students", "p10_gpa", "p25_gpa", "median_gpa", "p75_gpa", "p90_gpa"))) {
+
+            for (GpaPercentileSummary row : data) {
+                csvPrinter.printRecord(
+                        row.getGrouping(),
+                        row.getGroup(),
+                        row.getTotalStudents(),
+                        row.getP10(),
+                        row.getP25(),
+                        row.getMedian(),
+                        row.getP75(),
+                        row.getP90()
+                );
+            }
+        }
+    }
+
+
+    public static void exportGpaHistogram(List<GpaHistogramBand> data, String filePath) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath));
+            CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT
+                    .withHeader("programme", "band", "total_students", "average_gpa", "min_gpa", "max_gpa"))) {
+
+            for (GpaHistogramBand row : data) {
+                csvPrinter.printRecord(
+                        row.getProgramme(),
+                        row.getBand(),
+                        row.getTotalStudents(),
+                        row.getAverageGpa(),
+                        row.getMinGpa(),
+                        row.getMaxGpa()
+                );
+            }
+        }
+    }
+
+
     public static void exportImportErrors(List<String> errors, String filePath) throws IOException {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath));
             CSVPrinter csvPrinter = new CSVPrinter(writer, CSVFormat.DEFAULT
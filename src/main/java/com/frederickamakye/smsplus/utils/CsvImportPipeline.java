@@ -0,0 +1,324 @@
+/*
+ * CsvImportPipeline imports a CSV file in three stages that run at the same time:
+ * - One parser thread reads records from the file and hands them on in chunks
+ * - A pool of workers maps every record to a Student and validates it
+ * - The calling thread writes the valid students in batches through one StudentService bulk import, SQLite
+ *   takes one writer anyway. The caches are dropped and the views told once, when the import ends
+ * Bounded queues join the stages and at most maxInFlight chunks sit between the parser and the writer,
+ * so a slow disk pauses the parser instead of filling the heap.
+ * Chunks are written in file order: batches, duplicate rows and UPSERT (the last row wins) turn out
+ * exactly as in a serial import. A malformed record also ends the import where a serial one would:
+ * the full batches before it are committed, the rest is not and the error is thrown.
+ * Rows per second of every stage are returned with the result.
+*/
+
+package com.frederickamakye.smsplus.utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.frederickamakye.smsplus.models.ImportMode;
+import com.frederickamakye.smsplus.models.ImportResult;
+import com.frederickamakye.smsplus.models.ImportStageStats;
+import com.frederickamakye.smsplus.models.Student;
+import com.frederickamakye.smsplus.services.StudentService;
+
+class CsvImportPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(CsvImportPipeline.class);
+
+    // Mapping and validation workers, the parser and the writer have a core each.
+    // Override with -Dcsv.import.workers
+    static final int DEFAULT_WORKERS =
+            Integer.getInteger("csv.import.workers", Math.max(1, Runtime.getRuntime().availableProcessors() - 2));
+
+    // Records handed from stage to stage at once. Override with -Dcsv.import.chunkSize
+    static final int DEFAULT_CHUNK_SIZE = Integer.getInteger("csv.import.chunkSize", 256);
+
+    // marks the end of a worker's input or output
+    private static final Chunk END = new Chunk(-1, List.of());
+
+    private final StudentService studentService;
+    private final ImportMode mode;
+    private final int batchSize;
+    private final int workers;
+    private final int chunkSize;
+
+    // a permit per chunk between the parser and the writer, released once the chunk is written
+    private final Semaphore inFlight;
+
+    // room for every chunk in flight plus an END per worker, so offer() never fails
+    private final BlockingQueue<Chunk> parsed;
+    private final BlockingQueue<Chunk> validated;
+
+    // stops every stage at once
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    // unreadable file or malformed CSV, thrown once the records before it are written
+    private volatile RuntimeException parseFailure;
+
+    private final LongAdder parsedRows = new LongAdder();
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder validatedRows = new LongAdder();
+    private final LongAdder validateNanos = new LongAdder();
+    private long writtenRows;
+    private long writeNanos;
+
+    CsvImportPipeline(StudentService studentService, ImportMode mode, int batchSize, int workers, int chunkSize) {
+
+        if (batchSize <= 0 || workers <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("Batch size, worker count and chunk size must be greater than 0");
+        }
+
+        this.studentService = studentService;
+        this.mode = mode;
+        this.batchSize = batchSize;
+        this.workers = workers;
+        this.chunkSize = chunkSize;
+
+        int maxInFlight = workers * 4;
+
+        this.inFlight = new Semaphore(maxInFlight);
+        this.parsed = new ArrayBlockingQueue<>(maxInFlight + workers);
+        this.validated = new ArrayBlockingQueue<>(maxInFlight + workers);
+    }
+
+
+    // Import every record of the parser. The parser is read on another thread, but only until this returns.
+    ImportResult run(CSVParser csvParser) throws IOException {
+
+        ImportResult result = new ImportResult();
+        long start = System.nanoTime();
+
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofPlatform().name("csv-import-", 0).daemon(true).factory());
+
+        try (StudentService.BulkImport bulkImport = studentService.beginBulkImport()) {
+            executor.execute(() -> parse(csvParser));
+
+            for (int i = 0; i < workers; i++) {
+                executor.execute(this::validate);
+            }
+
+            write(result, bulkImport);
+
+        } catch (InterruptedException e) {
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("CSV import interrupted");
+
+        } finally {
+            // stops the other stages early if the import failed, then waits for them
+            executor.shutdownNow();
+            executor.close();
+        }
+
+        rethrowFailure();
+
+        List<ImportStageStats> stages = List.of(
+                new ImportStageStats("parse", 1, parsedRows.sum(), parseNanos.sum()),
+                new ImportStageStats("validate", workers, validatedRows.sum(), validateNanos.sum()),
+                new ImportStageStats("write", 1, writtenRows, writeNanos));
+
+        result.setStageStats(stages, System.nanoTime() - start);
+
+        logger.info("Imported {} CSV lines in {} ms ({} rows/s): {}", result.getSuccessCount() + result.getErrorCount(),
+                result.getElapsedNanos() / 1_000_000, Math.round(result.getRowsPerSecond()), stages);
+
+        return result;
+    }
+
+
+    // ================= STAGES =================
+
+    private void parse(CSVParser csvParser) {
+
+        long sequence = 0;
+
+        try {
+            Iterator<CSVRecord> records = csvParser.iterator();
+
+            while (parseFailure == null) {
+                inFlight.acquire();
+
+                long start = System.nanoTime();
+                List<CSVRecord> chunk = new ArrayList<>(chunkSize);
+
+                try {
+                    while (chunk.size() < chunkSize && records.hasNext()) {
+                        chunk.add(records.next());
+                    }
+                } catch (RuntimeException e) {
+                    // the records read before it still go through, the chunk is the last one
+                    parseFailure = e;
+                }
+
+                parseNanos.add(System.nanoTime() - start);
+
+                if (chunk.isEmpty()) {
+                    inFlight.release();
+                    break;
+                }
+
+                parsedRows.add(chunk.size());
+                parsed.offer(new Chunk(sequence++, chunk));
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+        } finally {
+            for (int i = 0; i < workers; i++) {
+                parsed.offer(END);
+            }
+        }
+    }
+
+    private void validate() {
+
+        try {
+            for (Chunk chunk = parsed.take(); chunk != END; chunk = parsed.take()) {
+
+                long start = System.nanoTime();
+
+                for (CSVRecord record : chunk.records) {
+                    try {
+                        Student student = CsvHandler.toStudent(record);
+                        studentService.prepareStudent(student);
+
+                        chunk.students.add(student);
+                        chunk.studentRecords.add(record);
+
+                    } catch (RuntimeException e) {
+
+                        chunk.errors.add(record.toString());
+                        // if parsing or validation fails skip the line
+                        logger.warn("Skipped invalid CSV line: {} ({})", record, e.getMessage());
+                    }
+                }
+
+                validateNanos.add(System.nanoTime() - start);
+                validatedRows.add(chunk.records.size());
+
+                validated.offer(chunk);
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+
+        } finally {
+            validated.offer(END);
+        }
+    }
+
+    // Put chunks back in file order and save them in batches of batchSize
+    private void write(ImportResult result, StudentService.BulkImport bulkImport) throws InterruptedException {
+
+        Map<Long, Chunk> waiting = new HashMap<>();
+        long next = 0;
+        int ended = 0;
+
+        List<Student> batch = new ArrayList<>(batchSize);
+        List<CSVRecord> batchRecords = new ArrayList<>(batchSize);
+
+        while (ended < workers && failure.get() == null) {
+
+            Chunk chunk = validated.take();
+
+            if (chunk == END) {
+                ended++;
+                continue;
+            }
+
+            waiting.put(chunk.sequence, chunk);
+
+            for (Chunk ready = waiting.remove(next); ready != null; ready = waiting.remove(++next)) {
+
+                ready.errors.forEach(result::incrementError);
+
+                for (int i = 0; i < ready.students.size(); i++) {
+                    batch.add(ready.students.get(i));
+                    batchRecords.add(ready.studentRecords.get(i));
+
+                    if (batch.size() == batchSize) {
+                        saveBatch(batch, batchRecords, bulkImport, result);
+                    }
+                }
+
+                inFlight.release();
+            }
+        }
+
+        // a serial import never reached the end of the batch the malformed record was in
+        if (failure.get() == null && parseFailure == null) {
+            saveBatch(batch, batchRecords, bulkImport, result);
+        }
+    }
+
+    private void saveBatch(List<Student> batch, List<CSVRecord> batchRecords, StudentService.BulkImport bulkImport,
+                           ImportResult result) {
+
+        long start = System.nanoTime();
+        int rows = batch.size();
+
+        CsvHandler.saveBatch(batch, batchRecords, bulkImport, mode, batchSize, result);
+
+        writtenRows += rows;
+        writeNanos += System.nanoTime() - start;
+    }
+
+    private void rethrowFailure() throws IOException {
+
+        Throwable error = failure.get() != null ? failure.get() : parseFailure;
+
+        if (error == null) {
+            return;
+        }
+
+        logger.error("CSV import failed", error);
+
+        if (error instanceof UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        throw (RuntimeException) error;
+    }
+
+
+    // Records of the file from position sequence * chunkSize, and what the workers made of them
+    private static class Chunk {
+
+        final long sequence;
+        final List<CSVRecord> records;
+
+        final List<Student> students = new ArrayList<>();
+        final List<CSVRecord> studentRecords = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+
+        Chunk(long sequence, List<CSVRecord> records) {
+            this.sequence = sequence;
+            this.records = records;
+        }
+    }
+}
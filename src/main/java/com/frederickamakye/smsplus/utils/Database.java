@@ -2,8 +2,10 @@ package com.frederickamakye.smsplus.utils;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,35 +15,140 @@ public class Database {
     // Get db url from command line arg -Ddb.url or default to data/student.db
     private static final String URL = System.getProperty("db.url", "jdbc:sqlite:data/students.db");
 
+    // Pool settings: -Ddb.pool.size, -Ddb.pool.acquireTimeoutMs, -Ddb.pool.leakThresholdMs (0 disables leak detection)
+    private static final int POOL_SIZE = Integer.getInteger("db.pool.size", 4);
+    private static final long ACQUIRE_TIMEOUT_MS = Long.getLong("db.pool.acquireTimeoutMs", 30_000L);
+    private static final long LEAK_THRESHOLD_MS = Long.getLong("db.pool.leakThresholdMs", 60_000L);
+
+    // Prepared statements kept per pooled connection: -Ddb.statementCache.size (0 disables the cache)
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("db.statementCache.size", 64);
+
     private static final Logger logger = LoggerFactory.getLogger(Database.class);
-    
+
+    // PRAGMA profile applied to every pooled connection, see DatabaseProfile
+    private static final DatabaseProfile PROFILE = DatabaseProfile.fromSystemProperties();
+
+    private static volatile ConnectionPool pool;
+
+    // Outside the pool and never used to write, so its data_version moves on every commit made elsewhere
+    private static Connection versionConnection;
+
+    // Borrow a pooled connection. Closing it returns it to the pool.
     public static Connection connect() throws SQLException {
-        return DriverManager.getConnection(URL);
+        return getPool().acquire();
+    }
+
+    private static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+
+        if (current == null) {
+            synchronized (Database.class) {
+                current = pool;
+
+                if (current == null) {
+                    current = new ConnectionPool(URL, POOL_SIZE, ACQUIRE_TIMEOUT_MS, LEAK_THRESHOLD_MS, PROFILE::apply, STATEMENT_CACHE_SIZE);
+                    pool = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    public static String getUrl() {
+        return URL;
     }
 
+    public static DatabaseProfile getProfile() {
+        return PROFILE;
+    }
+
+    // Acquire-wait times and usage of the connection pool
+    public static ConnectionPool.Stats getPoolStats() {
+        return getPool().getStats();
+    }
+
+    // Prepared statement cache hits and misses per SQL text
+    public static List<ConnectionPool.StatementStats> getStatementCacheStats() {
+        return getPool().getStatementStats();
+    }
+
+    // Close all pooled connections. The next connect() call opens a fresh pool.
+    public static void shutdown() {
+        synchronized (Database.class) {
+            if (pool != null) {
+                pool.close();
+                pool = null;
+            }
+
+            closeVersionConnection();
+        }
+    }
+
+    // Changes whenever a commit from any other connection, in this process or another, reached the
+    // database file (PRAGMA data_version). Reads the WAL index only, no table is touched.
+    public static synchronized long dataVersion() throws SQLException {
+
+        try {
+            if (versionConnection == null) {
+                versionConnection = DriverManager.getConnection(URL);
+            }
+
+            try (Statement stmt = versionConnection.createStatement();
+                 ResultSet resultset = stmt.executeQuery("PRAGMA data_version")) {
+
+                resultset.next();
+                return resultset.getLong(1);
+            }
+        } catch (SQLException e) {
+            // reopen on the next call
+            closeVersionConnection();
+            throw e;
+        }
+    }
+
+    private static synchronized void closeVersionConnection() {
+
+        if (versionConnection != null) {
+            try {
+                versionConnection.close();
+            } catch (SQLException e) {
+                logger.warn("Failed to close data version connection", e);
+            }
+
+            versionConnection = null;
+        }
+    }
+
+    // Create or upgrade the schema, see SchemaMigrations
     public static void init() {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS students (
-                student_id TEXT PRIMARY KEY,
-                full_name TEXT NOT NULL,
-                programme TEXT NOT NULL,
-                level INTEGER NOT NULL,
-                gpa REAL NOT NULL,
-                email TEXT,
-                phone TEXT,
-                date_added TEXT,
-                status TEXT
-            );
-        """;
 
         try (Connection conn = connect();
             Statement stmt = conn.createStatement()) {
 
-            stmt.execute(sql);
+            SchemaMigrations.migrate(conn);
             logger.info("Database initialized.");
+
+            logEffectiveSettings(stmt);
         } catch (SQLException e) {
             logger.error("Unable to initialize database.", e);
             throw new RuntimeException("Application start failed: DB initialization failure.", e);
         }
     }
+
+
+    // Read the settings back from SQLite so the log shows what is actually in effect
+    private static void logEffectiveSettings(Statement stmt) throws SQLException {
+        StringBuilder settings = new StringBuilder();
+
+        for (String pragma : new String[] { "journal_mode", "synchronous", "cache_size", "mmap_size", "temp_store", "busy_timeout" }) {
+            try (ResultSet resultset = stmt.executeQuery("PRAGMA " + pragma)) {
+                if (resultset.next()) {
+                    settings.append(pragma).append('=').append(resultset.getString(1)).append(' ');
+                }
+            }
+        }
+
+        logger.info("Database profile {}: {}", PROFILE.getName(), settings.toString().trim());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,138 @@
+/*
+ * DatabaseProfile is a named set of SQLite PRAGMA settings applied to every connection the app hands out.
+ * Select a profile with -Ddb.profile=safe|balanced|throughput (default balanced) and override
+ * single settings with -Ddb.pragma.journalMode, -Ddb.pragma.synchronous, -Ddb.pragma.cacheSize,
+ * -Ddb.pragma.mmapSize, -Ddb.pragma.tempStore and -Ddb.pragma.busyTimeout.
+*/
+
+package com.frederickamakye.smsplus.utils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+
+public class DatabaseProfile {
+
+    private final String name;
+    private final String journalMode;
+    private final String synchronous;
+    private final int cacheSize;      // negative value = KiB, positive = pages (SQLite semantics)
+    private final long mmapSize;      // bytes
+    private final String tempStore;
+    private final int busyTimeoutMs;
+
+    public DatabaseProfile(String name, String journalMode, String synchronous, int cacheSize,
+                           long mmapSize, String tempStore, int busyTimeoutMs) {
+        this.name = name;
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.cacheSize = cacheSize;
+        this.mmapSize = mmapSize;
+        this.tempStore = tempStore;
+        this.busyTimeoutMs = busyTimeoutMs;
+    }
+
+    // Built-in profiles
+    public static DatabaseProfile named(String name) {
+
+        switch (name.toLowerCase(Locale.ROOT)) {
+            // SQLite defaults: rollback journal, fsync on every commit. Readers block while a write commits.
+            case "safe" -> {
+                return new DatabaseProfile("safe", "DELETE", "FULL", -2_000, 0L, "DEFAULT", 5_000);
+            }
+            // WAL lets readers keep working while an import writes. NORMAL sync is durable in WAL mode
+            // except for the last transactions before a power loss.
+            case "balanced" -> {
+                return new DatabaseProfile("balanced", "WAL", "NORMAL", -16_000, 64L * 1024 * 1024, "MEMORY", 5_000);
+            }
+            // Larger page cache and memory map for big tables and bulk imports
+            case "throughput" -> {
+                return new DatabaseProfile("throughput", "WAL", "NORMAL", -64_000, 256L * 1024 * 1024, "MEMORY", 10_000);
+            }
+            default -> throw new IllegalArgumentException("Unknown database profile: " + name);
+        }
+    }
+
+    // Profile selected with -Ddb.profile plus any -Ddb.pragma.* overrides
+    public static DatabaseProfile fromSystemProperties() {
+
+        DatabaseProfile base = named(System.getProperty("db.profile", "balanced"));
+
+        return new DatabaseProfile(
+                base.name,
+                validated(System.getProperty("db.pragma.journalMode", base.journalMode),
+                        "DELETE", "TRUNCATE", "PERSIST", "MEMORY", "WAL", "OFF"),
+                validated(System.getProperty("db.pragma.synchronous", base.synchronous),
+                        "OFF", "NORMAL", "FULL", "EXTRA"),
+                Integer.getInteger("db.pragma.cacheSize", base.cacheSize),
+                Long.getLong("db.pragma.mmapSize", base.mmapSize),
+                validated(System.getProperty("db.pragma.tempStore", base.tempStore),
+                        "DEFAULT", "FILE", "MEMORY"),
+                Integer.getInteger("db.pragma.busyTimeout", base.busyTimeoutMs)
+        );
+    }
+
+    // PRAGMA values cannot be bound as parameters, so only known keywords are accepted
+    private static String validated(String value, String... allowed) {
+        String upper = value.trim().toUpperCase(Locale.ROOT);
+
+        for (String option : allowed) {
+            if (option.equals(upper)) {
+                return upper;
+            }
+        }
+
+        throw new IllegalArgumentException("Invalid PRAGMA value: " + value);
+    }
+
+
+    // Apply the profile to a newly opened connection
+    public void apply(Connection conn) throws SQLException {
+
+        try (Statement stmt = conn.createStatement()) {
+
+            // busy_timeout first so the journal mode switch waits for other connections
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeoutMs);
+            stmt.execute("PRAGMA journal_mode = " + journalMode);
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+            stmt.execute("PRAGMA cache_size = " + cacheSize);
+            stmt.execute("PRAGMA mmap_size = " + mmapSize);
+            stmt.execute("PRAGMA temp_store = " + tempStore);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getJournalMode() {
+        return journalMode;
+    }
+
+    public String getSynchronous() {
+        return synchronous;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public long getMmapSize() {
+        return mmapSize;
+    }
+
+    public String getTempStore() {
+        return tempStore;
+    }
+
+    public int getBusyTimeoutMs() {
+        return busyTimeoutMs;
+    }
+
+    @Override
+    public String toString() {
+        return "%s (journal_mode=%s, synchronous=%s, cache_size=%d, mmap_size=%d, temp_store=%s, busy_timeout=%d)"
+                .formatted(name, journalMode, synchronous, cacheSize, mmapSize, tempStore, busyTimeoutMs);
+    }
+}
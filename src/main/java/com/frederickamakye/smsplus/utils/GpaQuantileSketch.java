@@ -0,0 +1,71 @@
+/*
+ * GpaQuantileSketch estimates GPA percentiles in one pass, without keeping or sorting the values.
+ * - GPA is bounded (0.0 - 4.0), so the sketch is a fixed histogram of 401 bins, one per 0.01
+ * - GPAs recorded to two decimals are counted exactly, others are rounded to the nearest 0.01
+ * - Sketches of separate batches merge by adding their bins, the result is the same as one pass
+ * Memory is about 3 KB per sketch whatever the number of students.
+*/
+
+package com.frederickamakye.smsplus.utils;
+
+public class GpaQuantileSketch {
+
+    public static final double MIN_GPA = 0.0;
+    public static final double MAX_GPA = 4.0;
+
+    // bins per GPA point
+    private static final int RESOLUTION = 100;
+
+    private final long[] counts = new long[(int) Math.round((MAX_GPA - MIN_GPA) * RESOLUTION) + 1];
+    private long total;
+
+    // Out of range values are counted at the nearest bound
+    public void add(double gpa) {
+
+        double bounded = Math.max(MIN_GPA, Math.min(MAX_GPA, gpa));
+
+        counts[(int) Math.round((bounded - MIN_GPA) * RESOLUTION)]++;
+        total++;
+    }
+
+    // Add the counts of another sketch to this one
+    public GpaQuantileSketch merge(GpaQuantileSketch other) {
+
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+
+        total += other.total;
+        return this;
+    }
+
+    public long count() {
+        return total;
+    }
+
+    // Nearest-rank quantile: the smallest GPA with at least q of the values at or below it.
+    // q = 0.5 is the median (the lower middle value for an even count). NaN when empty.
+    public double quantile(double q) {
+
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+
+        if (total == 0) {
+            return Double.NaN;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+
+            if (seen >= rank) {
+                return MIN_GPA + (double) i / RESOLUTION;
+            }
+        }
+
+        return MAX_GPA;
+    }
+}
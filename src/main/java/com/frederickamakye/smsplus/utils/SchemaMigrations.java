@@ -0,0 +1,306 @@
+/*
+ * SchemaMigrations upgrades the database schema in place at startup.
+ * - Applied versions are recorded in the schema_version table
+ * - Each pending migration runs in its own transaction, in version order
+ * - New schema changes are added to the end of MIGRATIONS, never edited once released
+*/
+
+package com.frederickamakye.smsplus.utils;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class SchemaMigrations {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrations.class);
+
+    private static final List<Migration> MIGRATIONS = List.of(
+
+        new Migration(1, "Create students table",
+            """
+            CREATE TABLE IF NOT EXISTS students (
+                student_id TEXT PRIMARY KEY,
+                full_name TEXT NOT NULL,
+                programme TEXT NOT NULL,
+                level INTEGER NOT NULL,
+                gpa REAL NOT NULL,
+                email TEXT,
+                phone TEXT,
+                date_added TEXT,
+                status TEXT
+            )
+            """
+        ),
+
+        // StudentRepository.filterBy("programme" | "level" | "status") equality lookups
+        // and SELECT DISTINCT programme for the programme filter drop downs
+        new Migration(2, "Index filter columns",
+            "CREATE INDEX IF NOT EXISTS idx_students_programme ON students (programme)",
+            "CREATE INDEX IF NOT EXISTS idx_students_level ON students (level)",
+            "CREATE INDEX IF NOT EXISTS idx_students_status ON students (status)"
+        ),
+
+        // getAtRiskStudents (gpa < ? ORDER BY gpa), getTopPerformers without filters
+        // (ORDER BY gpa DESC LIMIT 10) and sortBy("gpa") read this index in order instead of sorting
+        new Migration(3, "Index gpa",
+            "CREATE INDEX IF NOT EXISTS idx_students_gpa ON students (gpa)"
+        ),
+
+        // sortBy("fullname") orders by full_name COLLATE NOCASE and walks this index
+        new Migration(4, "Index full_name case-insensitively",
+            "CREATE INDEX IF NOT EXISTS idx_students_full_name_nocase ON students (full_name COLLATE NOCASE)"
+        ),
+
+        // StudentRepository.getPage orders by (sort column, student_id) and seeks past the last row
+        // of the previous page. Adding student_id to the sort indexes lets that walk the index
+        // without a sort step. Single-column uses (filters, reports) still match the index prefix.
+        new Migration(5, "Add student_id tie breaker to sort indexes for keyset paging",
+            "DROP INDEX IF EXISTS idx_students_gpa",
+            "CREATE INDEX idx_students_gpa ON students (gpa, student_id)",
+            "DROP INDEX IF EXISTS idx_students_level",
+            "CREATE INDEX idx_students_level ON students (level, student_id)",
+            "DROP INDEX IF EXISTS idx_students_full_name_nocase",
+            "CREATE INDEX idx_students_full_name_nocase ON students (full_name COLLATE NOCASE, student_id)"
+        ),
+
+        // StudentRepository.search matches words against this full-text index instead of scanning
+        // the table with LIKE '%q%'. It is an external content table over students (no duplicate
+        // copy of the text) and the triggers keep it in sync with every insert, update and delete.
+        // Prefix indexes for 2-4 characters keep short search-as-you-type prefixes from scanning
+        // every term in the index.
+        new Migration(6, "Full-text search index on students",
+            """
+            CREATE VIRTUAL TABLE IF NOT EXISTS students_fts USING fts5(
+                student_id, full_name, email, programme,
+                content = 'students', content_rowid = 'rowid',
+                tokenize = 'unicode61 remove_diacritics 2',
+                prefix = '2 3 4'
+            )
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS students_fts_insert AFTER INSERT ON students BEGIN
+                INSERT INTO students_fts (rowid, student_id, full_name, email, programme)
+                VALUES (new.rowid, new.student_id, new.full_name, new.email, new.programme);
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS students_fts_delete AFTER DELETE ON students BEGIN
+                INSERT INTO students_fts (students_fts, rowid, student_id, full_name, email, programme)
+                VALUES ('delete', old.rowid, old.student_id, old.full_name, old.email, old.programme);
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS students_fts_update AFTER UPDATE OF student_id, full_name, email, programme ON students BEGIN
+                INSERT INTO students_fts (students_fts, rowid, student_id, full_name, email, programme)
+                VALUES ('delete', old.rowid, old.student_id, old.full_name, old.email, old.programme);
+                INSERT INTO students_fts (rowid, student_id, full_name, email, programme)
+                VALUES (new.rowid, new.student_id, new.full_name, new.email, new.programme);
+            END
+            """,
+            // index the rows that existed before this migration
+            "INSERT INTO students_fts (students_fts) VALUES ('rebuild')"
+        ),
+
+        // StudentRepository.getProgrammeSummary and getGpaDistribution read these per-programme and
+        // per-band totals instead of grouping the whole students table. The triggers move a student's
+        // count (and GPA) out of its old group and into its new one on every write, a group whose
+        // count drops to 0 is deleted so the tables list the same groups GROUP BY would.
+        // The band CASE must stay the same as StudentRepository.GPA_BAND.
+        new Migration(7, "Trigger-maintained report summary tables",
+            """
+            CREATE TABLE IF NOT EXISTS programme_stats (
+                programme TEXT PRIMARY KEY,
+                total INTEGER NOT NULL,
+                gpa_sum REAL NOT NULL
+            ) WITHOUT ROWID
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS gpa_band_stats (
+                band TEXT PRIMARY KEY,
+                total INTEGER NOT NULL
+            ) WITHOUT ROWID
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS students_stats_insert AFTER INSERT ON students BEGIN
+                INSERT INTO programme_stats (programme, total, gpa_sum) VALUES (new.programme, 1, new.gpa)
+                ON CONFLICT (programme) DO UPDATE SET total = total + 1, gpa_sum = gpa_sum + excluded.gpa_sum;
+
+                INSERT INTO gpa_band_stats (band, total) VALUES (
+                    CASE
+                        WHEN new.gpa < 2.0 THEN 'Below 2.0'
+                        WHEN new.gpa < 3.0 THEN '2.0 - 2.99'
+                        WHEN new.gpa < 3.7 THEN '3.0 - 3.69'
+                        ELSE '3.7 - 4.0'
+                    END, 1)
+                ON CONFLICT (band) DO UPDATE SET total = total + 1;
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS students_stats_delete AFTER DELETE ON students BEGIN
+                UPDATE programme_stats SET total = total - 1, gpa_sum = gpa_sum - old.gpa
+                WHERE programme = old.programme;
+                DELETE FROM programme_stats WHERE programme = old.programme AND total <= 0;
+
+                UPDATE gpa_band_stats SET total = total - 1
+                WHERE band = CASE
+                        WHEN old.gpa < 2.0 THEN 'Below 2.0'
+                        WHEN old.gpa < 3.0 THEN '2.0 - 2.99'
+                        WHEN old.gpa < 3.7 THEN '3.0 - 3.69'
+                        ELSE '3.7 - 4.0'
+                    END;
+                DELETE FROM gpa_band_stats WHERE total <= 0;
+            END
+            """,
+            """
+            CREATE TRIGGER IF NOT EXISTS students_stats_update AFTER UPDATE OF programme, gpa ON students BEGIN
+                UPDATE programme_stats SET total = total - 1, gpa_sum = gpa_sum - old.gpa
+                WHERE programme = old.programme;
+                DELETE FROM programme_stats WHERE programme = old.programme AND total <= 0;
+
+                UPDATE gpa_band_stats SET total = total - 1
+                WHERE band = CASE
+                        WHEN old.gpa < 2.0 THEN 'Below 2.0'
+                        WHEN old.gpa < 3.0 THEN '2.0 - 2.99'
+                        WHEN old.gpa < 3.7 THEN '3.0 - 3.69'
+                        ELSE '3.7 - 4.0'
+                    END;
+                DELETE FROM gpa_band_stats WHERE total <= 0;
+
+                INSERT INTO programme_stats (programme, total, gpa_sum) VALUES (new.programme, 1, new.gpa)
+                ON CONFLICT (programme) DO UPDATE SET total = total + 1, gpa_sum = gpa_sum + excluded.gpa_sum;
+
+                INSERT INTO gpa_band_stats (band, total) VALUES (
+                    CASE
+                        WHEN new.gpa < 2.0 THEN 'Below 2.0'
+                        WHEN new.gpa < 3.0 THEN '2.0 - 2.99'
+                        WHEN new.gpa < 3.7 THEN '3.0 - 3.69'
+                        ELSE '3.7 - 4.0'
+                    END, 1)
+                ON CONFLICT (band) DO UPDATE SET total = total + 1;
+            END
+            """,
+            // totals of the rows that existed before this migration
+            """
+            INSERT INTO programme_stats (programme, total, gpa_sum)
+            SELECT programme, COUNT(*), SUM(gpa) FROM students GROUP BY programme
+            """,
+            """
+            INSERT INTO gpa_band_stats (band, total)
+            SELECT
+                CASE
+                    WHEN gpa < 2.0 THEN 'Below 2.0'
+                    WHEN gpa < 3.0 THEN '2.0 - 2.99'
+                    WHEN gpa < 3.7 THEN '3.0 - 3.69'
+                    ELSE '3.7 - 4.0'
+                END AS band,
+                COUNT(*)
+            FROM students
+            GROUP BY band
+            """
+        ),
+
+        // StudentRepository.getTopPerformers matches programme = ? COLLATE NOCASE and takes the first
+        // 10 rows by gpa DESC. With the filter columns leading and gpa DESC last, each filter
+        // combination is one contiguous, already ordered range of an index: no scan, no sort.
+        // Without filters the report walks idx_students_gpa backwards.
+        new Migration(8, "Index top performer filters case-insensitively",
+            "CREATE INDEX IF NOT EXISTS idx_students_programme_level_gpa ON students (programme COLLATE NOCASE, level, gpa DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_students_programme_gpa ON students (programme COLLATE NOCASE, gpa DESC)",
+            "CREATE INDEX IF NOT EXISTS idx_students_level_gpa ON students (level, gpa DESC)"
+        ),
+
+        // Unsorted StudentRepository.find listings are paged by offset in student_id order. Ending the
+        // programme and status indexes with student_id, as migration 5 did for level, lets a filtered
+        // listing read its rows in that order without a sort step.
+        new Migration(9, "Add student_id tie breaker to filter indexes for offset paging",
+            "DROP INDEX IF EXISTS idx_students_programme",
+            "CREATE INDEX idx_students_programme ON students (programme, student_id)",
+            "DROP INDEX IF EXISTS idx_students_status",
+            "CREATE INDEX idx_students_status ON students (status, student_id)"
+        )
+    );
+
+
+    // Apply every migration newer than the recorded schema version
+    public static void migrate(Connection conn) throws SQLException {
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version INTEGER PRIMARY KEY,
+                    description TEXT NOT NULL,
+                    applied_at TEXT NOT NULL
+                )
+            """);
+        }
+
+        int current = currentVersion(conn);
+
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version() > current) {
+                apply(conn, migration);
+            }
+        }
+
+        logger.info("Schema at version {}", currentVersion(conn));
+    }
+
+    public static int currentVersion(Connection conn) throws SQLException {
+
+        try (Statement stmt = conn.createStatement();
+             ResultSet resultset = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+
+            return resultset.next() ? resultset.getInt(1) : 0;
+        }
+    }
+
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+    }
+
+
+    private static void apply(Connection conn, Migration migration) throws SQLException {
+
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+
+        try (Statement stmt = conn.createStatement()) {
+
+            for (String sql : migration.statements()) {
+                stmt.execute(sql);
+            }
+
+            try (var insert = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)")) {
+
+                insert.setInt(1, migration.version());
+                insert.setString(2, migration.description());
+                insert.setString(3, LocalDateTime.now().toString());
+                insert.executeUpdate();
+            }
+
+            conn.commit();
+            logger.info("Applied schema migration {}: {}", migration.version(), migration.description());
+
+        } catch (SQLException e) {
+
+            conn.rollback();
+            logger.error("Schema migration {} failed", migration.version(), e);
+            throw e;
+
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+
+    private record Migration(int version, String description, String... statements) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.frederickamakye.smsplus.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public class SearchText {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Lower case, accents removed and split on anything that is not a letter or digit,
+    // like the students_fts unicode61 tokenizer with remove_diacritics
+    public static String[] words(String text) {
+
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD))
+                .replaceAll("")
+                .toLowerCase(Locale.ROOT);
+
+        return SEPARATORS.splitAsStream(folded)
+                .filter(word -> !word.isEmpty())
+                .toArray(String[]::new);
+    }
+}
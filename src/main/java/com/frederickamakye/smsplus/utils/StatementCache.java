@@ -0,0 +1,226 @@
+/*
+ * StatementCache keeps prepared statements of one pooled connection keyed by SQL text,
+ * so repeated repository queries skip SQLite's prepare (parse and plan) step.
+ * - Statements handed out are proxies, close() resets them and puts them back in the cache
+ * - A statement is removed from the cache while it is in use, so it is never shared
+ * - When the connection goes back to the pool, statements the borrower left open are put back too
+ *   and their proxies fail from then on, they can never run on the next borrower's connection
+ * - The least recently used statement is closed when the cache is full
+*/
+
+package com.frederickamakye.smsplus.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+class StatementCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementCache.class);
+
+    private final Connection physical;
+    private final int maxSize;
+    private final Map<String, Counters> stats;
+
+    // access order, so iteration starts at the least recently used statement
+    private final LinkedHashMap<String, PreparedStatement> idle;
+
+    // handed out to the current borrower and not closed yet
+    private final Set<CachedStatementHandler> inUse = new HashSet<>();
+
+    StatementCache(Connection physical, int maxSize, Map<String, Counters> stats) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.stats = stats;
+        this.idle = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+
+    // Return a cached statement for the SQL or prepare a new one
+    PreparedStatement prepare(String sql, Connection owner) throws SQLException {
+
+        Counters counters = stats.computeIfAbsent(sql, key -> new Counters());
+
+        PreparedStatement statement = idle.remove(sql);
+
+        if (statement != null && !statement.isClosed()) {
+            counters.hits.increment();
+        } else {
+            counters.misses.increment();
+            statement = physical.prepareStatement(sql);
+        }
+
+        CachedStatementHandler handler = new CachedStatementHandler(sql, statement, owner);
+        inUse.add(handler);
+
+        return wrap(handler);
+    }
+
+    // Called by the pool when the borrower returns the connection
+    void endLease() {
+
+        if (inUse.isEmpty()) {
+            return;
+        }
+
+        logger.debug("Closing {} statements left open by the borrower", inUse.size());
+
+        for (CachedStatementHandler handler : new ArrayList<>(inUse)) {
+            handler.leaseEnded = true;
+            handler.release();
+        }
+    }
+
+
+    // Called by the proxy when the caller closes its statement
+    private void release(String sql, PreparedStatement statement) {
+
+        try {
+            ResultSet open = statement.getResultSet();
+
+            if (open != null) {
+                open.close();
+            }
+
+            statement.clearParameters();
+            statement.clearBatch();
+
+        } catch (SQLException e) {
+            logger.debug("Discarding statement that failed to reset", e);
+            closeQuietly(statement);
+            return;
+        }
+
+        // the same SQL was prepared twice while both were in use: keep only one
+        PreparedStatement previous = idle.put(sql, statement);
+
+        if (previous != null) {
+            closeQuietly(previous);
+        }
+
+        if (idle.size() > maxSize) {
+            var eldest = idle.entrySet().iterator().next();
+            idle.remove(eldest.getKey());
+            closeQuietly(eldest.getValue());
+            stats.get(eldest.getKey()).evictions.increment();
+        }
+    }
+
+    void close() {
+        idle.values().forEach(StatementCache::closeQuietly);
+        idle.clear();
+    }
+
+    int size() {
+        return idle.size();
+    }
+
+
+    private PreparedStatement wrap(CachedStatementHandler handler) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                handler
+        );
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.debug("Failed to close statement", e);
+        }
+    }
+
+
+    // Delegates every call to the real statement, except close() which returns it to the cache
+    private class CachedStatementHandler implements InvocationHandler {
+
+        private final String sql;
+        private final PreparedStatement statement;
+        private final Connection owner;
+        private boolean released;
+        private boolean leaseEnded;
+
+        CachedStatementHandler(String sql, PreparedStatement statement, Connection owner) {
+            this.sql = sql;
+            this.statement = statement;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+            switch (method.getName()) {
+                case "close" -> {
+                    release();
+                    return null;
+                }
+                case "isClosed" -> {
+                    return released || statement.isClosed();
+                }
+                case "getConnection" -> {
+                    return owner;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                    // fall through to delegation below
+                }
+            }
+
+            if (leaseEnded) {
+                throw new SQLException("Statement's connection has been returned to the pool");
+            }
+
+            if (released) {
+                throw new SQLException("Statement has been closed");
+            }
+
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        void release() {
+            if (!released) {
+                released = true;
+                inUse.remove(this);
+                StatementCache.this.release(sql, statement);
+            }
+        }
+    }
+
+
+    // Per SQL text counters, shared by every connection of the pool
+    static class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+    }
+
+    static Map<String, Counters> newStats() {
+        return new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,76 @@
+package com.frederickamakye.smsplus.repository;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+
+import com.frederickamakye.smsplus.models.Student;
+
+// Runs every StudentRepositoryTests test against the in-memory store, plus write-through checks
+class InMemoryStudentStoreTests extends StudentRepositoryTests {
+
+    @Override
+    protected StudentStore createStore() throws SQLException {
+        return new InMemoryStudentStore(new StudentRepository());
+    }
+
+
+    @Test
+    void mustWriteThroughToSqlite() throws SQLException {
+
+        StudentRepository sqlite = new StudentRepository();
+
+        Student student = new Student("MEM1", "Memory Student", "B.Tech IT", 100, 3.0);
+        studentStore.create(student);
+
+        assertEquals("Memory Student", sqlite.getById("MEM1").getFullName());
+
+        student.setGpa(3.4);
+        studentStore.update(student);
+
+        assertEquals(3.4, sqlite.getById("MEM1").getGpa());
+
+        studentStore.delete("MEM1");
+
+        assertNull(sqlite.getById("MEM1"));
+    }
+
+
+    @Test
+    void mustMatchSqliteAfterUpsert() throws SQLException {
+
+        Student existing = new Student("MEM2", "Before", "B.Tech IT", 100, 2.5);
+        existing.setDateAdded("2024-01-01");
+        existing.setStatus("Active");
+        studentStore.create(existing);
+
+        Student changed = new Student("MEM2", "After", "B.Tech IT", 200, 2.5);
+        changed.setDateAdded("2025-06-01");
+        changed.setStatus("Active");
+
+        Student added = new Student("MEM3", "Added", "B.Sc Nursing", 100, 3.1);
+        added.setDateAdded("2025-06-01");
+        added.setStatus("Active");
+
+        studentStore.upsertAll(List.of(changed, added), 10);
+
+        // memory must hold exactly what SQLite holds, including the date_added kept by the upsert
+        List<Student> inSqlite = new StudentRepository().getAll();
+        List<Student> inMemory = studentStore.getAll();
+
+        assertEquals(inSqlite.size(), inMemory.size());
+
+        for (Student expected : inSqlite) {
+            Student actual = studentStore.getById(expected.getStudentId());
+
+            assertEquals(expected.getFullName(), actual.getFullName());
+            assertEquals(expected.getLevel(), actual.getLevel());
+            assertEquals(expected.getDateAdded(), actual.getDateAdded());
+        }
+
+        assertEquals("2024-01-01", studentStore.getById("MEM2").getDateAdded());
+    }
+}
@@ -0,0 +1,143 @@
+package com.frederickamakye.smsplus.repository;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.frederickamakye.smsplus.models.Student;
+import com.frederickamakye.smsplus.models.StudentRow;
+import com.frederickamakye.smsplus.services.StudentPrefixIndex;
+import com.frederickamakye.smsplus.utils.Database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Compares the FTS5 search path with the LIKE scan it replaced, the in-memory store and the
+// search-as-you-type prefix index, on a synthetic table.
+// The default run uses a small table. Run with -Plarge-tests for a 500k row benchmark.
+class SearchBenchmarkTests {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchBenchmarkTests.class);
+
+    private static final int ROWS = Integer.getInteger("search.benchmark.rows", 20_000);
+    private static final int RUNS = 20;
+
+    // Search-as-you-type answers in well under a millisecond, the bound leaves room for a slow CI machine
+    private static final double PREFIX_MAX_MS_PER_QUERY = 20.0;
+
+    private StudentRepository studentRepository;
+    private StudentStore memoryStore;
+    private StudentPrefixIndex prefixIndex;
+
+    @BeforeEach
+    void setup() throws SQLException {
+
+        System.setProperty("db.url", "jdbc:sqlite:data/test.db");
+        Database.init();
+        studentRepository = new StudentRepository();
+
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("DELETE FROM students");
+
+            stmt.execute("""
+                WITH RECURSIVE seq(n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < %d)
+                INSERT INTO students (student_id, full_name, programme, level, gpa, email, status)
+                SELECT printf('B%%015d', n),
+                       CASE n %% 4 WHEN 0 THEN 'Kwame' WHEN 1 THEN 'Akosua' WHEN 2 THEN 'Yaw' ELSE 'Efua' END
+                           || ' Surname' || n,
+                       'Programme ' || (n %% 20), 100 * (1 + n %% 4), (n %% 401) / 100.0,
+                       'student' || n || '@example.com', 'Active'
+                FROM seq
+            """.formatted(ROWS));
+        }
+
+        memoryStore = new InMemoryStudentStore(studentRepository);
+
+        prefixIndex = new StudentPrefixIndex();
+        prefixIndex.ensureLoaded(studentRepository);
+    }
+
+    @AfterEach
+    void cleanup() throws SQLException {
+
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("DELETE FROM students");
+        }
+    }
+
+
+    @Test
+    void mustMatchLikeResultsAndReportTimings() throws SQLException {
+
+        String query = "surname12";
+
+        // same students found by both paths (every match here is a word prefix)
+        Set<String> fts = ids(studentRepository.search(query, ROWS));
+        Set<String> like = ids(studentRepository.searchLike(query, ROWS));
+
+        assertEquals(like, fts);
+        assertEquals(fts, ids(memoryStore.search(query, ROWS)));
+
+        // the prefix index covers the same columns as the full-text index
+        assertEquals(fts, prefixIndex.search(query, ROWS).stream().map(StudentRow::getStudentId).collect(Collectors.toSet()));
+
+        // selective query: LIKE has to scan every row, FTS reads a few index entries
+        report("selective", "surname" + (ROWS - 1));
+        // broad query: many matches, FTS ranks all of them while LIKE stops at the limit
+        report("broad", "kwame");
+        report("short prefix", "kw");
+    }
+
+    private void report(String label, String query) throws SQLException {
+        long ftsNanos = time(() -> studentRepository.search(query, 50));
+        long likeNanos = time(() -> studentRepository.searchLike(query, 50));
+        long memoryNanos = time(() -> memoryStore.search(query, 50));
+        long prefixNanos = time(() -> prefixIndex.search(query, 50));
+
+        double prefixMs = prefixNanos / 1_000_000.0 / RUNS;
+
+        logger.info("Search benchmark {} '{}' ({} rows, {} runs): FTS5 {} ms/query, LIKE {} ms/query, in-memory {} ms/query, prefix index {} ms/query",
+                label, query, ROWS, RUNS, millis(ftsNanos), millis(likeNanos), millis(memoryNanos), millis(prefixNanos));
+
+        assertTrue(prefixMs < PREFIX_MAX_MS_PER_QUERY,
+                "prefix index took " + prefixMs + " ms per '" + query + "' query");
+    }
+
+    private static String millis(long totalNanos) {
+        return String.format("%.3f", totalNanos / 1_000_000.0 / RUNS);
+    }
+
+
+    private long time(SearchCall call) throws SQLException {
+        call.run(); // warm up
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < RUNS; i++) {
+            call.run();
+        }
+
+        return System.nanoTime() - start;
+    }
+
+    private Set<String> ids(List<Student> students) {
+        return students.stream().map(Student::getStudentId).collect(Collectors.toSet());
+    }
+
+    private interface SearchCall {
+        void run() throws SQLException;
+    }
+}
@@ -3,28 +3,41 @@ package com.frederickamakye.smsplus.repository;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.frederickamakye.smsplus.models.BulkWriteResult;
+import com.frederickamakye.smsplus.models.GpaSample;
+import com.frederickamakye.smsplus.models.PageRequest;
 import com.frederickamakye.smsplus.models.Student;
+import com.frederickamakye.smsplus.models.StudentPage;
+import com.frederickamakye.smsplus.models.StudentQuery;
+import com.frederickamakye.smsplus.models.StudentRow;
 import com.frederickamakye.smsplus.utils.Database;
 import com.frederickamakye.smsplus.utils.StudentIdGenerator;
 
+// Runs against the SQLite store. InMemoryStudentStoreTests runs the same tests against the in-memory store.
 class StudentRepositoryTests {
 
-    private StudentRepository studentRepository;
+    protected StudentStore studentStore;
+
+    protected StudentStore createStore() throws SQLException {
+        return new StudentRepository();
+    }
 
     @BeforeEach
     void setup() throws SQLException {
         // Configure test database
         System.setProperty("db.url", "jdbc:sqlite:data/test.db");
         Database.init();
-        studentRepository = new StudentRepository();
 
         // Reset database before each test begins
         try (Connection conn = Database.connect();
@@ -32,6 +45,8 @@ class StudentRepositoryTests {
 
             stmt.execute("DELETE FROM students");
         }
+
+        studentStore = createStore();
     }
 
 
@@ -40,9 +55,9 @@ class StudentRepositoryTests {
 
         Student student = new Student(StudentIdGenerator.generate(), "John Doe", "B.Tech Electrical Engineering", 400, 3.5);
 
-        studentRepository.create(student);
+        studentStore.create(student);
 
-        Student found = studentRepository.getById(student.getStudentId());
+        Student found = studentStore.getById(student.getStudentId());
 
         // check student was created
         assertNotNull(found);
@@ -56,14 +71,14 @@ class StudentRepositoryTests {
 
         Student student = new Student(StudentIdGenerator.generate(), "John Doe", "B.Tech Electrical Engineering", 400, 3.5);
 
-        studentRepository.create(student);
+        studentStore.create(student);
 
         student.setFullName("Micheal Jackson");
         student.setGpa(4.9);
 
-        studentRepository.update(student);
+        studentStore.update(student);
 
-        Student updated = studentRepository.getById(student.getStudentId());
+        Student updated = studentStore.getById(student.getStudentId());
 
         // check updated record exist
         assertNotNull(updated);
@@ -79,10 +94,10 @@ class StudentRepositoryTests {
 
         Student student = new Student(StudentIdGenerator.generate(), "Anonymous", "B.Tech Electrical Engineering", 400, 3.5);
 
-        studentRepository.create(student);
-        studentRepository.delete(student.getStudentId());
+        studentStore.create(student);
+        studentStore.delete(student.getStudentId());
 
-        Student found = studentRepository.getById(student.getStudentId());
+        Student found = studentStore.getById(student.getStudentId());
 
         // check student record is not in db
         assertNull(found);
@@ -95,10 +110,10 @@ class StudentRepositoryTests {
         Student student1 = new Student(StudentIdGenerator.generate(), "Anonymous 1", "B.Tech Electrical Engineering", 300, 3.3);
         Student student2 = new Student(StudentIdGenerator.generate(), "Anonymous 2", "B.Tech Electrical Engineering", 200, 2.9);
 
-        studentRepository.create(student1);
-        studentRepository.create(student2);
+        studentStore.create(student1);
+        studentStore.create(student2);
 
-        List<Student> students = studentRepository.getAll();
+        List<Student> students = studentStore.getAll();
 
         // check 2 student records are in db which is the total records in the db
         assertEquals(2, students.size());
@@ -111,28 +126,295 @@ class StudentRepositoryTests {
         Student student1 = new Student(StudentIdGenerator.generate(), "John Doe", "B.Tech Electrical Engineering", 100, 3.0);
         Student student2 = new Student(StudentIdGenerator.generate(), "Jane Smith", "B.Tech Electrical Engineering", 100, 3.5);
 
-        studentRepository.create(student1);
-        studentRepository.create(student2);
+        studentStore.create(student1);
+        studentStore.create(student2);
 
-        List<Student> results = studentRepository.search("john");
+        List<Student> results = studentStore.search("john");
 
         // 1 student has name john so check 1 record is returned
         assertEquals(1, results.size());
     }
 
 
+    @Test
+    void mustRankEveryFullTextMatch() throws SQLException {
+
+        // bm25 ranking is SQLite's, the in-memory store lists matches in insertion order
+        StudentRepository sqlite = new StudentRepository();
+
+        List<Student> students = new ArrayList<>();
+
+        for (int i = 0; i < 600; i++) {
+            students.add(new Student("R" + i, "Kwame Asante Boateng Mensah Owusu " + i, "B.Tech IT", 100, 3.0));
+        }
+
+        // the best match comes after the first 500 matches in index order
+        students.add(new Student("RBEST", "Kwame", "B.Tech IT", 100, 3.0));
+        sqlite.createAll(students, 1000);
+
+        assertEquals("RBEST", sqlite.search("kwame", 1).get(0).getStudentId());
+        assertEquals(10, sqlite.search("kwame", 10).size());
+    }
+
+
     @Test
     void mustSortStudentsByGpaDescending() throws SQLException {
 
         Student low = new Student(StudentIdGenerator.generate(), "Student One", "B.Tech Electrical Engineering", 100, 2.0);
         Student high = new Student(StudentIdGenerator.generate(), "Student Two", "B.Tech Electrical Engineering", 100, 3.8);
 
-        studentRepository.create(low);
-        studentRepository.create(high);
+        studentStore.create(low);
+        studentStore.create(high);
 
-        List<Student> students = studentRepository.sortBy("gpa", "desc");
+        List<Student> students = studentStore.sortBy("gpa", "desc");
 
         // since records were sorted by gpa in descending order check if the last record(high) is now the first record
         assertEquals(high.getStudentId(), students.get(0).getStudentId());
     }
-}
\ No newline at end of file
+
+
+    @Test
+    void mustBulkCreateStudentsAndReportDuplicates() throws SQLException {
+
+        Student existing = new Student(StudentIdGenerator.generate(), "Existing", "B.Tech IT", 100, 3.0);
+        studentStore.create(existing);
+
+        List<Student> students = List.of(
+                new Student(StudentIdGenerator.generate(), "Bulk 1", "B.Tech IT", 100, 3.1),
+                new Student(existing.getStudentId(), "Duplicate", "B.Tech IT", 100, 3.2),
+                new Student(StudentIdGenerator.generate(), "Bulk 2", "B.Tech IT", 200, 2.5)
+        );
+
+        // batch size 2 so the rows span two transactions
+        BulkWriteResult result = studentStore.createAll(students, 2);
+
+        assertEquals(2, result.getInsertedCount());
+        // the duplicate is reported by its position in the list
+        assertTrue(result.isFailed(1));
+        assertEquals(3, studentStore.getAll().size());
+        // existing record is not overwritten
+        assertEquals("Existing", studentStore.getById(existing.getStudentId()).getFullName());
+    }
+
+
+    @Test
+    void mustPageThroughStudentsWithKeyset() throws SQLException {
+
+        // equal GPAs force the student_id tie breaker to be used across page boundaries
+        double[] gpas = { 3.0, 2.0, 3.0, 3.0, 1.5 };
+
+        for (int i = 0; i < gpas.length; i++) {
+            studentStore.create(new Student(StudentIdGenerator.generate(), "Paged " + i, "B.Tech IT", 100, gpas[i]));
+        }
+
+        PageRequest request = new PageRequest("gpa", "desc", 2);
+        List<Student> seen = new ArrayList<>();
+        StudentPage page;
+
+        do {
+            page = studentStore.getPage(request);
+            seen.addAll(page.getStudents());
+            request = request.next(page);
+        } while (page.hasMore());
+
+        // every student is returned exactly once, in descending GPA order
+        assertEquals(gpas.length, seen.size());
+        assertEquals(gpas.length, seen.stream().map(Student::getStudentId).distinct().count());
+
+        for (int i = 0; i < seen.size() - 1; i++) {
+            assertTrue(seen.get(i).getGpa() >= seen.get(i + 1).getGpa());
+        }
+    }
+
+
+    @Test
+    void mustApplyFilterToPages() throws SQLException {
+
+        studentStore.create(new Student(StudentIdGenerator.generate(), "IT Student", "B.Tech IT", 100, 3.0));
+        studentStore.create(new Student(StudentIdGenerator.generate(), "EE Student", "B.Tech Electrical Engineering", 100, 3.0));
+
+        StudentPage page = studentStore.getPage(new PageRequest("fullname", "asc", 10).withFilter("programme", "B.Tech IT"));
+
+        assertEquals(1, page.getStudents().size());
+        assertEquals("IT Student", page.getStudents().get(0).getFullName());
+    }
+
+
+    @Test
+    void mustKeepSearchIndexInSyncWithWrites() throws SQLException {
+
+        Student student = new Student(StudentIdGenerator.generate(), "Ama Mensah", "B.Tech IT", 100, 3.0);
+        student.setEmail("ama.mensah@example.com");
+        studentStore.create(student);
+
+        // prefix of a name, an email and an id all find the student
+        assertEquals(1, studentStore.search("mens").size());
+        assertEquals(1, studentStore.search("ama.mensah@example").size());
+        assertEquals(1, studentStore.search(student.getStudentId().substring(0, 6)).size());
+
+        student.setFullName("Ama Owusu");
+        student.setEmail("ama.owusu@example.com");
+        studentStore.update(student);
+
+        assertEquals(0, studentStore.search("mensah").size());
+        assertEquals(1, studentStore.search("owusu").size());
+
+        studentStore.delete(student.getStudentId());
+
+        assertEquals(0, studentStore.search("owusu").size());
+    }
+
+
+    @Test
+    void mustReturnListingRowsWithTableColumns() throws SQLException {
+
+        Student student = new Student(StudentIdGenerator.generate(), "Kofi Boateng", "B.Tech IT", 200, 3.2);
+        student.setEmail("kofi@example.com");
+        student.setStatus("Active");
+        studentStore.create(student);
+
+        List<StudentRow> rows = studentStore.getAllRows();
+
+        assertEquals(1, rows.size());
+        assertEquals(student.getStudentId(), rows.get(0).getStudentId());
+        assertEquals("Kofi Boateng", rows.get(0).getFullName());
+        assertEquals(200, rows.get(0).getLevel());
+        assertEquals(3.2, rows.get(0).getGpa());
+        assertEquals("Active", rows.get(0).getStatus());
+
+        // search and filter projections return the same row
+        assertEquals(student.getStudentId(), studentStore.findRows(new StudentQuery().text("kofi")).get(0).getStudentId());
+        assertEquals(student.getStudentId(), studentStore.findRows(new StudentQuery().programme("B.Tech IT")).get(0).getStudentId());
+
+        // the full record is still available by ID
+        assertEquals("kofi@example.com", studentStore.getById(student.getStudentId()).getEmail());
+    }
+
+
+    @Test
+    void mustCombineSearchFilterAndSortInOneQuery() throws SQLException {
+
+        studentStore.create(new Student("Q1", "Ama Mensah", "B.Tech IT", 200, 3.6));
+        studentStore.create(new Student("Q2", "Ama Owusu", "B.Tech IT", 200, 2.4));
+        studentStore.create(new Student("Q3", "Ama Boateng", "B.Tech IT", 300, 3.9));
+        studentStore.create(new Student("Q4", "Ama Asante", "B.Sc Nursing", 200, 3.8));
+        studentStore.create(new Student("Q5", "Kwame Mensah", "B.Tech IT", 200, 3.7));
+
+        StudentQuery query = new StudentQuery()
+                .text("ama")
+                .programme("B.Tech IT")
+                .level(200)
+                .gpaBetween(2.0, 4.0)
+                .orderBy(StudentQuery.SortField.GPA, true);
+
+        List<Student> students = studentStore.find(query);
+
+        // Q3 has another level, Q4 another programme and Q5 does not match the text
+        assertEquals(List.of("Q1", "Q2"), students.stream().map(Student::getStudentId).toList());
+
+        // gpa range and limit
+        assertEquals(List.of("Q5"), studentStore.find(new StudentQuery()
+                .gpaBetween(3.65, 3.75)
+                .limit(1)).stream().map(Student::getStudentId).toList());
+    }
+
+    @Test
+    void mustCountAndPageListingsWithOffset() throws SQLException {
+
+        for (int i = 1; i <= 7; i++) {
+            studentStore.create(new Student("P" + i, "Student " + i, "B.Tech IT", 100, 2.0 + i / 10.0));
+        }
+
+        studentStore.create(new Student("P8", "Other Student", "B.Sc Nursing", 100, 3.0));
+
+        StudentQuery query = new StudentQuery().programme("B.Tech IT");
+
+        // count ignores limit and offset
+        assertEquals(7, studentStore.count(new StudentQuery(query).limit(2).offset(4)));
+        assertEquals(8, studentStore.count(new StudentQuery()));
+
+        // unsorted pages follow student ID order and never overlap
+        assertEquals(List.of("P1", "P2", "P3"), ids(studentStore.findRows(new StudentQuery(query).limit(3))));
+        assertEquals(List.of("P4", "P5", "P6"), ids(studentStore.findRows(new StudentQuery(query).limit(3).offset(3))));
+        assertEquals(List.of("P7"), ids(studentStore.findRows(new StudentQuery(query).limit(3).offset(6))));
+
+        // sorted pages and an offset without limit
+        StudentQuery byGpa = new StudentQuery(query).orderBy(StudentQuery.SortField.GPA, true);
+        assertEquals(List.of("P5", "P4"), ids(studentStore.findRows(new StudentQuery(byGpa).limit(2).offset(2))));
+        assertEquals(List.of("P2", "P1"), ids(studentStore.findRows(new StudentQuery(byGpa).offset(5))));
+    }
+
+    @Test
+    void mustSeekListingsFromACursorRow() throws SQLException {
+
+        // C2 and C3 tie on gpa and name case, the student ID breaks the tie
+        studentStore.create(new Student("C1", "ama", "B.Tech IT", 100, 2.5));
+        studentStore.create(new Student("C2", "Kofi", "B.Tech IT", 200, 3.0));
+        studentStore.create(new Student("C3", "kofi", "B.Tech IT", 200, 3.0));
+        studentStore.create(new Student("C4", "Yaw", "B.Tech IT", 300, 3.5));
+        studentStore.create(new Student("C5", "Esi", "B.Sc Nursing", 100, 3.0));
+
+        StudentQuery query = new StudentQuery().programme("B.Tech IT");
+
+        // unsorted listings seek by student ID
+        assertEquals(List.of("C3", "C4"), ids(studentStore.findRows(new StudentQuery(query).after(null, "C2"))));
+        assertEquals(List.of("C1", "C2"), ids(studentStore.findRows(new StudentQuery(query).before(null, "C3"))));
+
+        StudentQuery byGpa = new StudentQuery(query).orderBy(StudentQuery.SortField.GPA, true);
+        assertEquals(List.of("C2", "C1"), ids(studentStore.findRows(new StudentQuery(byGpa).after(3.0, "C3"))));
+        assertEquals(List.of("C3"), ids(studentStore.findRows(new StudentQuery(byGpa).before(3.0, "C2").limit(1))));
+
+        StudentQuery byName = new StudentQuery(query).orderBy(StudentQuery.SortField.FULL_NAME, false);
+        assertEquals(List.of("C3", "C4"), ids(studentStore.findRows(new StudentQuery(byName).after("Kofi", "C2"))));
+        assertEquals(List.of("C1", "C2"), ids(studentStore.findRows(new StudentQuery(byName).before("kofi", "C3"))));
+
+        StudentQuery byLevel = new StudentQuery(query).orderBy(StudentQuery.SortField.LEVEL, true);
+        assertEquals(List.of("C2", "C1"), ids(studentStore.findRows(new StudentQuery(byLevel).after(200, "C3"))));
+
+        // count ignores the cursor
+        assertEquals(4, studentStore.count(new StudentQuery(byGpa).after(3.0, "C3")));
+    }
+
+    @Test
+    void mustStreamGpaSamplesOfEveryStudent() throws SQLException {
+
+        studentStore.create(new Student("G1", "Ama Mensah", "B.Tech IT", 200, 3.6));
+        studentStore.create(new Student("G2", "Kofi Owusu", "B.Sc Nursing", 300, 2.4));
+
+        List<String> samples;
+
+        try (Stream<GpaSample> stream = studentStore.streamGpaSamples(StudentRepository.DEFAULT_FETCH_SIZE)) {
+            samples = stream.map(sample -> sample.getProgramme() + "/" + sample.getLevel() + "/" + sample.getGpa())
+                    .sorted().toList();
+        }
+
+        assertEquals(List.of("B.Sc Nursing/300/2.4", "B.Tech IT/200/3.6"), samples);
+    }
+
+    @Test
+    void mustMatchInMemoryLikeFind() throws SQLException {
+
+        studentStore.create(new Student("M1", "Ama Mensah", "B.Tech IT", 200, 3.6));
+        studentStore.create(new Student("M2", "Kofi Owusu", "B.Tech IT", 300, 2.4));
+        studentStore.create(new Student("M3", "Ámà Boateng", "B.Sc Nursing", 200, 3.9));
+
+        List<Student> all = studentStore.getAll();
+
+        for (StudentQuery query : List.of(
+                new StudentQuery().text("ama"),
+                new StudentQuery().text("nursing ama"),
+                new StudentQuery().text("ama").level(200).gpaBetween(3.7, 4.0),
+                new StudentQuery().programme("B.Tech IT").status("Active"),
+                new StudentQuery().text("-"))) {
+
+            List<String> expected = studentStore.find(query).stream().map(Student::getStudentId).sorted().toList();
+            List<String> matched = all.stream().filter(query::matches).map(Student::getStudentId).sorted().toList();
+
+            assertEquals(expected, matched);
+        }
+    }
+
+    private List<String> ids(List<StudentRow> rows) {
+        return rows.stream().map(StudentRow::getStudentId).toList();
+    }
+}
@@ -0,0 +1,200 @@
+package com.frederickamakye.smsplus.services;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.frederickamakye.smsplus.exceptions.ValidationException;
+import com.frederickamakye.smsplus.models.Student;
+import com.frederickamakye.smsplus.utils.Database;
+
+class AsyncStudentServiceTests {
+
+    private AsyncStudentService asyncService;
+
+    @BeforeEach
+    void setup() throws SQLException {
+
+        System.setProperty("db.url", "jdbc:sqlite:data/test.db");
+        Database.init();
+
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("DELETE FROM students");
+        }
+
+        StudentService.clearCache();
+        asyncService = new AsyncStudentService(new StudentService(), 2, 0);
+    }
+
+    @AfterEach
+    void teardown() {
+        asyncService.close();
+    }
+
+
+    @Test
+    void mustRunReadsAndWritesAsynchronously() throws Exception {
+
+        Student student = new Student("S1", "Async Student", "Computer Science", 100, 3.1);
+
+        asyncService.createStudent(student).get(5, TimeUnit.SECONDS);
+
+        Student found = asyncService.getStudentById("S1").get(5, TimeUnit.SECONDS);
+        assertEquals("Async Student", found.getFullName());
+
+        assertEquals(1, asyncService.getDashboardStats().get(5, TimeUnit.SECONDS).getTotalStudents());
+    }
+
+    @Test
+    void mustCompleteExceptionallyWithServiceErrors() {
+
+        Student invalid = new Student("S1", "", "Computer Science", 100, 3.1);
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> asyncService.createStudent(invalid).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(ValidationException.class, error.getCause());
+    }
+
+    @Test
+    void mustLimitConcurrentCalls() throws Exception {
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<CompletableFuture<Integer>> calls = new ArrayList<>();
+
+        for (int i = 0; i < 6; i++) {
+            calls.add(asyncService.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return running.decrementAndGet();
+            }));
+        }
+
+        // wait until the first two hold their permits and the others queue
+        long deadline = System.currentTimeMillis() + 5000;
+        while (asyncService.getQueuedCount() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(2, asyncService.getRunningCount());
+        assertEquals(4, asyncService.getQueuedCount());
+
+        release.countDown();
+        CompletableFuture.allOf(calls.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, maxRunning.get());
+        assertEquals(0, asyncService.getRunningCount());
+    }
+
+    @Test
+    void mustCountExecutedTasksAgainstTheLimit() throws Exception {
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(2);
+
+        for (int i = 0; i < 2; i++) {
+            asyncService.execute(() -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                finished.countDown();
+            });
+        }
+
+        // both permits are held by the tasks, a call queues behind them
+        CompletableFuture<Integer> call = asyncService.submit(() -> 1);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (asyncService.getQueuedCount() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(2, asyncService.getRunningCount());
+        assertEquals(1, asyncService.getQueuedCount());
+
+        release.countDown();
+
+        assertEquals(1, call.get(5, TimeUnit.SECONDS));
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void mustInterruptCancelledCallAndReleasePermit() throws Exception {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        CompletableFuture<Object> call = asyncService.submit(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        });
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        call.cancel(true);
+
+        assertTrue(call.isCancelled());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+
+        // the permit is free again for the next call
+        assertEquals("next", asyncService.submit(() -> "next").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void mustTimeOutSlowCalls() throws Exception {
+
+        AtomicBoolean interrupted = new AtomicBoolean();
+        CountDownLatch finished = new CountDownLatch(1);
+
+        try (AsyncStudentService timed = new AsyncStudentService(new StudentService(), 1, 50)) {
+
+            CompletableFuture<Object> call = timed.submit(() -> {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                }
+                finished.countDown();
+                return null;
+            });
+
+            ExecutionException error = assertThrows(ExecutionException.class, () -> call.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(TimeoutException.class, error.getCause());
+
+            assertTrue(finished.await(5, TimeUnit.SECONDS));
+            assertTrue(interrupted.get());
+        }
+    }
+}
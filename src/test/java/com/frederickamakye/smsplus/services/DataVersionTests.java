@@ -0,0 +1,114 @@
+package com.frederickamakye.smsplus.services;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.frederickamakye.smsplus.models.Student;
+import com.frederickamakye.smsplus.utils.Database;
+
+class DataVersionTests {
+
+    private StudentService studentService;
+
+    @BeforeEach
+    void setup() throws SQLException {
+
+        System.setProperty("db.url", "jdbc:sqlite:data/test.db");
+        Database.init();
+
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("DELETE FROM students");
+        }
+
+        StudentService.clearCache();
+        studentService = new StudentService();
+    }
+
+
+    @Test
+    void mustKeepStampWhenNothingWasWritten() throws SQLException {
+
+        DataVersion.Stamp before = DataVersion.current();
+
+        studentService.getAllStudents();
+        studentService.getDashboardStats();
+
+        assertEquals(before, DataVersion.current());
+    }
+
+
+    @Test
+    void mustChangeStampOnServiceWrite() throws SQLException {
+
+        DataVersion.Stamp before = DataVersion.current();
+
+        studentService.createStudent(new Student(null, "Version Student", "B.Tech Electrical Engineering", 100, 3.2));
+
+        DataVersion.Stamp after = DataVersion.current();
+
+        assertNotEquals(before, after);
+        assertEquals(before.localWrites() + 1, after.localWrites());
+    }
+
+
+    @Test
+    void mustDetectWritesOutsideTheService() throws SQLException {
+
+        assertEquals(0, studentService.getDashboardStats().getTotalStudents());
+
+        DataVersion.Stamp before = DataVersion.current();
+
+        // stands in for another process writing to the same file
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("""
+                    INSERT INTO students (student_id, full_name, programme, level, gpa, email, phone, date_added, status)
+                    VALUES ('EXT0001', 'External Student', 'B.Tech Electrical Engineering', 100, 3.0,
+                            'ext@example.com', '0240000000', '2024-01-01', 'Active')
+                    """);
+        }
+
+        DataVersion.Stamp after = DataVersion.current();
+
+        assertNotEquals(before.databaseVersion(), after.databaseVersion());
+        assertEquals(before.localWrites(), after.localWrites());
+
+        // the cached stats were dropped when the change was noticed
+        assertEquals(1, studentService.getDashboardStats().getTotalStudents());
+    }
+
+
+    @Test
+    void mustDetectOutsideWriteFollowedByServiceWrite() throws SQLException {
+
+        Student cached = studentService.createStudent(
+                new Student(null, "Cached Student", "B.Tech Electrical Engineering", 100, 3.0));
+
+        assertEquals(3.0, studentService.getStudentById(cached.getStudentId()).getGpa());
+
+        DataVersion.current();
+
+        // another process edits the cached student, then this app writes before any view checks
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("UPDATE students SET gpa = 1.0 WHERE student_id = '" + cached.getStudentId() + "'");
+        }
+
+        studentService.createStudent(new Student(null, "Other Student", "B.Tech Electrical Engineering", 100, 3.2));
+
+        DataVersion.current();
+
+        // the service write must not hide the outside one, the by-ID lookup is not stale
+        assertEquals(1.0, studentService.getStudentById(cached.getStudentId()).getGpa());
+    }
+}
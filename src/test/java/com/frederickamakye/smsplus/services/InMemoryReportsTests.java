@@ -0,0 +1,15 @@
+package com.frederickamakye.smsplus.services;
+
+import java.sql.SQLException;
+
+import com.frederickamakye.smsplus.repository.InMemoryStudentStore;
+import com.frederickamakye.smsplus.repository.StudentRepository;
+import com.frederickamakye.smsplus.repository.StudentStore;
+
+class InMemoryReportsTests extends ReportsTests {
+
+    @Override
+    protected StudentStore createStore() throws SQLException {
+        return new InMemoryStudentStore(new StudentRepository());
+    }
+}
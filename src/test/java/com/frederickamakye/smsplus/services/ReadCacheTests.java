@@ -0,0 +1,106 @@
+package com.frederickamakye.smsplus.services;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+
+class ReadCacheTests {
+
+    @Test
+    void mustServeRepeatedReadsFromCache() throws SQLException {
+
+        ReadCache cache = new ReadCache(10, 60_000, 100);
+        AtomicInteger loads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("value", cache.get(ReadCache.Region.REPORT, "key", () -> {
+                loads.incrementAndGet();
+                return "value";
+            }));
+        }
+
+        // loaded once, then served twice from the cache
+        assertEquals(1, loads.get());
+        assertEquals(2, cache.getStats().hits());
+        assertEquals(1, cache.getStats().misses());
+        assertEquals(2.0 / 3, cache.getStats().hitRatio(), 0.0001);
+    }
+
+
+    @Test
+    void mustEvictLeastRecentlyUsedEntryWhenFull() throws SQLException {
+
+        ReadCache cache = new ReadCache(2, 60_000, 100);
+
+        cache.get(ReadCache.Region.STUDENT, "a", () -> "A");
+        cache.get(ReadCache.Region.STUDENT, "b", () -> "B");
+        cache.get(ReadCache.Region.STUDENT, "a", () -> "A");   // a is now the most recently used
+        cache.get(ReadCache.Region.STUDENT, "c", () -> "C");   // evicts b
+
+        assertEquals(1, cache.getStats().evictions());
+        assertEquals("A", cache.get(ReadCache.Region.STUDENT, "a", () -> "reloaded"));
+        assertEquals("reloaded", cache.get(ReadCache.Region.STUDENT, "b", () -> "reloaded"));
+    }
+
+
+    @Test
+    void mustExpireEntriesAfterTimeToLive() throws SQLException, InterruptedException {
+
+        ReadCache cache = new ReadCache(10, 20, 100);
+
+        cache.get(ReadCache.Region.REPORT, "key", () -> "old");
+        Thread.sleep(40);
+
+        assertEquals("new", cache.get(ReadCache.Region.REPORT, "key", () -> "new"));
+        assertEquals(1, cache.getStats().expirations());
+    }
+
+
+    @Test
+    void mustInvalidateOnlyTargetedEntries() throws SQLException {
+
+        ReadCache cache = new ReadCache(10, 60_000, 100);
+
+        cache.get(ReadCache.Region.STUDENT, "a", () -> "A");
+        cache.get(ReadCache.Region.STUDENT, "b", () -> "B");
+        cache.get(ReadCache.Region.QUERY, "all", () -> "rows");
+
+        cache.invalidate(ReadCache.Region.STUDENT, "a");
+        cache.invalidate(ReadCache.Region.QUERY);
+
+        // b was not written, so it is still cached
+        assertEquals("B", cache.get(ReadCache.Region.STUDENT, "b", () -> "reloaded"));
+        assertEquals("reloaded", cache.get(ReadCache.Region.STUDENT, "a", () -> "reloaded"));
+        assertEquals("reloaded", cache.get(ReadCache.Region.QUERY, "all", () -> "reloaded"));
+        assertEquals(2, cache.getStats().invalidations());
+    }
+
+
+    @Test
+    void mustNotCacheResultLoadedDuringInvalidation() throws SQLException {
+
+        ReadCache cache = new ReadCache(10, 60_000, 100);
+
+        // a write lands while the read is still loading, the loaded value may be stale
+        cache.get(ReadCache.Region.QUERY, "all", () -> {
+            cache.invalidate(ReadCache.Region.QUERY);
+            return "stale";
+        });
+
+        assertEquals("fresh", cache.get(ReadCache.Region.QUERY, "all", () -> "fresh"));
+    }
+
+
+    @Test
+    void mustNotCacheLargeCollections() throws SQLException {
+
+        ReadCache cache = new ReadCache(10, 60_000, 2);
+
+        cache.get(ReadCache.Region.QUERY, "big", () -> List.of(1, 2, 3));
+
+        assertEquals(0, cache.getStats().size());
+    }
+}
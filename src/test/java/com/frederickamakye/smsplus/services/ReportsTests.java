@@ -3,30 +3,44 @@ package com.frederickamakye.smsplus.services;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import com.frederickamakye.smsplus.models.GpaBandSummary;
+import com.frederickamakye.smsplus.models.GpaHistogramBand;
+import com.frederickamakye.smsplus.models.GpaPercentileSummary;
 import com.frederickamakye.smsplus.models.ProgrammeSummary;
 import com.frederickamakye.smsplus.models.Student;
+import com.frederickamakye.smsplus.repository.StudentRepository;
+import com.frederickamakye.smsplus.repository.StudentStore;
 import com.frederickamakye.smsplus.utils.Database;
 
+// Runs against the SQLite store, InMemoryReportsTests runs the same reports against the in-memory store
 class ReportsTests {
 
     private StudentService studentService;
 
+    // full name -> generated student ID of the seeded students
+    private final Map<String, String> ids = new HashMap<>();
+
+    protected StudentStore createStore() throws SQLException {
+        return new StudentRepository();
+    }
+
     @BeforeEach
     void setup() throws SQLException {
 
         System.setProperty("db.url", "jdbc:sqlite:data/test.db");
         Database.init();
-        studentService = new StudentService();
 
         try (Connection conn = Database.connect();
              Statement stmt = conn.createStatement()) {
@@ -34,12 +48,22 @@ class ReportsTests {
             stmt.execute("DELETE FROM students");
         }
 
-        // seed testing dataset
-        studentService.createStudent(new Student(null, "Student A", "B.Tech IT", 100, 3.9));
-        studentService.createStudent(new Student(null, "Student B", "B.Tech IT", 100, 3.5));
-        studentService.createStudent(new Student(null, "Student C", "B.Tech Computer Engineering", 200, 2.8));
-        studentService.createStudent(new Student(null, "Student D", "B.Tech Computer Engineering", 200, 1.5));
-        studentService.createStudent(new Student(null, "Student E", "B.Tech Electrical Engineering", 300, 2.0));
+        // direct SQL writes bypass the shared read cache
+        StudentService.clearCache();
+
+        studentService = new StudentService(createStore());
+
+        // seed testing dataset, keeping the generated IDs by name
+        ids.clear();
+        seed(new Student(null, "Student A", "B.Tech IT", 100, 3.9));
+        seed(new Student(null, "Student B", "B.Tech IT", 100, 3.5));
+        seed(new Student(null, "Student C", "B.Tech Computer Engineering", 200, 2.8));
+        seed(new Student(null, "Student D", "B.Tech Computer Engineering", 200, 1.5));
+        seed(new Student(null, "Student E", "B.Tech Electrical Engineering", 300, 2.0));
+    }
+
+    private void seed(Student student) throws SQLException {
+        ids.put(student.getFullName(), studentService.createStudent(student).getStudentId());
     }
 
     @Test
@@ -55,6 +79,15 @@ class ReportsTests {
         }
     }
 
+    @Test
+    void mustMatchTopPerformerProgrammeIgnoringCase() throws SQLException {
+
+        List<Student> top = studentService.getTopPerformersReport("b.tech it", 100);
+
+        assertEquals(2, top.size());
+        assertEquals("Student A", top.get(0).getFullName());
+    }
+
     @Test
     void mustReturnAtRiskStudents() throws SQLException {
 
@@ -91,4 +124,124 @@ class ReportsTests {
         // 3 programmes in seed data so 3 summeries expected
         assertEquals(3, summary.size());  
     }
-}
\ No newline at end of file
+
+
+    @Test
+    void mustReturnGpaPercentiles() throws SQLException {
+
+        List<GpaPercentileSummary> percentiles = studentService.getGpaPercentileReport();
+
+        // all students, 3 programmes and 3 levels
+        assertEquals(7, percentiles.size());
+
+        // seed GPAs in order: 1.5, 2.0, 2.8, 3.5, 3.9
+        GpaPercentileSummary all = percentiles.get(0);
+        assertEquals(5, all.getTotalStudents());
+        assertEquals(1.5, all.getP10(), 1e-9);
+        assertEquals(2.8, all.getMedian(), 1e-9);
+        assertEquals(3.9, all.getP90(), 1e-9);
+
+        GpaPercentileSummary level100 = percentiles.stream()
+                .filter(row -> row.getGrouping().equals("Level") && row.getGroup().equals("100"))
+                .findFirst().orElseThrow();
+        assertEquals(2, level100.getTotalStudents());
+        assertEquals(3.5, level100.getMedian(), 1e-9);
+        assertEquals(3.9, level100.getP75(), 1e-9);
+    }
+
+
+    @Test
+    void mustReturnGpaHistogramForAnyCutPoints() throws SQLException {
+
+        List<GpaHistogramBand> bands = studentService.getGpaHistogramReport(List.of(2.0, 3.0, 3.7), false);
+
+        assertEquals(4, bands.size());
+        assertEquals("Below 2.0", bands.get(0).getBand());
+        assertEquals(1, bands.get(0).getTotalStudents());
+
+        // a GPA on a cut point belongs to the band above it
+        GpaHistogramBand middle = bands.get(1);
+        assertEquals(2, middle.getTotalStudents());
+        assertEquals(2.4, middle.getAverageGpa(), 1e-9);
+        assertEquals(2.0, middle.getMinGpa(), 1e-9);
+        assertEquals(2.8, middle.getMaxGpa(), 1e-9);
+
+        assertEquals("3.7 and above", bands.get(3).getBand());
+        assertEquals(1, bands.get(3).getTotalStudents());
+    }
+
+
+    @Test
+    void mustReturnGpaHistogramPerProgramme() throws SQLException {
+
+        List<GpaHistogramBand> bands = studentService.getGpaHistogramReport(List.of(3.0), true);
+
+        // 3 programmes, 2 bands each, empty bands included
+        assertEquals(6, bands.size());
+
+        GpaHistogramBand itBelow = bands.stream()
+                .filter(band -> band.getProgramme().equals("B.Tech IT") && band.getBand().equals("Below 3.0"))
+                .findFirst().orElseThrow();
+        assertEquals(0, itBelow.getTotalStudents());
+
+        GpaHistogramBand itAbove = bands.stream()
+                .filter(band -> band.getProgramme().equals("B.Tech IT") && band.getBand().equals("3.0 and above"))
+                .findFirst().orElseThrow();
+        assertEquals(2, itAbove.getTotalStudents());
+        assertEquals(3.7, itAbove.getAverageGpa(), 1e-9);
+    }
+
+
+    @Test
+    void mustRejectUnorderedCutPoints() {
+        assertThrows(IllegalArgumentException.class, () -> studentService.getGpaHistogramReport(List.of(3.0, 2.0), false));
+    }
+
+
+    @Test
+    void mustKeepSummaryTablesInStepWithWrites() throws SQLException {
+
+        Student moved = studentService.getStudentById(ids.get("Student D"));
+        moved.setProgramme("B.Tech IT");
+        moved.setGpa(3.8);
+        studentService.updateStudent(moved);
+
+        studentService.deleteStudent(ids.get("Student E"));
+
+        assertTrue(new StudentRepository().checkReportStats().isEmpty());
+
+        // Electrical Engineering lost its only student, so the group is gone like in a GROUP BY
+        List<ProgrammeSummary> summary = studentService.getProgrammeSummaryReport();
+        assertEquals(2, summary.size());
+
+        ProgrammeSummary it = summary.stream().filter(row -> row.getProgramme().equals("B.Tech IT")).findFirst().orElseThrow();
+        assertEquals(3, it.getTotalStudents());
+        assertEquals((3.9 + 3.5 + 3.8) / 3, it.getAverageGpa(), 1e-9);
+    }
+
+
+    @Test
+    void mustRebuildSummaryTablesThatDrifted() throws SQLException {
+
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("UPDATE programme_stats SET total = total + 5");
+            stmt.execute("DELETE FROM gpa_band_stats WHERE band = 'Below 2.0'");
+        }
+
+        assertEquals(4, studentService.checkReportStats().size());
+
+        // cache the report as it is now
+        studentService.getProgrammeSummaryReport();
+
+        studentService.rebuildReportStats();
+
+        assertTrue(studentService.checkReportStats().isEmpty());
+
+        // the rebuild dropped the cached report
+        ProgrammeSummary it = studentService.getProgrammeSummaryReport().stream()
+                .filter(row -> row.getProgramme().equals("B.Tech IT")).findFirst().orElseThrow();
+        assertEquals(2, it.getTotalStudents());
+    }
+}
@@ -0,0 +1,135 @@
+package com.frederickamakye.smsplus.services;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.frederickamakye.smsplus.models.Student;
+import com.frederickamakye.smsplus.models.StudentRow;
+import com.frederickamakye.smsplus.utils.Database;
+
+class StudentPrefixIndexTests {
+
+    private StudentService studentService;
+
+    @BeforeEach
+    void setup() throws SQLException {
+
+        System.setProperty("db.url", "jdbc:sqlite:data/test.db");
+        Database.init();
+        studentService = new StudentService();
+
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("DELETE FROM students");
+        }
+
+        StudentService.clearCache();
+
+        studentService.createStudent(new Student("PX100", "Kwame Mensah", "Computer Science", 100, 3.1));
+        studentService.createStudent(new Student("PX200", "Akosua Kwarteng", "Mathematics", 200, 2.8));
+        studentService.createStudent(new Student("QY300", "Efua Ànsah", "Physics", 300, 3.6));
+    }
+
+
+    @Test
+    void mustMatchPrefixesOfIdAndNameWords() throws SQLException {
+
+        assertEquals(List.of("PX100", "PX200"), ids(studentService.suggestStudents("kw", 10)));
+        assertEquals(List.of("PX100", "PX200"), ids(studentService.suggestStudents("px", 10)));
+        assertEquals(List.of("PX200"), ids(studentService.suggestStudents("Akos", 10)));
+
+        // accents and case are folded like the FTS index
+        assertEquals(List.of("QY300"), ids(studentService.suggestStudents("ANS", 10)));
+    }
+
+    @Test
+    void mustRequireEveryWordAndRespectLimit() throws SQLException {
+
+        assertEquals(List.of("PX200"), ids(studentService.suggestStudents("kwa ako", 10)));
+        assertEquals(1, studentService.suggestStudents("kw", 1).size());
+
+        assertTrue(studentService.suggestStudents("--", 10).isEmpty());
+    }
+
+    @Test
+    void mustFindTheSameStudentsAsFullTextSearch() throws SQLException {
+
+        Student withEmail = new Student("RZ400", "Yaa Asantewaa", "Computer Engineering", 400, 3.3);
+        withEmail.setEmail("yaa.asantewaa@example.com");
+        studentService.createStudent(withEmail);
+
+        // typing and pressing Enter list the same students, whichever column the words are in
+        for (String text : new String[] { "physics", "comp", "computer kw", "example", "yaa comp", "px" }) {
+            assertEquals(Set.copyOf(studentService.searchStudents(text).stream().map(Student::getStudentId).toList()),
+                    Set.copyOf(ids(studentService.suggestStudents(text, 10))), text);
+        }
+
+        assertEquals(List.of("PX100"), ids(studentService.suggestStudents("comp kwa", 10)));
+    }
+
+    @Test
+    void mustMatchSingleStudentsLikeTheIndex() throws SQLException {
+
+        Student student = studentService.getStudentById("PX100");
+
+        // the check a view runs on a written student agrees with what the index lists
+        for (String text : new String[] { "kw", "comp", "px1", "mensah science", "physics", "px2", "--" }) {
+            assertEquals(ids(studentService.suggestStudents(text, 10)).contains("PX100"),
+                    StudentPrefixIndex.matches(student, text), text);
+        }
+    }
+
+    @Test
+    void mustFollowServiceWrites() throws SQLException {
+
+        // load the index before writing
+        assertEquals(List.of("PX100"), ids(studentService.suggestStudents("mensah", 10)));
+
+        Student student = studentService.getStudentById("PX100");
+        student.setFullName("Kwame Boateng");
+        studentService.updateStudent(student);
+
+        assertTrue(studentService.suggestStudents("mensah", 10).isEmpty());
+        assertEquals(List.of("PX100"), ids(studentService.suggestStudents("boat", 10)));
+        assertEquals("Kwame Boateng", studentService.suggestStudents("boat", 10).get(0).getFullName());
+
+        studentService.deleteStudent("PX100");
+        assertTrue(studentService.suggestStudents("boat", 10).isEmpty());
+
+        studentService.upsertStudents(List.of(new Student("ZZ900", "Yaw Boateng", "Physics", 400, 3.9)));
+        assertEquals(List.of("ZZ900"), ids(studentService.suggestStudents("boat", 10)));
+
+        // a new StudentService on the same store shares the index
+        assertEquals(List.of("ZZ900"), ids(new StudentService().suggestStudents("yaw", 10)));
+    }
+
+    @Test
+    void mustReloadAfterClear() throws SQLException {
+
+        studentService.suggestStudents("kw", 10);
+
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("DELETE FROM students WHERE student_id = 'PX200'");
+        }
+
+        StudentService.clearCache();
+
+        assertEquals(List.of("PX100"), ids(studentService.suggestStudents("kw", 10)));
+    }
+
+
+    private List<String> ids(List<StudentRow> rows) {
+        return rows.stream().map(StudentRow::getStudentId).toList();
+    }
+}
@@ -3,16 +3,22 @@ package com.frederickamakye.smsplus.services;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.fail;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import com.frederickamakye.smsplus.exceptions.ValidationException;
+import com.frederickamakye.smsplus.models.BulkWriteResult;
+import com.frederickamakye.smsplus.models.DashboardStats;
 import com.frederickamakye.smsplus.models.Student;
+import com.frederickamakye.smsplus.models.StudentChange;
+import com.frederickamakye.smsplus.repository.StudentRepository;
 import com.frederickamakye.smsplus.utils.Database;
 
 class StudentServiceTests {
@@ -31,6 +37,9 @@ class StudentServiceTests {
 
             stmt.execute("DELETE FROM students");
         }
+
+        // direct SQL writes bypass the shared read cache
+        StudentService.clearCache();
     }
 
 
@@ -91,6 +100,27 @@ class StudentServiceTests {
     }
 
 
+    @Test
+    void mustRebuildSearchIndexAndDropCachedSearches() throws SQLException {
+
+        studentService.createStudent(new Student(null, "Rebuilt Index", "B.Tech IT", 100, 3.0));
+
+        // the index loses its rows, as if the rowids it points at had moved
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("INSERT INTO students_fts (students_fts) VALUES ('delete-all')");
+        }
+
+        StudentService.clearCache();
+        assertEquals(0, studentService.searchStudents("rebuilt").size());
+
+        studentService.rebuildSearchIndex();
+
+        assertEquals(1, studentService.searchStudents("rebuilt").size());
+    }
+
+
     @Test
     void mustRejectEmptySearchQuery() {
 
@@ -122,4 +152,153 @@ class StudentServiceTests {
 
         assertEquals(high.getStudentId(), students.get(0).getStudentId());
     }
-}
\ No newline at end of file
+
+
+    @Test
+    void mustReportInvalidRowsInBulkCreate() throws SQLException {
+
+        List<Student> students = List.of(
+                new Student(null, "Valid One", "B.Tech IT", 100, 3.0),
+                new Student(null, "Bad GPA", "B.Tech IT", 100, 7.0),
+                new Student(null, "Valid Two", "B.Tech IT", 100, 2.0)
+        );
+
+        BulkWriteResult result = studentService.createStudents(students);
+
+        assertEquals(2, result.getInsertedCount());
+        assertEquals("GPA must be between 0.0 and 4.0", result.getFailures().get(1));
+        assertEquals(2, studentService.getAllStudents().size());
+    }
+
+
+    @Test
+    void mustComputeDashboardStatsInOneQuery() throws SQLException {
+
+        // empty table must not fail and reports zeros
+        assertEquals(0, studentService.getDashboardStats().getTotalStudents());
+        assertEquals(0.0, studentService.getDashboardStats().getAverageGpa());
+
+        Student inactive = new Student(null, "Inactive Student", "B.Tech IT", 100, 2.0);
+        inactive.setStatus("Inactive");
+
+        studentService.createStudent(new Student(null, "Active One", "B.Tech IT", 100, 3.0));
+        studentService.createStudent(new Student(null, "Active Two", "B.Tech IT", 200, 4.0));
+        studentService.createStudent(inactive);
+
+        DashboardStats stats = studentService.getDashboardStats();
+
+        assertEquals(3, stats.getTotalStudents());
+        assertEquals(2, stats.getActiveStudents());
+        assertEquals(1, stats.getInactiveStudents());
+        assertEquals(3.0, stats.getAverageGpa(), 0.0001);
+        assertEquals(2.0, stats.getMinGpa());
+        assertEquals(4.0, stats.getMaxGpa());
+    }
+
+
+    @Test
+    void mustInvalidateCachedReadsOnWrite() throws SQLException {
+
+        Student student = new Student(null, "Cached Student", "B.Tech IT", 100, 3.0);
+        studentService.createStudent(student);
+
+        // first reads fill the shared cache
+        assertEquals(1, studentService.getDashboardStats().getTotalStudents());
+        assertEquals("Cached Student", studentService.getStudentById(student.getStudentId()).getFullName());
+
+        // a second service instance (another view) reads the same cached results
+        long hits = studentService.getCacheStats().hits();
+        new StudentService().getStudentById(student.getStudentId());
+        assertEquals(hits + 1, studentService.getCacheStats().hits());
+
+        student.setFullName("Renamed Student");
+        studentService.updateStudent(student);
+
+        assertEquals("Renamed Student", studentService.getStudentById(student.getStudentId()).getFullName());
+
+        studentService.createStudent(new Student(null, "Another Student", "B.Tech IT", 100, 3.0));
+
+        assertEquals(2, studentService.getDashboardStats().getTotalStudents());
+    }
+
+    @Test
+    void mustReturnWrittenRecordAndNotifyListeners() throws SQLException {
+
+        List<StudentChange> changes = new ArrayList<>();
+        StudentChangeListener listener = changes::add;
+
+        // listeners are shared by every service on the database
+        new StudentService().addChangeListener(listener);
+
+        try {
+            Student created = studentService.createStudent(new Student(null, "Listener Student", "B.Tech IT", 100, 3.0));
+
+            assertNotNull(created.getStudentId());
+            assertEquals("Active", created.getStatus());
+
+            Student edit = new Student(created);
+            edit.setGpa(3.5);
+            Student updated = studentService.updateStudent(edit);
+
+            assertEquals(3.5, updated.getGpa());
+
+            Student deleted = studentService.deleteStudent(created.getStudentId());
+            assertEquals(3.5, deleted.getGpa());
+
+            // writes to unknown IDs change nothing and announce nothing
+            assertNull(studentService.deleteStudent("NO-SUCH-ID"));
+
+            studentService.createStudents(List.of(new Student(null, "Bulk Student", "B.Tech IT", 100, 2.0)));
+
+            assertEquals(List.of(StudentChange.Type.CREATED, StudentChange.Type.UPDATED,
+                    StudentChange.Type.DELETED, StudentChange.Type.BULK),
+                    changes.stream().map(StudentChange::getType).toList());
+
+            StudentChange update = changes.get(1);
+            assertEquals(3.0, update.getPrevious().getGpa());
+            assertEquals(3.5, update.getCurrent().getGpa());
+            assertNull(changes.get(2).getCurrent());
+            assertEquals(1, changes.get(3).getStudentIds().size());
+
+        } finally {
+            studentService.removeChangeListener(listener);
+        }
+    }
+
+    @Test
+    void mustNotShareCachedStudentsBetweenCallers() throws SQLException {
+
+        studentService.createStudent(new Student(null, "Cached Student", "B.Tech IT", 100, 1.5));
+
+        // editing a returned record must not leak into the next read of the same cached result
+        studentService.searchStudents("Cached", 10).get(0).setGpa(4.0);
+        studentService.getAtRiskStudentsReport(2.0).get(0).setFullName("Edited");
+
+        assertEquals(1.5, studentService.searchStudents("Cached", 10).get(0).getGpa());
+        assertEquals("Cached Student", studentService.getAtRiskStudentsReport(2.0).get(0).getFullName());
+    }
+
+    @Test
+    void mustShareCacheAndListenersBetweenStoresOnTheSameDatabase() throws SQLException {
+
+        StudentService first = new StudentService(new StudentRepository());
+        StudentService second = new StudentService(new StudentRepository());
+
+        List<StudentChange> changes = new ArrayList<>();
+        StudentChangeListener listener = changes::add;
+        first.addChangeListener(listener);
+
+        try {
+            assertEquals(0, first.getDashboardStats().getTotalStudents());
+
+            // a write through the other repository drops the first one's cached stats and is announced to it
+            second.createStudent(new Student(null, "Shared Student", "B.Tech IT", 100, 3.0));
+
+            assertEquals(1, first.getDashboardStats().getTotalStudents());
+            assertEquals(1, changes.size());
+
+        } finally {
+            first.removeChangeListener(listener);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.frederickamakye.smsplus.ui;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.frederickamakye.smsplus.models.Student;
+import com.frederickamakye.smsplus.models.StudentQuery;
+import com.frederickamakye.smsplus.models.StudentRow;
+import com.frederickamakye.smsplus.services.AsyncStudentService;
+import com.frederickamakye.smsplus.services.StudentService;
+import com.frederickamakye.smsplus.utils.Database;
+
+import javafx.collections.ListChangeListener;
+
+class LazyStudentListTests {
+
+    private StudentService studentService;
+    private AsyncStudentService asyncService;
+
+    // stands in for the FX Application Thread, the test runs arrived pages when it chooses
+    private final BlockingQueue<Runnable> fxThread = new LinkedBlockingQueue<>();
+
+    @BeforeEach
+    void setup() throws SQLException {
+
+        System.setProperty("db.url", "jdbc:sqlite:data/test.db");
+        Database.init();
+
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("DELETE FROM students");
+        }
+
+        StudentService.clearCache();
+        studentService = new StudentService();
+        asyncService = new AsyncStudentService(studentService, 2, 0);
+
+        List<Student> students = new ArrayList<>();
+
+        for (int i = 0; i < 25; i++) {
+            students.add(new Student(String.format("L%02d", i), "Lazy Student " + i, "B.Tech IT", 100, 3.0));
+        }
+
+        studentService.createStudents(students);
+    }
+
+    @AfterEach
+    void teardown() {
+        asyncService.close();
+    }
+
+
+    @Test
+    void mustPageRowsInOrderAndDropLeastRecentlyReadPages() throws Exception {
+
+        StudentQuery query = LazyStudentList.keyOrdered(new StudentQuery());
+        List<String> expected = ids(studentService.findStudentRows(query));
+
+        LazyStudentList list = new LazyStudentList(asyncService, query, studentService.countStudents(query),
+                studentService.findStudentRows(new StudentQuery(query).limit(10)), 10, 2, fxThread::add);
+
+        List<Integer> changedFrom = new ArrayList<>();
+        list.addListener((ListChangeListener<StudentRow>) change -> {
+            while (change.next()) {
+                changedFrom.add(change.getFrom());
+            }
+        });
+
+        assertEquals(25, list.size());
+
+        // the first page is shown right away, reading it fetches the next one ahead
+        assertEquals(expected.get(0), list.get(0).getStudentId());
+
+        runNextPage();
+
+        assertEquals(List.of(10), changedFrom);
+        assertEquals(expected.subList(10, 20), ids(rows(list, 10, 20)));
+
+        // reading page 1 fetched page 2, which pushes out page 0 as the least recently read
+        runNextPage();
+
+        assertEquals(2, list.getLoadedPageCount());
+        assertEquals(expected.subList(20, 25), ids(rows(list, 20, 25)));
+        assertNull(list.get(0));
+
+        runNextPage();
+
+        // pages never overlap, the whole listing reads back in order
+        assertEquals(expected.subList(0, 10), ids(rows(list, 0, 10)));
+    }
+
+
+    @Test
+    void mustSeekPagesFromLoadedNeighboursInSortOrder() throws Exception {
+
+        // GPA ties across page edges, the cursor must break them by student ID like the listing does
+        for (int i = 0; i < 25; i++) {
+            Student student = studentService.getStudentById(String.format("L%02d", i));
+            student.setGpa(i % 3);
+            studentService.updateStudent(student);
+        }
+
+        StudentQuery query = LazyStudentList.keyOrdered(new StudentQuery().orderBy(StudentQuery.SortField.GPA, true));
+        List<String> expected = ids(studentService.findStudentRows(query));
+
+        LazyStudentList list = new LazyStudentList(asyncService, query, 25,
+                studentService.findStudentRows(new StudentQuery(query).limit(10)), 10, 2, fxThread::add);
+
+        // page 1 seeks after page 0, page 2 has no loaded neighbour yet and skips rows
+        list.get(10);
+        runNextPage();
+        runNextPage();
+
+        assertEquals(expected.subList(10, 25), ids(rows(list, 10, 25)));
+
+        // page 0 was pushed out, it seeks back before page 1
+        list.get(0);
+        runNextPage();
+
+        assertEquals(expected.subList(0, 10), ids(rows(list, 0, 10)));
+
+        // and page 2, pushed out in turn, seeks after page 1 again
+        list.get(20);
+        runNextPage();
+
+        assertEquals(expected.subList(20, 25), ids(rows(list, 20, 25)));
+    }
+
+
+    @Test
+    void mustKeepPagesBeforeTheChangedRow() throws Exception {
+
+        StudentQuery query = LazyStudentList.keyOrdered(new StudentQuery());
+
+        LazyStudentList list = new LazyStudentList(asyncService, query, 25,
+                studentService.findStudentRows(new StudentQuery(query).limit(10)), 10, 3, fxThread::add);
+
+        list.get(0);
+        runNextPage();
+        assertEquals(2, list.getLoadedPageCount());
+
+        List<Integer> changedFrom = new ArrayList<>();
+        list.addListener((ListChangeListener<StudentRow>) change -> {
+            while (change.next()) {
+                changedFrom.add(change.getFrom());
+            }
+        });
+
+        // the new row sorts into page 1, page 0 keeps its rows
+        Student added = new Student("L12A", "Lazy Student 12A", "B.Tech IT", 100, 3.0);
+        studentService.createStudent(added);
+        list.rowsChanged(null, StudentRow.from(added));
+
+        assertEquals(26, list.size());
+        assertEquals(List.of(10), changedFrom);
+        assertEquals(1, list.getLoadedPageCount());
+        assertEquals("L00", list.get(0).getStudentId());
+
+        // page 1 is read again from the end of page 0
+        assertNull(list.get(13));
+        runNextPage();
+
+        assertEquals("L12A", list.get(13).getStudentId());
+        assertEquals("L18", list.get(19).getStudentId());
+    }
+
+
+    @Test
+    void mustDiscardPagesFetchedBeforeResize() throws Exception {
+
+        StudentQuery query = LazyStudentList.keyOrdered(new StudentQuery());
+
+        LazyStudentList list = new LazyStudentList(asyncService, query, 25, null, 10, 2, fxThread::add);
+
+        // fetches of page 0 and the page after start, then a write lands before they arrive
+        assertNull(list.get(0));
+        list.rowsChanged(null, new StudentRow("L00A", "Lazy Student 0A", "B.Tech IT", 100, 3.0, "ACTIVE"));
+
+        runNextPage();
+        runNextPage();
+
+        assertEquals(26, list.size());
+        assertEquals(0, list.getLoadedPageCount());
+
+        // the next read fetches the page again
+        assertNull(list.get(0));
+        runNextPage();
+
+        assertNotNull(list.get(0));
+    }
+
+
+    // wait for the next fetched page and apply it, as Platform.runLater would
+    private void runNextPage() throws InterruptedException {
+        Runnable arrival = fxThread.poll(5, TimeUnit.SECONDS);
+        assertNotNull(arrival, "no page arrived");
+        arrival.run();
+    }
+
+    private List<StudentRow> rows(LazyStudentList list, int from, int to) {
+        List<StudentRow> rows = new ArrayList<>();
+
+        for (int i = from; i < to; i++) {
+            rows.add(list.get(i));
+        }
+
+        return rows;
+    }
+
+    private List<String> ids(List<StudentRow> rows) {
+        return rows.stream().map(row -> row == null ? null : row.getStudentId()).toList();
+    }
+}
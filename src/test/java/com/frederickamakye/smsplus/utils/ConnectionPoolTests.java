@@ -0,0 +1,183 @@
+package com.frederickamakye.smsplus.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConnectionPoolTests {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setup() {
+        pool = new ConnectionPool("jdbc:sqlite:data/pool_test.db", 2, 200, 0);
+    }
+
+    @AfterEach
+    void teardown() {
+        pool.close();
+    }
+
+
+    @Test
+    void mustReuseReturnedConnection() throws SQLException {
+
+        Connection first;
+        try (Connection conn = pool.acquire()) {
+            first = conn.unwrap(Connection.class);
+        }
+
+        Connection second;
+        try (Connection conn = pool.acquire()) {
+            second = conn.unwrap(Connection.class);
+        }
+
+        // the same physical connection must be handed out again
+        assertSame(first, second);
+        assertEquals(1, pool.getStats().idle());
+    }
+
+
+    @Test
+    void mustTimeOutWhenPoolIsExhausted() throws SQLException {
+
+        try (Connection a = pool.acquire(); Connection b = pool.acquire()) {
+
+            // both connections are in use so the third request must time out
+            assertThrows(SQLException.class, () -> pool.acquire());
+            assertEquals(1, pool.getStats().acquireTimeouts());
+        }
+    }
+
+
+    @Test
+    void mustRollBackOpenTransactionOnRelease() throws SQLException {
+
+        try (Connection conn = pool.acquire();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("CREATE TABLE IF NOT EXISTS pool_test (value INTEGER)");
+            stmt.execute("DELETE FROM pool_test");
+        }
+
+        try (Connection conn = pool.acquire();
+             Statement stmt = conn.createStatement()) {
+
+            conn.setAutoCommit(false);
+            stmt.execute("INSERT INTO pool_test VALUES (1)");
+            // returned without commit
+        }
+
+        try (Connection conn = pool.acquire();
+             Statement stmt = conn.createStatement()) {
+
+            // uncommitted row must be gone and autocommit restored
+            assertTrue(conn.getAutoCommit());
+
+            var rs = stmt.executeQuery("SELECT COUNT(*) FROM pool_test");
+            rs.next();
+            assertEquals(0, rs.getInt(1));
+            rs.close();
+        }
+    }
+
+
+    @Test
+    void mustRejectUseAfterClose() throws SQLException {
+
+        Connection conn = pool.acquire();
+        conn.close();
+
+        assertTrue(conn.isClosed());
+        assertThrows(SQLException.class, conn::createStatement);
+    }
+
+
+    @Test
+    void mustServeRepeatedStatementsFromCache() throws SQLException {
+
+        ConnectionPool cachingPool = new ConnectionPool("jdbc:sqlite:data/pool_test.db", 1, 200, 0, conn -> { }, 2);
+
+        try {
+            for (int i = 0; i < 3; i++) {
+                try (Connection conn = cachingPool.acquire();
+                     PreparedStatement stmt = conn.prepareStatement("SELECT ? + 1")) {
+
+                    stmt.setInt(1, i);
+
+                    try (ResultSet resultset = stmt.executeQuery()) {
+                        resultset.next();
+                        assertEquals(i + 1, resultset.getInt(1));
+                    }
+                }
+            }
+
+            ConnectionPool.StatementStats stats = statsFor(cachingPool, "SELECT ? + 1");
+
+            // prepared once, reused twice
+            assertEquals(1, stats.misses());
+            assertEquals(2, stats.hits());
+
+            // two more statements overflow the cache of size 2 and evict the least recently used
+            try (Connection conn = cachingPool.acquire()) {
+                conn.prepareStatement("SELECT 2").close();
+                conn.prepareStatement("SELECT 3").close();
+            }
+
+            assertEquals(1, statsFor(cachingPool, "SELECT ? + 1").evictions());
+
+        } finally {
+            cachingPool.close();
+        }
+    }
+
+
+    @Test
+    void mustEndStatementsLeftOpenWithTheLease() throws SQLException {
+
+        ConnectionPool cachingPool = new ConnectionPool("jdbc:sqlite:data/pool_test.db", 1, 200, 0, conn -> { }, 2);
+
+        try {
+            // the borrower never closes its statements
+            Connection first = cachingPool.acquire();
+            PreparedStatement cached = first.prepareStatement("SELECT ? + 1");
+            Statement plain = first.createStatement();
+            first.close();
+
+            // the next borrower holds the same physical connection, the old statements must not run on it
+            try (Connection second = cachingPool.acquire()) {
+
+                assertTrue(cached.isClosed());
+                assertTrue(plain.isClosed());
+                assertThrows(SQLException.class, () -> cached.setInt(1, 1));
+                assertThrows(SQLException.class, () -> plain.executeQuery("SELECT 1"));
+
+                // the statement left open went back to the cache
+                second.prepareStatement("SELECT ? + 1").close();
+            }
+
+            assertEquals(1, statsFor(cachingPool, "SELECT ? + 1").hits());
+
+        } finally {
+            cachingPool.close();
+        }
+    }
+
+
+    private ConnectionPool.StatementStats statsFor(ConnectionPool pool, String sql) {
+        return pool.getStatementStats().stream()
+                .filter(stats -> stats.sql().equals(sql))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -1,18 +1,34 @@
 package com.frederickamakye.smsplus.utils;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+
+import com.frederickamakye.smsplus.models.ImportMode;
+import com.frederickamakye.smsplus.models.ImportResult;
 import com.frederickamakye.smsplus.models.Student;
+import com.frederickamakye.smsplus.models.StudentChange;
+import com.frederickamakye.smsplus.services.StudentChangeListener;
 import com.frederickamakye.smsplus.services.StudentService;
 
 class CsvHandlerTests {
@@ -20,6 +36,10 @@ class CsvHandlerTests {
     private StudentService studentService;
     private static final String TEST_CSV = "data/test_students.csv";
 
+    // changes announced after the seed rows
+    private final List<StudentChange> changes = new ArrayList<>();
+    private final StudentChangeListener listener = changes::add;
+
     @BeforeEach
     void setup() throws SQLException {
 
@@ -33,9 +53,19 @@ class CsvHandlerTests {
             stmt.execute("DELETE FROM students");
         }
 
+        // direct SQL writes bypass the shared read cache
+        StudentService.clearCache();
+
         // seed testing dataset using service
         studentService.createStudent(new Student(null, "Student A", "B.Tech IT", 100, 3.9));
         studentService.createStudent(new Student(null, "Student B", "B.Tech IT", 100, 3.5));
+
+        studentService.addChangeListener(listener);
+    }
+
+    @AfterEach
+    void teardown() {
+        studentService.removeChangeListener(listener);
     }
 
 
@@ -85,6 +115,9 @@ class CsvHandlerTests {
             stmt.execute("DELETE FROM students");
         }
 
+        // direct SQL writes bypass the shared read cache
+        StudentService.clearCache();
+
         CsvHandler.exportStudents(
                 List.of(
                         new Student("X001", "Valid Student", "B.Tech IT", 100, 3.2),
@@ -100,4 +133,149 @@ class CsvHandlerTests {
         // only 1 valid student expected
         assertEquals(1, students.size());
     }
-}
\ No newline at end of file
+
+
+    @Test
+    void mustReportDuplicateRowsAcrossBatches() throws IOException, SQLException {
+
+        List<Student> students = studentService.getAllStudents();
+
+        // the two seeded students are still in the db, so re-importing them must fail per row
+        CsvHandler.exportStudents(
+                List.of(
+                        students.get(0),
+                        new Student("X003", "New Student", "B.Tech IT", 200, 3.0),
+                        students.get(1)
+                ),
+                TEST_CSV
+        );
+
+        ImportResult result = CsvHandler.importStudents(TEST_CSV, studentService, ImportMode.INSERT, 2);
+
+        assertEquals(1, result.getSuccessCount());
+        assertEquals(2, result.getErrorCount());
+        assertEquals(3, studentService.getAllStudents().size());
+    }
+
+
+    @Test
+    void mustUpsertOnReimport() throws IOException, SQLException {
+
+        List<Student> students = studentService.getAllStudents();
+
+        Student changed = students.get(0);
+        changed.setGpa(1.0);
+
+        CsvHandler.exportStudents(
+                List.of(
+                        changed,
+                        students.get(1),
+                        new Student("X004", "New Student", "B.Tech IT", 300, 3.3)
+                ),
+                TEST_CSV
+        );
+
+        ImportResult result = CsvHandler.importStudents(TEST_CSV, studentService, ImportMode.UPSERT);
+
+        assertEquals(0, result.getErrorCount());
+        assertEquals(1, result.getInsertedCount());
+        assertEquals(1, result.getUpdatedCount());
+        assertEquals(1, result.getUnchangedCount());
+        assertEquals(1.0, studentService.getStudentById(changed.getStudentId()).getGpa());
+    }
+
+
+    @Test
+    void mustStreamExportAllStudents() throws IOException, SQLException {
+
+        long exported = CsvHandler.exportStudents(studentService, TEST_CSV);
+
+        assertEquals(2, exported);
+        // header plus one line per student
+        assertEquals(3, Files.readAllLines(Path.of(TEST_CSV)).size());
+    }
+
+
+    @Test
+    void mustImportInFileOrderAcrossPipelineWorkers() throws IOException, SQLException {
+
+        // many small chunks on several workers, duplicates far apart, an invalid row every 50
+        List<Student> rows = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            double gpa = i % 50 == 0 ? 9.0 : (i % 40) / 10.0;
+            rows.add(new Student("P" + (i % 700), "Pipeline Student " + i, "B.Tech IT", 100, gpa));
+        }
+
+        CsvHandler.exportStudents(rows, TEST_CSV);
+
+        ImportResult result;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(TEST_CSV));
+             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
+
+            result = new CsvImportPipeline(studentService, ImportMode.UPSERT, 64, 4, 7).run(csvParser);
+        }
+
+        assertEquals(20, result.getErrorCount());
+        assertEquals(980, result.getSuccessCount());
+
+        // a later row of the file wins over an earlier one with the same ID
+        assertEquals("Pipeline Student 999", studentService.getStudentById("P299").getFullName());
+        assertEquals("Pipeline Student 701", studentService.getStudentById("P1").getFullName());
+
+        assertEquals(3, result.getStageStats().size());
+        assertEquals(1000, result.getStageStats().get(0).getRows());
+        assertEquals(980, result.getStageStats().get(2).getRows());
+        assertTrue(result.getRowsPerSecond() > 0);
+
+        // 16 batches, one change for the whole import
+        assertEquals(1, changes.size());
+        assertEquals(StudentChange.Type.BULK, changes.get(0).getType());
+        assertEquals(980, changes.get(0).getStudentIds().size());
+    }
+
+
+    @Test
+    void mustStopAtMalformedRecordAfterCommittingEarlierBatches() throws IOException, SQLException {
+
+        List<Student> rows = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            rows.add(new Student("M" + i, "Malformed Test " + i, "B.Tech IT", 100, 3.0));
+        }
+
+        CsvHandler.exportStudents(rows, TEST_CSV);
+
+        // text after a closing quote: commons-csv cannot read the record of row 500 (line 502 with the header)
+        List<String> lines = new ArrayList<>(Files.readAllLines(Path.of(TEST_CSV)));
+        lines.set(501, "M500,\"Malformed\" Test,B.Tech IT,100,3.0,,,");
+        Files.write(Path.of(TEST_CSV), lines);
+
+        // fills the read cache, the failed import must still drop it
+        assertEquals(2, studentService.getAllStudents().size());
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(TEST_CSV));
+             CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.withFirstRecordAsHeader())) {
+
+            CsvImportPipeline pipeline = new CsvImportPipeline(studentService, ImportMode.INSERT, 64, 4, 7);
+
+            assertThrows(IOException.class, () -> pipeline.run(csvParser));
+        }
+
+        // the stage threads are gone once run() returns
+        assertTrue(Thread.getAllStackTraces().keySet().stream()
+                .noneMatch(thread -> thread.getName().startsWith("csv-import-")));
+
+        // like a serial import: the 7 full batches of 64 before the bad record are committed,
+        // the partial batch it was in and everything after it are not
+        assertEquals(2 + 7 * 64, studentService.getAllStudents().size());
+        assertNotNull(studentService.getStudentById("M447"));
+        assertNull(studentService.getStudentById("M448"));
+        assertNull(studentService.getStudentById("M999"));
+
+        // the committed batches are announced once, when the import failed
+        assertEquals(1, changes.size());
+        assertEquals(7 * 64, changes.get(0).getStudentIds().size());
+    }
+}
@@ -0,0 +1,82 @@
+package com.frederickamakye.smsplus.utils;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DatabaseTests {
+
+    @BeforeEach
+    void setup() throws SQLException {
+
+        System.setProperty("db.url", "jdbc:sqlite:data/test.db");
+        Database.init();
+
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("DELETE FROM students");
+        }
+    }
+
+
+    @Test
+    void mustApplyProfileToPooledConnections() throws SQLException {
+
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement()) {
+
+            // default profile is balanced (WAL)
+            assertEquals("wal", queryPragma(stmt, "journal_mode"));
+            assertEquals(String.valueOf(Database.getProfile().getBusyTimeoutMs()), queryPragma(stmt, "busy_timeout"));
+            assertEquals(String.valueOf(Database.getProfile().getCacheSize()), queryPragma(stmt, "cache_size"));
+        }
+    }
+
+
+    @Test
+    void mustAllowReadsWhileWriteTransactionIsOpen() throws SQLException {
+
+        try (Connection writer = Database.connect();
+             Statement writeStmt = writer.createStatement()) {
+
+            writer.setAutoCommit(false);
+            writeStmt.execute("""
+                INSERT INTO students (student_id, full_name, programme, level, gpa)
+                VALUES ('WAL1', 'Writer', 'B.Tech IT', 100, 3.0)
+            """);
+
+            // a reader on another connection must not block and must not see the uncommitted row
+            try (Connection reader = Database.connect();
+                 Statement readStmt = reader.createStatement();
+                 ResultSet resultset = readStmt.executeQuery("SELECT COUNT(*) FROM students")) {
+
+                resultset.next();
+                assertEquals(0, resultset.getInt(1));
+            }
+
+            writer.commit();
+        }
+    }
+
+
+    @Test
+    void mustRejectUnknownProfile() {
+
+        assertThrows(IllegalArgumentException.class, () -> DatabaseProfile.named("turbo"));
+    }
+
+
+    private String queryPragma(Statement stmt, String pragma) throws SQLException {
+        try (ResultSet resultset = stmt.executeQuery("PRAGMA " + pragma)) {
+            resultset.next();
+            return resultset.getString(1);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.frederickamakye.smsplus.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class GpaQuantileSketchTests {
+
+    @Test
+    void mustMatchSortedQuantilesForTwoDecimalGpas() {
+
+        Random random = new Random(7);
+        double[] gpas = new double[10_001];
+        GpaQuantileSketch sketch = new GpaQuantileSketch();
+
+        for (int i = 0; i < gpas.length; i++) {
+            gpas[i] = random.nextInt(401) / 100.0;
+            sketch.add(gpas[i]);
+        }
+
+        Arrays.sort(gpas);
+
+        for (double q : new double[] { 0.10, 0.25, 0.50, 0.75, 0.90 }) {
+            // nearest rank on the sorted copy
+            double expected = gpas[(int) Math.ceil(q * gpas.length) - 1];
+            assertEquals(expected, sketch.quantile(q), 1e-9);
+        }
+    }
+
+
+    @Test
+    void mustMergeBatchesLikeOnePass() {
+
+        Random random = new Random(11);
+        GpaQuantileSketch whole = new GpaQuantileSketch();
+        GpaQuantileSketch first = new GpaQuantileSketch();
+        GpaQuantileSketch second = new GpaQuantileSketch();
+
+        for (int i = 0; i < 5_000; i++) {
+            double gpa = random.nextDouble() * 4.0;
+            whole.add(gpa);
+            (i % 2 == 0 ? first : second).add(gpa);
+        }
+
+        first.merge(second);
+
+        assertEquals(whole.count(), first.count());
+
+        for (double q = 0; q <= 1.0; q += 0.05) {
+            assertEquals(whole.quantile(q), first.quantile(q));
+        }
+    }
+
+
+    @Test
+    void mustReturnNaNWhenEmptyAndBoundOutOfRangeValues() {
+
+        GpaQuantileSketch sketch = new GpaQuantileSketch();
+
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+
+        sketch.add(-1.0);
+        sketch.add(9.0);
+
+        assertEquals(GpaQuantileSketch.MIN_GPA, sketch.quantile(0.5));
+        assertEquals(GpaQuantileSketch.MAX_GPA, sketch.quantile(1.0));
+    }
+}
@@ -0,0 +1,79 @@
+package com.frederickamakye.smsplus.utils;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.frederickamakye.smsplus.services.StudentService;
+
+// Exports a large synthetic table through the streaming path.
+// The default run uses a small table. Run with -Plarge-tests to export millions of rows with a small -Xmx,
+// which fails with OutOfMemoryError if the export ever holds the whole table in memory.
+class LargeExportTests {
+
+    private static final String EXPORT_CSV = "data/large_export.csv";
+    private static final int ROWS = Integer.getInteger("export.test.rows", 20_000);
+
+    private StudentService studentService;
+
+    @BeforeEach
+    void setup() throws SQLException {
+
+        System.setProperty("db.url", "jdbc:sqlite:data/test.db");
+        Database.init();
+        studentService = new StudentService();
+
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("DELETE FROM students");
+
+            // generate rows inside SQLite so seeding does not depend on the code under test
+            stmt.execute("""
+                WITH RECURSIVE seq(n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < %d)
+                INSERT INTO students (student_id, full_name, programme, level, gpa, email, phone, date_added, status)
+                SELECT printf('L%%015d', n), 'Student ' || n, 'Programme ' || (n %% 20), 100 * (1 + n %% 4),
+                       (n %% 401) / 100.0, 'student' || n || '@example.com', '0240000000', '2024-01-01',
+                       CASE WHEN n %% 10 = 0 THEN 'Inactive' ELSE 'Active' END
+                FROM seq
+            """.formatted(ROWS));
+        }
+    }
+
+    @AfterEach
+    void cleanup() throws SQLException {
+
+        try (Connection conn = Database.connect();
+             Statement stmt = conn.createStatement()) {
+
+            stmt.execute("DELETE FROM students");
+        }
+    }
+
+
+    @Test
+    void mustExportLargeTableWithFlatHeap() throws IOException, SQLException {
+
+        long exported = CsvHandler.exportStudents(studentService, EXPORT_CSV);
+
+        assertEquals(ROWS, exported);
+
+        long lines = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(EXPORT_CSV))) {
+            while (reader.readLine() != null) {
+                lines++;
+            }
+        }
+
+        // header plus one line per student
+        assertEquals(ROWS + 1, lines);
+    }
+}
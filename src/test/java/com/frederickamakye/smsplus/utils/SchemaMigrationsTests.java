@@ -0,0 +1,149 @@
+package com.frederickamakye.smsplus.utils;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SchemaMigrationsTests {
+
+    private static final String LEGACY_DB = "data/migration_test.db";
+
+    @BeforeEach
+    void setup() {
+        new File("data").mkdirs();
+        new File(LEGACY_DB).delete();
+    }
+
+
+    @Test
+    void mustUpgradeLegacyDatabaseInPlace() throws SQLException {
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + LEGACY_DB);
+             Statement stmt = conn.createStatement()) {
+
+            // schema as created by releases without migrations
+            stmt.execute("""
+                CREATE TABLE students (
+                    student_id TEXT PRIMARY KEY,
+                    full_name TEXT NOT NULL,
+                    programme TEXT NOT NULL,
+                    level INTEGER NOT NULL,
+                    gpa REAL NOT NULL,
+                    email TEXT,
+                    phone TEXT,
+                    date_added TEXT,
+                    status TEXT
+                )
+            """);
+            stmt.execute("INSERT INTO students VALUES ('OLD1', 'Legacy Student', 'B.Tech IT', 100, 3.1, NULL, NULL, NULL, 'Active')");
+
+            SchemaMigrations.migrate(conn);
+
+            assertEquals(SchemaMigrations.latestVersion(), SchemaMigrations.currentVersion(conn));
+
+            // existing rows are kept
+            try (ResultSet resultset = stmt.executeQuery("SELECT COUNT(*) FROM students")) {
+                resultset.next();
+                assertEquals(1, resultset.getInt(1));
+            }
+
+            // running again is a no-op
+            SchemaMigrations.migrate(conn);
+            assertEquals(SchemaMigrations.latestVersion(), SchemaMigrations.currentVersion(conn));
+        }
+    }
+
+
+    @Test
+    void mustUseIndexesForFilterAndReportQueries() throws SQLException {
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + LEGACY_DB);
+             Statement stmt = conn.createStatement()) {
+
+            SchemaMigrations.migrate(conn);
+
+            assertTrue(queryPlan(stmt, "SELECT * FROM students WHERE programme = 'B.Tech IT'").contains("idx_students_programme"));
+            assertTrue(queryPlan(stmt, "SELECT * FROM students WHERE status = 'Active'").contains("idx_students_status"));
+            assertTrue(queryPlan(stmt, "SELECT * FROM students WHERE gpa < 2.0 ORDER BY gpa ASC").contains("idx_students_gpa"));
+            assertTrue(queryPlan(stmt, "SELECT * FROM students ORDER BY full_name COLLATE NOCASE ASC").contains("idx_students_full_name_nocase"));
+
+            // keyset page queries walk the index without a sort step
+            String keysetPlan = queryPlan(stmt, """
+                SELECT * FROM students WHERE (gpa, student_id) < (3.0, 'X') ORDER BY gpa DESC, student_id DESC LIMIT 51
+            """);
+            assertTrue(keysetPlan.contains("idx_students_gpa"));
+            assertFalse(keysetPlan.contains("TEMP B-TREE"));
+        }
+    }
+
+
+    @Test
+    void mustReadTopPerformersFromIndexWithoutSorting() throws SQLException {
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + LEGACY_DB);
+             Statement stmt = conn.createStatement()) {
+
+            SchemaMigrations.migrate(conn);
+
+            // the query shapes StudentRepository.getTopPerformers builds
+            String both = queryPlan(stmt, """
+                SELECT * FROM students WHERE 1=1 AND programme = 'b.tech it' COLLATE NOCASE AND level = 100
+                ORDER BY gpa DESC LIMIT 10
+            """);
+            assertTrue(both.contains("idx_students_programme_level_gpa"));
+            assertFalse(both.contains("TEMP B-TREE"));
+
+            String programmeOnly = queryPlan(stmt, """
+                SELECT * FROM students WHERE 1=1 AND programme = 'b.tech it' COLLATE NOCASE ORDER BY gpa DESC LIMIT 10
+            """);
+            assertTrue(programmeOnly.contains("idx_students_programme_gpa"));
+            assertFalse(programmeOnly.contains("TEMP B-TREE"));
+
+            String levelOnly = queryPlan(stmt, "SELECT * FROM students WHERE 1=1 AND level = 100 ORDER BY gpa DESC LIMIT 10");
+            assertTrue(levelOnly.contains("idx_students_level_gpa"));
+            assertFalse(levelOnly.contains("TEMP B-TREE"));
+
+            assertFalse(queryPlan(stmt, "SELECT * FROM students WHERE 1=1 ORDER BY gpa DESC LIMIT 10").contains("TEMP B-TREE"));
+        }
+    }
+
+
+    @Test
+    void mustPageUnsortedFilteredListingsWithoutSorting() throws SQLException {
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + LEGACY_DB);
+             Statement stmt = conn.createStatement()) {
+
+            SchemaMigrations.migrate(conn);
+
+            // the query shapes StudentRepository.find builds for an unsorted, offset paged listing
+            for (String filter : new String[] { "s.level = 100", "s.programme = 'B.Tech IT'", "s.status = 'Active'", "1=1" }) {
+                String plan = queryPlan(stmt,
+                        "SELECT s.* FROM students s WHERE 1=1 AND " + filter + " ORDER BY s.student_id LIMIT 100 OFFSET 200");
+                assertFalse(plan.contains("TEMP B-TREE"), filter + ": " + plan);
+            }
+        }
+    }
+
+
+    private String queryPlan(Statement stmt, String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+
+        try (ResultSet resultset = stmt.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+            while (resultset.next()) {
+                plan.append(resultset.getString("detail")).append('\n');
+            }
+        }
+
+        return plan.toString();
+    }
+}